@@ -0,0 +1,201 @@
+package dataaccess;
+
+import model.AuthData;
+import model.GameData;
+import model.GameSummary;
+import model.UserData;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs data access calls on a bounded pool of threads and returns futures, so a handler can start
+ * independent calls together, such as validating a token and fetching a game, and wait once for both.
+ * <p>
+ * The pool has one thread per call the engine can run at once, which for MySQL is the connection pool
+ * size, so calls wait here for a thread rather than inside JDBC for a connection. Once the queue is
+ * full, further calls fail at once with a {@link RejectedExecutionException}, which the server answers
+ * with 503 so the client can retry, instead of piling up.
+ */
+public class AsyncDataAccess implements AutoCloseable {
+    private final DataAccess data;
+    private final ThreadPoolExecutor executor;
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * A data access call.
+     */
+    @FunctionalInterface
+    public interface Call<T> {
+        T call() throws DataAccessException;
+    }
+
+    /**
+     * Counts for the pool.
+     *
+     * @param active    Calls running now.
+     * @param queued    Calls waiting for a thread.
+     * @param completed Calls finished, successfully or not.
+     * @param rejected  Calls refused because the queue was full.
+     */
+    public record Stats(int active, int queued, long completed, long rejected) {
+    }
+
+    public AsyncDataAccess(DataAccess data, int queueCapacity) {
+        this(data, data.getParallelism(), queueCapacity);
+    }
+
+    /**
+     * @param data          The engine to call.
+     * @param threads       The most calls run at once.
+     * @param queueCapacity The most calls waiting for a thread.
+     */
+    public AsyncDataAccess(DataAccess data, int threads, int queueCapacity) {
+        this.data = data;
+        AtomicInteger count = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "data-access-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public CompletableFuture<Void> createUser(UserData user) {
+        return run(() -> {
+            data.getUserDAO().createUser(user);
+            return null;
+        });
+    }
+
+    public CompletableFuture<UserData> getUser(String username) {
+        return run(() -> data.getUserDAO().getUser(username));
+    }
+
+    public CompletableFuture<Void> createAuth(AuthData auth) {
+        return run(() -> {
+            data.getAuthDAO().createAuth(auth);
+            return null;
+        });
+    }
+
+    /**
+     * Looks a token up, answering at once without a pool thread when the token cache has it.
+     *
+     * @return A future of the session, or of null if the token is null or unknown
+     */
+    public CompletableFuture<AuthData> getAuth(String authToken) {
+        if (authToken == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        if (data.getAuthDAO() instanceof CachingAuthDAO cache) {
+            CachingAuthDAO.Cached cached = cache.peek(authToken);
+            if (cached != null) {
+                return CompletableFuture.completedFuture(cached.auth());
+            }
+        }
+        return run(() -> data.getAuthDAO().getAuth(authToken));
+    }
+
+    public CompletableFuture<Void> deleteAuth(String authToken) {
+        return run(() -> {
+            data.getAuthDAO().deleteAuth(authToken);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Integer> createGame(String gameName) {
+        return run(() -> data.getGameDAO().createGame(gameName));
+    }
+
+    public CompletableFuture<GameData> getGame(int gameID) {
+        return run(() -> data.getGameDAO().getGame(gameID));
+    }
+
+    public CompletableFuture<Collection<GameData>> listGames() {
+        return run(() -> data.getGameDAO().listGames());
+    }
+
+    public CompletableFuture<List<GameSummary>> listGames(GameQuery query) {
+        return run(() -> data.getGameDAO().listGames(query));
+    }
+
+    public CompletableFuture<Void> updateGame(GameData game) {
+        return run(() -> {
+            data.getGameDAO().updateGame(game);
+            return null;
+        });
+    }
+
+    /**
+     * Runs any data access call on the pool.
+     *
+     * @return A future that completes with the call's result, or exceptionally with what it threw, or
+     *         with a {@link RejectedExecutionException} if too many calls are already waiting
+     */
+    public <T> CompletableFuture<T> run(Call<T> call) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    future.complete(call.call());
+                } catch (DataAccessException | RuntimeException e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            future.completeExceptionally(new RejectedExecutionException("Error: too many requests, try again later"));
+        }
+        return future;
+    }
+
+    /**
+     * Waits for a call's result.
+     *
+     * @throws DataAccessException        if the call threw one
+     * @throws RejectedExecutionException if the call was refused because too many were waiting
+     */
+    public static <T> T await(CompletableFuture<T> future) throws DataAccessException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DataAccessException("Interrupted while waiting for data access");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof DataAccessException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new DataAccessException(e.getCause().toString());
+        }
+    }
+
+    public Stats getStats() {
+        return new Stats(executor.getActiveCount(), executor.getQueue().size(), executor.getCompletedTaskCount(),
+                rejected.sum());
+    }
+
+    /**
+     * Stops taking calls and waits briefly for the queued ones to finish.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package dataaccess;
+
+import model.AuthData;
+
+/**
+ * Stores login sessions.
+ */
+public interface AuthDAO {
+    void createAuth(AuthData auth) throws DataAccessException;
+
+    /**
+     * @return The session, or null if there is no session with that token
+     */
+    AuthData getAuth(String authToken) throws DataAccessException;
+
+    /**
+     * Ends a session. Deleting a token that does not exist does nothing.
+     */
+    void deleteAuth(String authToken) throws DataAccessException;
+
+    void clear() throws DataAccessException;
+}
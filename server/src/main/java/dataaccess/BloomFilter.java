@@ -0,0 +1,90 @@
+package dataaccess;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A Bloom filter over 64-bit keys. Keys are expected to be well mixed already, as Zobrist hashes are,
+ * so the probe positions come straight from the key and one extra mix of it.
+ */
+final class BloomFilter {
+    private static final int BITS_PER_KEY = 10;
+    private static final int PROBES = 7;
+
+    private final long[] words;
+    private final long mask;
+
+    /**
+     * Creates an empty filter sized for about a 1% false positive rate.
+     *
+     * @param expectedKeys The number of keys that will be added.
+     */
+    BloomFilter(int expectedKeys) {
+        this(new long[wordsFor(expectedKeys)]);
+    }
+
+    private BloomFilter(long[] words) {
+        this.words = words;
+        this.mask = (long) words.length * 64 - 1;
+    }
+
+    void add(long key) {
+        long h1 = key;
+        long h2 = mix(key) | 1;
+        for (int i = 0; i < PROBES; i++) {
+            long bit = (h1 + i * h2) & mask;
+            words[(int) (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    /**
+     * @return false if the key was definitely never added
+     */
+    boolean mightContain(long key) {
+        long h1 = key;
+        long h2 = mix(key) | 1;
+        for (int i = 0; i < PROBES; i++) {
+            long bit = (h1 + i * h2) & mask;
+            if ((words[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return The number of longs {@link #writeTo} writes
+     */
+    int wordCount() {
+        return words.length;
+    }
+
+    void writeTo(ByteBuffer out) {
+        for (long word : words) {
+            out.putLong(word);
+        }
+    }
+
+    static BloomFilter readFrom(ByteBuffer in, int wordCount) {
+        if (Integer.bitCount(wordCount) != 1) {
+            throw new IllegalArgumentException("Bloom filter size must be a power of two");
+        }
+        long[] words = new long[wordCount];
+        for (int i = 0; i < wordCount; i++) {
+            words[i] = in.getLong();
+        }
+        return new BloomFilter(words);
+    }
+
+    private static int wordsFor(int expectedKeys) {
+        // A power of two number of bits lets probes be masked instead of reduced with %
+        long bits = Long.highestOneBit(Math.max(64L, (long) expectedKeys * BITS_PER_KEY) * 2 - 1);
+        return (int) (bits >>> 6);
+    }
+
+    private static long mix(long key) {
+        // Stafford variant 13 of the SplitMix64 finalizer
+        key = (key ^ (key >>> 30)) * 0xBF58476D1CE4E5B9L;
+        key = (key ^ (key >>> 27)) * 0x94D049BB133111EBL;
+        return key ^ (key >>> 31);
+    }
+}
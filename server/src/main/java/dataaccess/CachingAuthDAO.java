@@ -0,0 +1,178 @@
+package dataaccess;
+
+import model.AuthData;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Answers token lookups from memory so that validating the token on every request is not a
+ * database round trip.
+ * <p>
+ * A token found in the DAO is cached for the TTL, and a token not found is cached as unknown for the
+ * shorter negative TTL, so a client retrying a bad token does not reach the database either. Tokens
+ * created or deleted through this DAO update the cache at once; the TTLs only bound how long a
+ * change made elsewhere, such as by another server, goes unseen. Once the cache holds more than its
+ * maximum size, expired entries are dropped first and then arbitrary ones.
+ */
+public class CachingAuthDAO implements AuthDAO {
+    private final AuthDAO delegate;
+    private final Settings settings;
+    private final long ttlNanos;
+    private final long negativeTtlNanos;
+    private final LongSupplier clock;
+    private final ConcurrentHashMap<String, Cached> cache = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder negativeHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Cache limits, with times in milliseconds.
+     *
+     * @param maxSize     The most tokens cached.
+     * @param ttl         How long a found token is cached.
+     * @param negativeTtl How long an unknown token is cached.
+     */
+    public record Settings(int maxSize, long ttl, long negativeTtl) {
+        public Settings {
+            if (maxSize < 1) {
+                throw new IllegalArgumentException("maxSize must be positive");
+            }
+        }
+    }
+
+    /**
+     * Counts for the cache.
+     *
+     * @param size         Tokens cached now, including expired ones not yet dropped.
+     * @param hits         Lookups answered with a cached session.
+     * @param negativeHits Lookups answered with a cached unknown token.
+     * @param misses       Lookups that went to the DAO.
+     * @param evictions    Entries dropped to keep the cache within its maximum size.
+     */
+    public record Stats(int size, long hits, long negativeHits, long misses, long evictions) {
+    }
+
+    /**
+     * A cached lookup.
+     *
+     * @param auth      The session, or null if the token is unknown.
+     * @param expiresAt When the entry expires, on the cache's clock.
+     */
+    record Cached(AuthData auth, long expiresAt) {
+    }
+
+    public CachingAuthDAO(AuthDAO delegate, Settings settings) {
+        this(delegate, settings, System::nanoTime);
+    }
+
+    /**
+     * @param delegate Where sessions are stored.
+     * @param settings The cache limits.
+     * @param clock    The time source, in nanoseconds.
+     */
+    public CachingAuthDAO(AuthDAO delegate, Settings settings, LongSupplier clock) {
+        this.delegate = delegate;
+        this.settings = settings;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(settings.ttl());
+        this.negativeTtlNanos = TimeUnit.MILLISECONDS.toNanos(settings.negativeTtl());
+        this.clock = clock;
+    }
+
+    @Override
+    public void createAuth(AuthData auth) throws DataAccessException {
+        delegate.createAuth(auth);
+        store(auth.authToken(), new Cached(auth, clock.getAsLong() + ttlNanos));
+    }
+
+    @Override
+    public AuthData getAuth(String authToken) throws DataAccessException {
+        if (authToken == null) {
+            return null;
+        }
+        Cached cached = peek(authToken);
+        if (cached != null) {
+            return cached.auth();
+        }
+        misses.increment();
+        Cached observed = cache.get(authToken);
+        AuthData auth = delegate.getAuth(authToken);
+        long now = clock.getAsLong();
+        Cached loaded = new Cached(auth, now + (auth != null ? ttlNanos : negativeTtlNanos));
+        // Only install the result if nothing changed the token while it was loading, so a concurrent
+        // delete is never overwritten by the session it deleted
+        boolean installed = observed == null ? cache.putIfAbsent(authToken, loaded) == null
+                : cache.replace(authToken, observed, loaded);
+        if (installed) {
+            trim();
+        }
+        return auth;
+    }
+
+    /**
+     * Ends a session, and forgets it in the cache at once.
+     */
+    @Override
+    public void deleteAuth(String authToken) throws DataAccessException {
+        delegate.deleteAuth(authToken);
+        store(authToken, new Cached(null, clock.getAsLong() + negativeTtlNanos));
+    }
+
+    @Override
+    public void clear() throws DataAccessException {
+        delegate.clear();
+        cache.clear();
+    }
+
+    /**
+     * Looks a token up in the cache only.
+     *
+     * @return The unexpired entry, whose session is null for an unknown token, or null if the DAO
+     *         must be asked
+     */
+    Cached peek(String authToken) {
+        Cached cached = cache.get(authToken);
+        if (cached == null || clock.getAsLong() - cached.expiresAt() >= 0) {
+            return null;
+        }
+        if (cached.auth() != null) {
+            hits.increment();
+        } else {
+            negativeHits.increment();
+        }
+        return cached;
+    }
+
+    public Stats getStats() {
+        return new Stats(cache.size(), hits.sum(), negativeHits.sum(), misses.sum(), evictions.sum());
+    }
+
+    private void store(String authToken, Cached cached) {
+        cache.put(authToken, cached);
+        trim();
+    }
+
+    /**
+     * Helper method to drop entries once the cache is over its maximum size. It is trimmed to 90% of
+     * the maximum so that the scan is not repeated on every insert while the cache is full.
+     */
+    private void trim() {
+        if (cache.size() <= settings.maxSize()) {
+            return;
+        }
+        int target = settings.maxSize() - settings.maxSize() / 10;
+        long now = clock.getAsLong();
+        cache.values().removeIf(cached -> now - cached.expiresAt() >= 0);
+        Iterator<Cached> entries = cache.values().iterator();
+        while (cache.size() > target && entries.hasNext()) {
+            entries.next();
+            entries.remove();
+            evictions.increment();
+        }
+    }
+}
@@ -0,0 +1,381 @@
+package dataaccess;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * A bounded pool of database connections.
+ * <p>
+ * {@link #getConnection()} hands out a wrapper whose {@code close()} returns the connection to the
+ * pool instead of closing it. A connection that has sat idle longer than the validation interval is
+ * checked with {@link Connection#isValid} before it is handed out, and one older than the maximum
+ * lifetime is closed instead of reused. Callers wait at most the acquire timeout for a connection.
+ * A connection held longer than the leak threshold is reported, with the stack trace of the code that
+ * borrowed it.
+ * <p>
+ * Each pooled connection also keeps its prepared statements open in a {@link StatementCache}, so a
+ * hot query is prepared once per connection rather than once per call.
+ */
+public class ConnectionPool implements AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(ConnectionPool.class);
+
+    private final ConnectionFactory factory;
+    private final Settings settings;
+    private final LongSupplier clock;
+    private final Semaphore permits;
+    private final Deque<PooledConnection> idle = new ArrayDeque<>();
+    private final Set<PooledConnection> leased = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService leakDetector;
+
+    private final LongAdder created = new LongAdder();
+    private final LongAdder retired = new LongAdder();
+    private final LongAdder acquired = new LongAdder();
+    private final LongAdder acquireNanos = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder leaks = new LongAdder();
+    private final ConcurrentHashMap<String, StatementCache.Counts> statementCounts = new ConcurrentHashMap<>();
+    private volatile boolean closed;
+
+    /**
+     * Opens a new physical connection.
+     */
+    @FunctionalInterface
+    public interface ConnectionFactory {
+        Connection connect() throws SQLException;
+    }
+
+    /**
+     * Pool limits, with times in milliseconds.
+     *
+     * @param maxSize            The most connections open at once.
+     * @param acquireTimeout     How long {@link #getConnection()} waits for a free connection.
+     * @param validationInterval How long a connection can sit idle before it is validated on borrow.
+     * @param maxLifetime        How long a connection is kept before it is replaced.
+     * @param leakThreshold      How long a connection can be held before it is reported as leaked, or 0 for never.
+     * @param statementCacheSize The most prepared statements kept open per connection, or 0 for none.
+     */
+    public record Settings(int maxSize, long acquireTimeout, long validationInterval, long maxLifetime,
+                           long leakThreshold, int statementCacheSize) {
+        public Settings {
+            if (maxSize < 1) {
+                throw new IllegalArgumentException("maxSize must be positive");
+            }
+        }
+    }
+
+    /**
+     * A point-in-time view of the pool.
+     *
+     * @param active           Connections handed out now.
+     * @param idle             Connections open and waiting in the pool.
+     * @param waiting          Callers waiting for a connection, approximately.
+     * @param created          Physical connections opened.
+     * @param retired          Physical connections closed for age, failed validation or shutdown.
+     * @param timeouts         Acquires that gave up waiting.
+     * @param leaks            Connections reported as leaked.
+     * @param meanAcquireNanos The mean time to get a connection.
+     */
+    public record Stats(int active, int idle, int waiting, long created, long retired, long timeouts, long leaks,
+                        long meanAcquireNanos) {
+    }
+
+    public ConnectionPool(ConnectionFactory factory, Settings settings) {
+        this(factory, settings, System::currentTimeMillis);
+    }
+
+    /**
+     * @param factory  Opens physical connections.
+     * @param settings The pool limits.
+     * @param clock    The time source, in milliseconds.
+     */
+    public ConnectionPool(ConnectionFactory factory, Settings settings, LongSupplier clock) {
+        this.factory = factory;
+        this.settings = settings;
+        this.clock = clock;
+        this.permits = new Semaphore(settings.maxSize(), true);
+        if (settings.leakThreshold() > 0) {
+            leakDetector = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "connection-leak-detector");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long period = Math.max(1, settings.leakThreshold() / 2);
+            leakDetector.scheduleAtFixedRate(this::detectLeaks, period, period, TimeUnit.MILLISECONDS);
+        } else {
+            leakDetector = null;
+        }
+    }
+
+    /**
+     * Borrows a connection. Close it to return it to the pool, ideally in a try-with-resources block.
+     *
+     * @throws DataAccessException if no connection frees up within the acquire timeout or one cannot be opened
+     */
+    public Connection getConnection() throws DataAccessException {
+        if (closed) {
+            throw new DataAccessException("Connection pool is closed");
+        }
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(settings.acquireTimeout(), TimeUnit.MILLISECONDS)) {
+                timeouts.increment();
+                throw new DataAccessException("Timed out after " + settings.acquireTimeout()
+                        + "ms waiting for a database connection");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DataAccessException("Interrupted while waiting for a database connection");
+        }
+
+        try {
+            PooledConnection connection = borrowIdle();
+            if (connection == null) {
+                connection = new PooledConnection(factory.connect(), clock.getAsLong());
+                created.increment();
+            }
+            connection.lease(clock.getAsLong());
+            leased.add(connection);
+            acquired.increment();
+            acquireNanos.add(System.nanoTime() - start);
+            return connection.proxy;
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw new DataAccessException("Unable to open a database connection: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Uses of a prepared statement's SQL text across all connections.
+     *
+     * @param hits   Prepares served from a connection's cache.
+     * @param misses Prepares that went to the database.
+     */
+    public record StatementStats(long hits, long misses) {
+    }
+
+    public Stats getStats() {
+        int idleCount;
+        synchronized (idle) {
+            idleCount = idle.size();
+        }
+        long count = acquired.sum();
+        return new Stats(leased.size(), idleCount, permits.getQueueLength(), created.sum(), retired.sum(),
+                timeouts.sum(), leaks.sum(), count == 0 ? 0 : acquireNanos.sum() / count);
+    }
+
+    /**
+     * @return Hit and miss counts for each SQL text prepared so far, by SQL text
+     */
+    public Map<String, StatementStats> getStatementStats() {
+        Map<String, StatementStats> stats = new TreeMap<>();
+        statementCounts.forEach((sql, counts) -> stats.put(sql, new StatementStats(counts.hits.sum(), counts.misses.sum())));
+        return stats;
+    }
+
+    /**
+     * Closes the idle connections and stops handing out new ones. Leased connections are closed when returned.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        if (leakDetector != null) {
+            leakDetector.shutdownNow();
+        }
+        synchronized (idle) {
+            while (!idle.isEmpty()) {
+                retire(idle.poll());
+            }
+        }
+    }
+
+    /**
+     * Reports connections held longer than the leak threshold. Each leak is reported once.
+     */
+    void detectLeaks() {
+        long now = clock.getAsLong();
+        for (PooledConnection connection : leased) {
+            if (!connection.reportedLeak && now - connection.leasedAt > settings.leakThreshold()) {
+                connection.reportedLeak = true;
+                leaks.increment();
+                LOG.warn("Database connection held for {}ms without being closed; it was borrowed here:",
+                        now - connection.leasedAt, connection.borrower);
+            }
+        }
+    }
+
+    /**
+     * Helper method to take a usable idle connection, retiring any that are too old or fail validation.
+     *
+     * @return The connection, or null if a new one must be opened
+     */
+    private PooledConnection borrowIdle() {
+        while (true) {
+            PooledConnection connection;
+            synchronized (idle) {
+                // Most recently used first, so the rest can age out when load drops
+                connection = idle.pollFirst();
+            }
+            if (connection == null) {
+                return null;
+            }
+            long now = clock.getAsLong();
+            if (now - connection.createdAt >= settings.maxLifetime()) {
+                retire(connection);
+            } else if (now - connection.returnedAt >= settings.validationInterval() && !isValid(connection)) {
+                retire(connection);
+            } else {
+                return connection;
+            }
+        }
+    }
+
+    private boolean isValid(PooledConnection connection) {
+        try {
+            return connection.physical.isValid((int) Math.max(1, settings.acquireTimeout() / 1000));
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Helper method to take back a connection its borrower closed.
+     */
+    private void release(PooledConnection connection) {
+        leased.remove(connection);
+        try {
+            boolean reusable = !closed && clock.getAsLong() - connection.createdAt < settings.maxLifetime()
+                    && connection.reset();
+            if (reusable) {
+                connection.returnedAt = clock.getAsLong();
+                synchronized (idle) {
+                    idle.addFirst(connection);
+                }
+            } else {
+                retire(connection);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void retire(PooledConnection connection) {
+        retired.increment();
+        try {
+            connection.physical.close();
+        } catch (SQLException e) {
+            // Already unusable; nothing more to do
+        }
+    }
+
+    /**
+     * A physical connection and the proxy handed to borrowers.
+     */
+    private final class PooledConnection implements InvocationHandler {
+        private final Connection physical;
+        private final Connection proxy;
+        private final StatementCache statements;
+        private final long createdAt;
+        private long returnedAt;
+        private volatile long leasedAt;
+        private volatile boolean returned;
+        private volatile boolean reportedLeak;
+        private volatile Throwable borrower;
+
+        PooledConnection(Connection physical, long now) {
+            this.physical = physical;
+            this.createdAt = now;
+            this.returnedAt = now;
+            this.proxy = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, this);
+            this.statements = settings.statementCacheSize() > 0
+                    ? new StatementCache(physical, proxy, settings.statementCacheSize(), statementCounts)
+                    : null;
+        }
+
+        void lease(long now) {
+            leasedAt = now;
+            returned = false;
+            reportedLeak = false;
+            borrower = settings.leakThreshold() > 0 ? new Throwable("Connection borrowed") : null;
+        }
+
+        /**
+         * Undoes anything the borrower left changed.
+         *
+         * @return false if the connection is no longer usable
+         */
+        boolean reset() {
+            try {
+                if (physical.isClosed()) {
+                    return false;
+                }
+                if (!physical.getAutoCommit()) {
+                    physical.rollback();
+                    physical.setAutoCommit(true);
+                }
+                physical.clearWarnings();
+                return true;
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close" -> {
+                    if (!returned) {
+                        returned = true;
+                        release(this);
+                    }
+                    return null;
+                }
+                case "isClosed" -> {
+                    return returned || physical.isClosed();
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "toString" -> {
+                    return "Pooled " + physical;
+                }
+                default -> {
+                    if (returned) {
+                        throw new SQLException("Connection has been returned to the pool");
+                    }
+                    if (statements != null && method.getName().equals("prepareStatement")
+                            && (args.length == 1 || (args.length == 2 && method.getParameterTypes()[1] == int.class))) {
+                        return statements.prepare(method, args);
+                    }
+                    try {
+                        return method.invoke(physical, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                }
+            }
+        }
+    }
+}
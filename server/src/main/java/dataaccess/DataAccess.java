@@ -0,0 +1,117 @@
+package dataaccess;
+
+import java.nio.file.Path;
+
+/**
+ * The user, auth and game DAOs of one storage engine.
+ * <p>
+ * {@link #open()} picks the engine from {@code db.engine} in db.properties: {@code mysql} for the
+ * MySQL database, {@code file} for an embedded {@link LogStore} at {@code db.file.path}, which needs
+ * no database server, or {@code memory} for nothing persisted at all. Token lookups go through a
+ * {@link CachingAuthDAO} configured by the {@code db.authCache} settings.
+ */
+public final class DataAccess implements AutoCloseable {
+    private final UserDAO userDAO;
+    private final AuthDAO authDAO;
+    private final GameDAO gameDAO;
+    private final LogStore store;
+    private final int parallelism;
+    private final boolean pooled;
+
+    DataAccess(UserDAO userDAO, AuthDAO authDAO, GameDAO gameDAO, LogStore store, int parallelism) {
+        this(userDAO, authDAO, gameDAO, store, parallelism, false);
+    }
+
+    private DataAccess(UserDAO userDAO, AuthDAO authDAO, GameDAO gameDAO, LogStore store, int parallelism,
+                       boolean pooled) {
+        this.userDAO = userDAO;
+        this.authDAO = authDAO;
+        this.gameDAO = gameDAO;
+        this.store = store;
+        this.parallelism = parallelism;
+        this.pooled = pooled;
+    }
+
+    /**
+     * Opens the engine configured in db.properties.
+     *
+     * @throws DataAccessException if the engine is unknown or cannot be opened
+     */
+    public static DataAccess open() throws DataAccessException {
+        DataAccess engine = switch (DatabaseManager.getEngine()) {
+            case "mysql" -> new DataAccess(new MySqlUserDAO(), new MySqlAuthDAO(), new MySqlGameDAO(), null,
+                    DatabaseManager.getPoolSize(), true);
+            case "file" -> file(DatabaseManager.getFilePath(), DatabaseManager.getFileFsync());
+            case "memory" -> memory();
+            default -> throw new DataAccessException("Unknown db.engine: " + DatabaseManager.getEngine());
+        };
+        return engine.withAuthCache(DatabaseManager.getAuthCacheSettings());
+    }
+
+    /**
+     * Opens the embedded engine on a log file, creating it if it does not exist.
+     *
+     * @param file  The log file.
+     * @param fsync Whether each write waits until it is on disk.
+     */
+    public static DataAccess file(Path file, boolean fsync) throws DataAccessException {
+        LogStore store = new LogStore(file, fsync);
+        return new DataAccess(new FileUserDAO(store), new FileAuthDAO(store), new FileGameDAO(store), store,
+                Runtime.getRuntime().availableProcessors());
+    }
+
+    public static DataAccess memory() {
+        return new DataAccess(new MemoryUserDAO(), new MemoryAuthDAO(), new MemoryGameDAO(), null,
+                Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @return The same DAOs, with token lookups answered from a cache where possible
+     */
+    public DataAccess withAuthCache(CachingAuthDAO.Settings settings) {
+        return new DataAccess(userDAO, new CachingAuthDAO(authDAO, settings), gameDAO, store, parallelism,
+                pooled);
+    }
+
+    /**
+     * @return The same DAOs, with the positions of every game written added to the position index
+     *         and every finished game counted in the opening tree
+     */
+    public DataAccess withIndexes(PositionIndex positions, OpeningTree openings) {
+        return new DataAccess(userDAO, authDAO, new IndexingGameDAO(gameDAO, positions, openings), store,
+                parallelism, pooled);
+    }
+
+    public UserDAO getUserDAO() {
+        return userDAO;
+    }
+
+    public AuthDAO getAuthDAO() {
+        return authDAO;
+    }
+
+    public GameDAO getGameDAO() {
+        return gameDAO;
+    }
+
+    /**
+     * @return How many calls the engine can usefully run at once; for MySQL, the connection pool size
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Closes the embedded engine's log, or the MySQL engine's connection pool. The memory engine has
+     * nothing to close.
+     */
+    @Override
+    public void close() throws DataAccessException {
+        if (store != null) {
+            store.close();
+        }
+        if (pooled) {
+            DatabaseManager.closePool();
+        }
+    }
+}
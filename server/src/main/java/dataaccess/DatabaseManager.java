@@ -0,0 +1,168 @@
+package dataaccess;
+
+import java.nio.file.Path;
+import java.sql.*;
+import java.util.Map;
+import java.util.Properties;
+
+public class DatabaseManager {
+    private static final String DATABASE_NAME;
+    private static final String USER;
+    private static final String PASSWORD;
+    private static final String CONNECTION_URL;
+    private static final ConnectionPool.Settings POOL_SETTINGS;
+    private static final String ENGINE;
+    private static final Path FILE_PATH;
+    private static final boolean FILE_FSYNC;
+    private static final CachingAuthDAO.Settings AUTH_CACHE;
+    // Opened on the first MySQL connection, so the file and memory engines never start its leak detector
+    private static ConnectionPool pool;
+
+    /*
+     * Load the database information for the db.properties file.
+     */
+    static {
+        try {
+            try (var propStream = Thread.currentThread().getContextClassLoader().getResourceAsStream("db.properties")) {
+                if (propStream == null) {
+                    throw new Exception("Unable to load db.properties");
+                }
+                Properties props = new Properties();
+                props.load(propStream);
+                // A db.* system property overrides the file, for running against another engine
+                for (String name : System.getProperties().stringPropertyNames()) {
+                    if (name.startsWith("db.")) {
+                        props.setProperty(name, System.getProperty(name));
+                    }
+                }
+                DATABASE_NAME = props.getProperty("db.name");
+                USER = props.getProperty("db.user");
+                PASSWORD = props.getProperty("db.password");
+
+                var host = props.getProperty("db.host");
+                var port = Integer.parseInt(props.getProperty("db.port"));
+                CONNECTION_URL = String.format("jdbc:mysql://%s:%d", host, port);
+
+                POOL_SETTINGS = new ConnectionPool.Settings(
+                        Integer.parseInt(props.getProperty("db.pool.maxSize", "10")),
+                        Long.parseLong(props.getProperty("db.pool.acquireTimeoutMillis", "5000")),
+                        Long.parseLong(props.getProperty("db.pool.validationIntervalMillis", "30000")),
+                        Long.parseLong(props.getProperty("db.pool.maxLifetimeMillis", "1800000")),
+                        Long.parseLong(props.getProperty("db.pool.leakThresholdMillis", "60000")),
+                        Integer.parseInt(props.getProperty("db.pool.statementCacheSize", "64")));
+
+                ENGINE = props.getProperty("db.engine", "mysql");
+                FILE_PATH = Path.of(props.getProperty("db.file.path", "data/chess.log"));
+                FILE_FSYNC = Boolean.parseBoolean(props.getProperty("db.file.fsync", "true"));
+                AUTH_CACHE = new CachingAuthDAO.Settings(
+                        Integer.parseInt(props.getProperty("db.authCache.maxSize", "100000")),
+                        Long.parseLong(props.getProperty("db.authCache.ttlMillis", "60000")),
+                        Long.parseLong(props.getProperty("db.authCache.negativeTtlMillis", "5000")));
+            }
+        } catch (Exception ex) {
+            throw new RuntimeException("unable to process db.properties. " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Creates the database if it does not already exist.
+     */
+    static void createDatabase() throws DataAccessException {
+        var statement = "CREATE DATABASE IF NOT EXISTS " + DATABASE_NAME;
+        // Not pooled: pooled connections already point at the database this creates
+        try (var conn = DriverManager.getConnection(CONNECTION_URL, USER, PASSWORD);
+             var preparedStatement = conn.prepareStatement(statement)) {
+            preparedStatement.executeUpdate();
+        } catch (SQLException e) {
+            throw new DataAccessException(e.getMessage());
+        }
+    }
+
+    /**
+     * Borrows a connection to the database from the pool, with the catalog set based upon the
+     * properties specified in db.properties. Connections should be short-lived, and you must close
+     * the connection when you are done with it so it goes back to the pool. The easiest way to do
+     * that is with a try-with-resource block.
+     * <br/>
+     * <code>
+     * try (var conn = DatabaseManager.getConnection()) {
+     * // execute SQL statements.
+     * }
+     * </code>
+     */
+    static Connection getConnection() throws DataAccessException {
+        return pool().getConnection();
+    }
+
+    /**
+     * @return The connection pool's current counts, all zero if no connection has been borrowed yet
+     */
+    public static synchronized ConnectionPool.Stats getPoolStats() {
+        return pool != null ? pool.getStats() : new ConnectionPool.Stats(0, 0, 0, 0, 0, 0, 0, 0);
+    }
+
+    /**
+     * @return The most connections the pool opens at once
+     */
+    static int getPoolSize() {
+        return POOL_SETTINGS.maxSize();
+    }
+
+    /**
+     * @return Prepared statement cache hits and misses, by SQL text
+     */
+    public static synchronized Map<String, ConnectionPool.StatementStats> getStatementStats() {
+        return pool != null ? pool.getStatementStats() : Map.of();
+    }
+
+    /**
+     * Closes the connection pool, if one was opened. The next connection borrowed opens a new pool.
+     */
+    static synchronized void closePool() {
+        if (pool != null) {
+            pool.close();
+            pool = null;
+        }
+    }
+
+    private static synchronized ConnectionPool pool() {
+        if (pool == null) {
+            pool = new ConnectionPool(DatabaseManager::connect, POOL_SETTINGS);
+        }
+        return pool;
+    }
+
+    /**
+     * @return The storage engine named by db.engine: mysql, file or memory
+     */
+    static String getEngine() {
+        return ENGINE;
+    }
+
+    /**
+     * @return The log file the file engine uses
+     */
+    static Path getFilePath() {
+        return FILE_PATH;
+    }
+
+    /**
+     * @return Whether the file engine waits for each write to reach the disk
+     */
+    static boolean getFileFsync() {
+        return FILE_FSYNC;
+    }
+
+    /**
+     * @return The limits of the token cache
+     */
+    static CachingAuthDAO.Settings getAuthCacheSettings() {
+        return AUTH_CACHE;
+    }
+
+    private static Connection connect() throws SQLException {
+        var conn = DriverManager.getConnection(CONNECTION_URL, USER, PASSWORD);
+        conn.setCatalog(DATABASE_NAME);
+        return conn;
+    }
+}
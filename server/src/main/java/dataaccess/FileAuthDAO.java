@@ -0,0 +1,39 @@
+package dataaccess;
+
+import model.AuthData;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Stores login sessions in a {@link LogStore}, keyed by token.
+ */
+public class FileAuthDAO implements AuthDAO {
+    static final int TABLE = 2;
+
+    private final LogStore store;
+
+    FileAuthDAO(LogStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public void createAuth(AuthData auth) throws DataAccessException {
+        store.put(TABLE, auth.authToken(), auth.username().getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public AuthData getAuth(String authToken) throws DataAccessException {
+        byte[] value = store.get(TABLE, authToken);
+        return value != null ? new AuthData(authToken, new String(value, StandardCharsets.UTF_8)) : null;
+    }
+
+    @Override
+    public void deleteAuth(String authToken) throws DataAccessException {
+        store.delete(TABLE, authToken);
+    }
+
+    @Override
+    public void clear() throws DataAccessException {
+        store.clear(TABLE);
+    }
+}
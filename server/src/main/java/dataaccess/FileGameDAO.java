@@ -0,0 +1,206 @@
+package dataaccess;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.Fen;
+import chess.InvalidMoveException;
+import chess.MoveCodec;
+import model.GameData;
+import model.GameSummary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Stores games in a {@link LogStore}, keyed by ID. A game is stored as its players, name, start
+ * position and packed moves, and is rebuilt by replaying the moves. Game summaries for listing are
+ * kept in memory, built when the store is opened. A stored game whose moves do not replay is listed
+ * from its players and name alone, as not finished, rather than stopping the store from opening.
+ */
+public class FileGameDAO implements GameDAO {
+    private static final Logger LOG = LoggerFactory.getLogger(FileGameDAO.class);
+    static final int TABLE = 3;
+
+    private final LogStore store;
+    private final AtomicInteger nextID;
+    private final GameSummaryIndex summaries = new GameSummaryIndex();
+    // Keeps a game's stored state and its summary in step when it is updated from several threads
+    private final Object[] updateLocks = new Object[64];
+
+    FileGameDAO(LogStore store) throws DataAccessException {
+        this.store = store;
+        int maxID = 0;
+        for (String key : store.keys(TABLE)) {
+            maxID = Math.max(maxID, Integer.parseInt(key));
+        }
+        this.nextID = new AtomicInteger(maxID + 1);
+        for (int i = 0; i < updateLocks.length; i++) {
+            updateLocks[i] = new Object();
+        }
+        forEachGame(game -> summaries.put(GameSummary.of(game)), (gameID, e) -> {
+            LOG.warn("Listing game {} without its moves: {}", gameID, e.getMessage());
+            GameSummary summary = readSummary(gameID);
+            if (summary != null) {
+                summaries.put(summary);
+            }
+        });
+    }
+
+    @Override
+    public int createGame(String gameName) throws DataAccessException {
+        int gameID = nextID.getAndIncrement();
+        GameData game = new GameData(gameID, null, null, gameName, new ChessGame());
+        store.insert(TABLE, Integer.toString(gameID), encode(game));
+        summaries.put(GameSummary.of(game));
+        return gameID;
+    }
+
+    @Override
+    public GameData getGame(int gameID) throws DataAccessException {
+        byte[] value = store.get(TABLE, Integer.toString(gameID));
+        return value != null ? decode(gameID, value) : null;
+    }
+
+    @Override
+    public Collection<GameData> listGames() throws DataAccessException {
+        List<GameData> games = new ArrayList<>();
+        forEachGame(games::add);
+        return games;
+    }
+
+    @Override
+    public List<GameSummary> listGames(GameQuery query) {
+        return summaries.find(query);
+    }
+
+    @Override
+    public void updateGame(GameData game) throws DataAccessException {
+        GameSummary summary = GameSummary.of(game);
+        synchronized (updateLocks[Math.floorMod(game.gameID(), updateLocks.length)]) {
+            if (!store.replace(TABLE, Integer.toString(game.gameID()), encode(game))) {
+                throw new DataAccessException("No game with ID " + game.gameID());
+            }
+            summaries.put(summary);
+        }
+    }
+
+    /**
+     * Passes every game that decodes to an action.
+     *
+     * @throws DataAccessException after the iteration, if any stored game is corrupt
+     */
+    @Override
+    public void forEachGame(Consumer<GameData> action) throws DataAccessException {
+        List<Integer> failed = new ArrayList<>();
+        List<DataAccessException> errors = new ArrayList<>();
+        forEachGame(action, (gameID, e) -> {
+            failed.add(gameID);
+            errors.add(e);
+        });
+        if (!failed.isEmpty()) {
+            throw new DataAccessException("Unable to load games " + failed + ": " + errors.get(0).getMessage());
+        }
+    }
+
+    @Override
+    public void forEachGame(Consumer<GameData> action, BiConsumer<Integer, DataAccessException> failed)
+            throws DataAccessException {
+        int[] ids = store.keys(TABLE).stream().mapToInt(Integer::parseInt).sorted().toArray();
+        for (int gameID : ids) {
+            GameData game;
+            try {
+                game = getGame(gameID);
+            } catch (DataAccessException e) {
+                failed.accept(gameID, e);
+                continue;
+            }
+            // Skips games deleted since the keys were listed
+            if (game != null) {
+                action.accept(game);
+            }
+        }
+    }
+
+    @Override
+    public void clear() throws DataAccessException {
+        store.clear(TABLE);
+        summaries.clear();
+        nextID.set(1);
+    }
+
+    private static byte[] encode(GameData game) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writeNullable(out, game.whiteUsername());
+            writeNullable(out, game.blackUsername());
+            out.writeUTF(game.gameName());
+            out.writeUTF(game.game().getStartPosition());
+            List<ChessMove> moves = game.game().getMoveHistory();
+            out.writeInt(moves.size());
+            for (ChessMove move : moves) {
+                out.writeShort(MoveCodec.encode(move));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static GameData decode(int gameID, byte[] value) throws DataAccessException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(value))) {
+            String white = readNullable(in);
+            String black = readNullable(in);
+            String name = in.readUTF();
+            ChessGame game = Fen.parse(in.readUTF());
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                game.makeMove(MoveCodec.decode(in.readShort()));
+            }
+            return new GameData(gameID, white, black, name, game);
+        } catch (IOException | InvalidMoveException | IllegalArgumentException e) {
+            throw new DataAccessException("Stored game " + gameID + " is corrupt: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Helper method to build a game's summary from the players and name at the start of its record,
+     * without replaying its moves.
+     *
+     * @return The summary, or null if even those cannot be read
+     */
+    private GameSummary readSummary(int gameID) {
+        try {
+            byte[] value = store.get(TABLE, Integer.toString(gameID));
+            if (value == null) {
+                return null;
+            }
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(value));
+            return new GameSummary(gameID, readNullable(in), readNullable(in), in.readUTF(), false);
+        } catch (IOException | DataAccessException e) {
+            return null;
+        }
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
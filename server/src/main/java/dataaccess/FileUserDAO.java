@@ -0,0 +1,59 @@
+package dataaccess;
+
+import model.UserData;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Stores users in a {@link LogStore}, keyed by username.
+ */
+public class FileUserDAO implements UserDAO {
+    static final int TABLE = 1;
+
+    private final LogStore store;
+
+    FileUserDAO(LogStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public void createUser(UserData user) throws DataAccessException {
+        if (!store.insert(TABLE, user.username(), encode(user))) {
+            throw new DataAccessException("User " + user.username() + " already exists");
+        }
+    }
+
+    @Override
+    public UserData getUser(String username) throws DataAccessException {
+        byte[] value = store.get(TABLE, username);
+        if (value == null) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(value))) {
+            return new UserData(username, in.readUTF(), in.readUTF());
+        } catch (IOException e) {
+            throw new DataAccessException("Stored user " + username + " is corrupt");
+        }
+    }
+
+    @Override
+    public void clear() throws DataAccessException {
+        store.clear(TABLE);
+    }
+
+    private static byte[] encode(UserData user) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeUTF(user.password());
+            out.writeUTF(user.email());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+}
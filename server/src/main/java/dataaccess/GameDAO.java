@@ -0,0 +1,91 @@
+package dataaccess;
+
+import model.GameData;
+import model.GameSummary;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Stores games.
+ */
+public interface GameDAO {
+    /**
+     * Creates a new game with no players in the standard starting position.
+     *
+     * @param gameName The game's name.
+     * @return The new game's ID.
+     */
+    int createGame(String gameName) throws DataAccessException;
+
+    /**
+     * @return The game, or null if there is no game with that ID
+     */
+    GameData getGame(int gameID) throws DataAccessException;
+
+    Collection<GameData> listGames() throws DataAccessException;
+
+    /**
+     * Lists one page of games without loading their boards.
+     *
+     * @return Up to {@code query.limit()} summaries of the games that match the query's filters and
+     *         have IDs after {@code query.after()}, in ID order
+     */
+    List<GameSummary> listGames(GameQuery query) throws DataAccessException;
+
+    /**
+     * Replaces a stored game with the same ID.
+     *
+     * @throws DataAccessException if there is no game with that ID
+     */
+    void updateGame(GameData game) throws DataAccessException;
+
+    /**
+     * Replaces several stored games. Implementations that can write them together, such as in one
+     * transaction, should override this.
+     *
+     * @throws DataAccessException if one of the games does not exist
+     */
+    default void updateGames(Collection<GameData> games) throws DataAccessException {
+        for (GameData game : games) {
+            updateGame(game);
+        }
+    }
+
+    /**
+     * Passes every stored game to an action one at a time, without loading them all first.
+     *
+     * @param action Called once for each game, in ID order, on the calling thread.
+     */
+    void forEachGame(Consumer<GameData> action) throws DataAccessException;
+
+    /**
+     * Passes every stored game to an action, and the ID of each game that cannot be loaded to
+     * {@code failed}, so one corrupt game does not end the iteration. Stores whose games cannot fail
+     * to load need not override this.
+     *
+     * @param action Called once for each game that loads, in ID order, on the calling thread.
+     * @param failed Called once for each game that does not load, with the reason.
+     */
+    default void forEachGame(Consumer<GameData> action, BiConsumer<Integer, DataAccessException> failed)
+            throws DataAccessException {
+        forEachGame(action);
+    }
+
+    /**
+     * Passes the whole move log of every stored game to an action, for checks that replay a game
+     * from its start position. Stores that load a game from anything other than its full move
+     * history, such as a snapshot, should override this.
+     *
+     * @param action Called once for each game that loads, in ID order, on the calling thread.
+     * @param failed Called once for each game that does not load, with the reason.
+     */
+    default void forEachGameLog(Consumer<GameLog> action, BiConsumer<Integer, DataAccessException> failed)
+            throws DataAccessException {
+        forEachGame(game -> action.accept(GameLog.of(game)), failed);
+    }
+
+    void clear() throws DataAccessException;
+}
@@ -0,0 +1,35 @@
+package dataaccess;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.MoveCodec;
+import model.GameData;
+
+import java.util.List;
+
+/**
+ * A stored game as its whole move log, with the moves left as codes and not checked.
+ *
+ * @param gameID   The game's ID.
+ * @param startFen The position the log starts from, or null if the game has no state.
+ * @param moves    The {@link MoveCodec} code of every move in the log, in order.
+ * @param stored   The game as the store loads it, such as from a snapshot and the moves after it.
+ */
+public record GameLog(int gameID, String startFen, short[] moves, ChessGame stored) {
+
+    /**
+     * Builds the log of a loaded game from its own start position and move history.
+     */
+    public static GameLog of(GameData game) {
+        ChessGame chess = game.game();
+        if (chess == null) {
+            return new GameLog(game.gameID(), null, new short[0], null);
+        }
+        List<ChessMove> history = chess.getMoveHistory();
+        short[] codes = new short[history.size()];
+        for (int i = 0; i < codes.length; i++) {
+            codes[i] = (short) MoveCodec.encode(history.get(i));
+        }
+        return new GameLog(game.gameID(), chess.getStartPosition(), codes, chess);
+    }
+}
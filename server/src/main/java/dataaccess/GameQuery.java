@@ -0,0 +1,30 @@
+package dataaccess;
+
+import model.GameSummary;
+
+/**
+ * One page of a game listing. Games are listed in ID order, and the next page starts after the last
+ * ID of this one.
+ *
+ * @param after    List only games with a greater ID; 0 for the first page.
+ * @param limit    The most games to list.
+ * @param openSeat Whether to list only games with an open seat.
+ * @param player   List only games this user plays in, or null for any.
+ * @param finished List only finished games if true, only unfinished ones if false, or either if null.
+ */
+public record GameQuery(int after, int limit, boolean openSeat, String player, Boolean finished) {
+    public GameQuery {
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit must be positive");
+        }
+    }
+
+    /**
+     * @return True if the game passes every filter, ignoring the page bounds
+     */
+    public boolean matches(GameSummary game) {
+        return (!openSeat || game.hasOpenSeat())
+                && (player == null || game.hasPlayer(player))
+                && (finished == null || game.finished() == finished);
+    }
+}
@@ -0,0 +1,101 @@
+package dataaccess;
+
+import model.GameSummary;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * The summaries of stored games, with the IDs of games that have an open seat and of each player's
+ * games kept in sorted sets, so a page of the lobby reads only the games that can be on it.
+ * <p>
+ * A query walks the smallest set that covers it: the player's games, else the open games, else all
+ * games, starting after the cursor, and stops once the page is full. The finished filter is checked
+ * on each game walked rather than indexed. Writes are serialized; reads take no lock and check every
+ * filter against the summary they read, so a game changed while it is walked is never listed wrongly.
+ */
+class GameSummaryIndex {
+    private final ConcurrentSkipListMap<Integer, GameSummary> games = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListSet<Integer> open = new ConcurrentSkipListSet<>();
+    private final ConcurrentHashMap<String, ConcurrentSkipListSet<Integer>> byPlayer = new ConcurrentHashMap<>();
+
+    /**
+     * Adds a game or replaces its summary. Sets the game stays in are not touched, so a reader never
+     * misses a game whose filters still match.
+     */
+    synchronized void put(GameSummary game) {
+        int gameID = game.gameID();
+        GameSummary old = games.put(gameID, game);
+        if (game.hasOpenSeat()) {
+            open.add(gameID);
+        } else {
+            open.remove(gameID);
+        }
+        if (old != null) {
+            for (String player : players(old)) {
+                if (!game.hasPlayer(player)) {
+                    removePlayer(player, gameID);
+                }
+            }
+        }
+        for (String player : players(game)) {
+            byPlayer.computeIfAbsent(player, k -> new ConcurrentSkipListSet<>()).add(gameID);
+        }
+    }
+
+    synchronized void clear() {
+        games.clear();
+        open.clear();
+        byPlayer.clear();
+    }
+
+    List<GameSummary> find(GameQuery query) {
+        NavigableSet<Integer> ids;
+        if (query.player() != null) {
+            ids = byPlayer.get(query.player());
+            if (ids == null) {
+                return List.of();
+            }
+        } else if (query.openSeat()) {
+            ids = open;
+        } else {
+            ids = games.keySet();
+        }
+        List<GameSummary> page = new ArrayList<>();
+        for (int gameID : ids.tailSet(query.after(), false)) {
+            GameSummary game = games.get(gameID);
+            if (game != null && query.matches(game)) {
+                page.add(game);
+                if (page.size() == query.limit()) {
+                    break;
+                }
+            }
+        }
+        return page;
+    }
+
+    private void removePlayer(String player, int gameID) {
+        ConcurrentSkipListSet<Integer> ids = byPlayer.get(player);
+        if (ids != null) {
+            ids.remove(gameID);
+            if (ids.isEmpty()) {
+                byPlayer.remove(player);
+            }
+        }
+    }
+
+    private static List<String> players(GameSummary game) {
+        List<String> players = new ArrayList<>(2);
+        if (game.whiteUsername() != null) {
+            players.add(game.whiteUsername());
+        }
+        if (game.blackUsername() != null) {
+            players.add(game.blackUsername());
+        }
+        return players;
+    }
+}
@@ -0,0 +1,127 @@
+package dataaccess;
+
+import chess.ChessGame;
+import model.GameData;
+import model.GameSummary;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Adds the positions of every game written through it to a {@link PositionIndex}, and the result of
+ * every game that finishes to an {@link OpeningTree}.
+ * <p>
+ * Each write indexes only the plies played since the last write of that game, and a game is counted
+ * in the opening tree by the write that adds its last move. The ply count a game was last written
+ * with is kept in memory; the first write of a game this DAO has not seen asks the index for the last
+ * ply it recorded, so plies whose pending postings were lost in a crash are indexed again, and a game
+ * the index has never seen is indexed from its start. Plies taken back leave their postings in the
+ * index, and the same (game, ply) added twice is dropped by {@link PositionIndex#find(long)}.
+ */
+public class IndexingGameDAO implements GameDAO {
+    private final GameDAO delegate;
+    private final PositionIndex positions;
+    private final OpeningTree openings;
+    private final ConcurrentHashMap<Integer, Integer> indexedPlies = new ConcurrentHashMap<>();
+
+    public IndexingGameDAO(GameDAO delegate, PositionIndex positions, OpeningTree openings) {
+        this.delegate = delegate;
+        this.positions = positions;
+        this.openings = openings;
+    }
+
+    @Override
+    public int createGame(String gameName) throws DataAccessException {
+        int gameID = delegate.createGame(gameName);
+        GameData game = delegate.getGame(gameID);
+        positions.addGame(gameID, game.game());
+        indexedPlies.put(gameID, game.game().getMoveHistory().size());
+        return gameID;
+    }
+
+    @Override
+    public GameData getGame(int gameID) throws DataAccessException {
+        return delegate.getGame(gameID);
+    }
+
+    @Override
+    public Collection<GameData> listGames() throws DataAccessException {
+        return delegate.listGames();
+    }
+
+    @Override
+    public List<GameSummary> listGames(GameQuery query) throws DataAccessException {
+        return delegate.listGames(query);
+    }
+
+    @Override
+    public void updateGame(GameData game) throws DataAccessException {
+        delegate.updateGame(game);
+        index(game);
+    }
+
+    @Override
+    public void updateGames(Collection<GameData> games) throws DataAccessException {
+        delegate.updateGames(games);
+        for (GameData game : games) {
+            index(game);
+        }
+    }
+
+    @Override
+    public void forEachGame(Consumer<GameData> action) throws DataAccessException {
+        delegate.forEachGame(action);
+    }
+
+    @Override
+    public void forEachGame(Consumer<GameData> action, BiConsumer<Integer, DataAccessException> failed)
+            throws DataAccessException {
+        delegate.forEachGame(action, failed);
+    }
+
+    @Override
+    public void forEachGameLog(Consumer<GameLog> action, BiConsumer<Integer, DataAccessException> failed)
+            throws DataAccessException {
+        delegate.forEachGameLog(action, failed);
+    }
+
+    @Override
+    public void clear() throws DataAccessException {
+        delegate.clear();
+        indexedPlies.clear();
+    }
+
+    /**
+     * Helper method to index the plies of a written game after the ones already indexed, and count
+     * the game in the opening tree if those plies finished it.
+     * <p>
+     * The game's ply count is swapped in for the last indexed ply in one step, so when the same game is
+     * written from several threads each new ply is claimed, and a finished game counted, by only one.
+     */
+    private void index(GameData game) throws DataAccessException {
+        ChessGame chess = game.game();
+        int plies = chess.getMoveHistory().size();
+        int[] last = new int[1];
+        indexedPlies.compute(game.gameID(), (gameID, indexed) -> {
+            // The first time, ask the index, which knows what reached its segments before a restart
+            last[0] = indexed != null ? indexed : positions.lastIndexedPly(gameID);
+            return plies;
+        });
+        int before = last[0];
+        if (plies <= before) {
+            return;
+        }
+        positions.addGame(game.gameID(), chess, before + 1);
+        if (GameSummary.isFinished(chess)) {
+            ChessGame.TeamColor toMove = chess.getTeamTurn();
+            openings.recordGame(chess, chess.isInCheckmate(toMove) ? opponent(toMove) : null);
+        }
+    }
+
+    private static ChessGame.TeamColor opponent(ChessGame.TeamColor team) {
+        return team == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+    }
+}
@@ -0,0 +1,415 @@
+package dataaccess;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+/**
+ * A key-value store kept in one append-only file, so the server can run without a database server.
+ * <p>
+ * Every change is appended to the log as a record, and an in-memory hash index maps each live key
+ * to its latest record, so a read is one positional read of the file. Keys are grouped into small
+ * numbered tables. When the log holds more dead records than live ones, and at least the compaction
+ * minimum, the live records are copied to a new file that then replaces the log.
+ * <p>
+ * With fsync on, a write returns once the log has been forced to disk up to it. Only one fsync runs
+ * at a time, and writers that arrive while one is running share the next, so under load many writes
+ * are made durable by each fsync. On open the log is scanned to rebuild the index, and a record cut
+ * short by a crash fails its checksum and is truncated away.
+ * <p>
+ * Record layout: body length (int), CRC-32 of the body (int), then the body: operation (byte),
+ * table (byte), key length (short), key (UTF-8) and value.
+ */
+final class LogStore implements AutoCloseable {
+    private static final byte PUT = 1;
+    private static final byte DELETE = 2;
+    private static final byte CLEAR = 3;
+    private static final int PREFIX_SIZE = 8;
+    private static final int BODY_HEADER_SIZE = 4;
+    private static final int TABLES = 256;
+    static final long DEFAULT_COMPACT_MIN_BYTES = 4L << 20;
+
+    private final Path file;
+    private final boolean fsync;
+    private final long compactMinBytes;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object syncMonitor = new Object();
+    private final List<Map<String, Location>> index = new ArrayList<>(TABLES);
+
+    private volatile FileChannel channel;
+    private long end;
+    private long liveBytes;
+    // Bytes ever appended and bytes known to be on disk; unlike file offsets these survive compaction
+    private volatile long appended;
+    private long synced;
+
+    private final LongAdder syncs = new LongAdder();
+    private final LongAdder compactions = new LongAdder();
+
+    /**
+     * Where a key's latest record is in the log.
+     */
+    private record Location(long offset, int length, int keyLength) {
+        long valueOffset() {
+            return offset + PREFIX_SIZE + BODY_HEADER_SIZE + keyLength;
+        }
+
+        int valueLength() {
+            return length - PREFIX_SIZE - BODY_HEADER_SIZE - keyLength;
+        }
+    }
+
+    /**
+     * Sizes and counts for the store.
+     *
+     * @param liveBytes   Bytes of records that are still current.
+     * @param fileBytes   The size of the log.
+     * @param syncs       The number of fsyncs.
+     * @param compactions The number of times the log was compacted.
+     */
+    record Stats(long liveBytes, long fileBytes, long syncs, long compactions) {
+    }
+
+    LogStore(Path file, boolean fsync) throws DataAccessException {
+        this(file, fsync, DEFAULT_COMPACT_MIN_BYTES);
+    }
+
+    /**
+     * Opens a log, creating it if it does not exist.
+     *
+     * @param file            The log file.
+     * @param fsync           Whether a write waits until it is on disk.
+     * @param compactMinBytes The fewest dead bytes that make the log worth compacting.
+     */
+    LogStore(Path file, boolean fsync, long compactMinBytes) throws DataAccessException {
+        this.file = file;
+        this.fsync = fsync;
+        this.compactMinBytes = compactMinBytes;
+        for (int i = 0; i < TABLES; i++) {
+            index.add(new HashMap<>());
+        }
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            end = Files.exists(file) ? recover() : 0;
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            if (end < channel.size()) {
+                channel.truncate(end);
+                channel.force(false);
+            }
+            appended = end;
+            synced = end;
+        } catch (IOException e) {
+            throw new DataAccessException("Unable to open " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * @return The value stored under the key, or null if there is none
+     */
+    byte[] get(int table, String key) throws DataAccessException {
+        lock.readLock().lock();
+        try {
+            Location location = index.get(table).get(key);
+            if (location == null) {
+                return null;
+            }
+            ByteBuffer value = ByteBuffer.allocate(location.valueLength());
+            readFully(channel, value, location.valueOffset());
+            return value.array();
+        } catch (IOException e) {
+            throw new DataAccessException("Unable to read " + file + ": " + e.getMessage());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Stores a value whether or not the key already has one.
+     */
+    void put(int table, String key, byte[] value) throws DataAccessException {
+        write(table, key, value, null);
+    }
+
+    /**
+     * Stores a value only if the key does not already have one.
+     *
+     * @return false if the key already had a value
+     */
+    boolean insert(int table, String key, byte[] value) throws DataAccessException {
+        return write(table, key, value, false);
+    }
+
+    /**
+     * Stores a value only if the key already has one.
+     *
+     * @return false if the key had no value
+     */
+    boolean replace(int table, String key, byte[] value) throws DataAccessException {
+        return write(table, key, value, true);
+    }
+
+    /**
+     * @return false if the key had no value
+     */
+    boolean delete(int table, String key) throws DataAccessException {
+        return write(table, key, null, true);
+    }
+
+    /**
+     * Deletes every key in a table.
+     */
+    void clear(int table) throws DataAccessException {
+        write(table, "", null, null);
+    }
+
+    /**
+     * @return A copy of the keys in a table, in no particular order
+     */
+    List<String> keys(int table) {
+        lock.readLock().lock();
+        try {
+            return new ArrayList<>(index.get(table).keySet());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    Stats getStats() {
+        lock.readLock().lock();
+        try {
+            return new Stats(liveBytes, end, syncs.sum(), compactions.sum());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Rewrites the log with only its live records.
+     */
+    void compact() throws DataAccessException {
+        lock.writeLock().lock();
+        try {
+            compactLocked();
+        } catch (IOException e) {
+            throw new DataAccessException("Unable to compact " + file + ": " + e.getMessage());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() throws DataAccessException {
+        lock.writeLock().lock();
+        try {
+            synchronized (syncMonitor) {
+                channel.force(false);
+                channel.close();
+            }
+        } catch (IOException e) {
+            throw new DataAccessException("Unable to close " + file + ": " + e.getMessage());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Helper method to append a record and update the index, then wait for it to be durable.
+     *
+     * @param value   The value, or null for a delete (or a clear, when {@code present} is null).
+     * @param present Whether the key must already have a value (true), must not (false), or either (null).
+     * @return false if the condition on the key was not met, in which case nothing was written
+     */
+    private boolean write(int table, String key, byte[] value, Boolean present) throws DataAccessException {
+        byte op = value != null ? PUT : present == null ? CLEAR : DELETE;
+        long written;
+        lock.writeLock().lock();
+        try {
+            Map<String, Location> keys = index.get(table);
+            if (present != null && keys.containsKey(key) != present) {
+                return false;
+            }
+            byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+            ByteBuffer record = encode(op, table, keyBytes, value);
+            int length = record.remaining();
+            long offset = end;
+            writeFully(channel, record, offset);
+            end += length;
+            apply(op, table, key, new Location(offset, length, keyBytes.length));
+            appended += length;
+            written = appended;
+            if (end - liveBytes >= Math.max(compactMinBytes, liveBytes)) {
+                compactLocked();
+            }
+        } catch (IOException e) {
+            throw new DataAccessException("Unable to write " + file + ": " + e.getMessage());
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (fsync) {
+            awaitDurable(written);
+        }
+        return true;
+    }
+
+    /**
+     * Helper method to wait until the log is on disk up to a point, forcing it if no other writer is.
+     */
+    private void awaitDurable(long position) throws DataAccessException {
+        synchronized (syncMonitor) {
+            // A force that started after this record was written already covers it
+            if (synced >= position) {
+                return;
+            }
+            long target = appended;
+            try {
+                channel.force(false);
+            } catch (IOException e) {
+                throw new DataAccessException("Unable to sync " + file + ": " + e.getMessage());
+            }
+            synced = target;
+            syncs.increment();
+        }
+    }
+
+    private void apply(byte op, int table, String key, Location location) {
+        Map<String, Location> keys = index.get(table);
+        switch (op) {
+            case PUT -> {
+                Location old = keys.put(key, location);
+                liveBytes += location.length() - (old != null ? old.length() : 0);
+            }
+            case DELETE -> {
+                Location old = keys.remove(key);
+                if (old != null) {
+                    liveBytes -= old.length();
+                }
+            }
+            default -> {
+                for (Location old : keys.values()) {
+                    liveBytes -= old.length();
+                }
+                keys.clear();
+            }
+        }
+    }
+
+    /**
+     * Helper method to rebuild the index from the log.
+     *
+     * @return The offset just past the last intact record
+     */
+    private long recover() throws IOException {
+        long size = Files.size(file);
+        long offset = 0;
+        CRC32 crc = new CRC32();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            while (offset + PREFIX_SIZE <= size) {
+                int bodyLength = in.readInt();
+                int checksum = in.readInt();
+                if (bodyLength < BODY_HEADER_SIZE || offset + PREFIX_SIZE + bodyLength > size) {
+                    break;
+                }
+                byte[] body = new byte[bodyLength];
+                in.readFully(body);
+                crc.reset();
+                crc.update(body);
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+                ByteBuffer buffer = ByteBuffer.wrap(body);
+                byte op = buffer.get();
+                int table = buffer.get() & 0xFF;
+                int keyLength = buffer.getShort() & 0xFFFF;
+                String key = new String(body, BODY_HEADER_SIZE, keyLength, StandardCharsets.UTF_8);
+                int length = PREFIX_SIZE + bodyLength;
+                apply(op, table, key, new Location(offset, length, keyLength));
+                offset += length;
+            }
+        }
+        return offset;
+    }
+
+    private void compactLocked() throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".compact");
+        long offset = 0;
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (Map<String, Location> keys : index) {
+                for (Map.Entry<String, Location> entry : keys.entrySet()) {
+                    Location location = entry.getValue();
+                    // Records are copied whole, so their checksums stay valid
+                    ByteBuffer record = ByteBuffer.allocate(location.length());
+                    readFully(channel, record, location.offset());
+                    record.flip();
+                    writeFully(out, record, offset);
+                    entry.setValue(new Location(offset, location.length(), location.keyLength()));
+                    offset += location.length();
+                }
+            }
+            out.force(true);
+        }
+        synchronized (syncMonitor) {
+            channel.close();
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            // Everything live was just forced to disk
+            synced = appended;
+        }
+        end = offset;
+        liveBytes = offset;
+        compactions.increment();
+    }
+
+    private static ByteBuffer encode(byte op, int table, byte[] key, byte[] value) {
+        if (key.length > 0xFFFF) {
+            throw new IllegalArgumentException("Key is too long");
+        }
+        int bodyLength = BODY_HEADER_SIZE + key.length + (value != null ? value.length : 0);
+        ByteBuffer record = ByteBuffer.allocate(PREFIX_SIZE + bodyLength);
+        record.putInt(bodyLength).putInt(0);
+        record.put(op).put((byte) table).putShort((short) key.length).put(key);
+        if (value != null) {
+            record.put(value);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), PREFIX_SIZE, bodyLength);
+        record.putInt(4, (int) crc.getValue());
+        return record.flip();
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long at = position;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, at);
+            if (read < 0) {
+                throw new EOFException("Unexpected end of log");
+            }
+            at += read;
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long at = position;
+        while (buffer.hasRemaining()) {
+            at += channel.write(buffer, at);
+        }
+    }
+}
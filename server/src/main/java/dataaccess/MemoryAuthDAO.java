@@ -0,0 +1,32 @@
+package dataaccess;
+
+import model.AuthData;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps login sessions in memory.
+ */
+public class MemoryAuthDAO implements AuthDAO {
+    private final ConcurrentHashMap<String, AuthData> auths = new ConcurrentHashMap<>();
+
+    @Override
+    public void createAuth(AuthData auth) {
+        auths.put(auth.authToken(), auth);
+    }
+
+    @Override
+    public AuthData getAuth(String authToken) {
+        return auths.get(authToken);
+    }
+
+    @Override
+    public void deleteAuth(String authToken) {
+        auths.remove(authToken);
+    }
+
+    @Override
+    public void clear() {
+        auths.clear();
+    }
+}
@@ -0,0 +1,65 @@
+package dataaccess;
+
+import chess.ChessGame;
+import model.GameData;
+import model.GameSummary;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Keeps games in memory.
+ */
+public class MemoryGameDAO implements GameDAO {
+    private final ConcurrentSkipListMap<Integer, GameData> games = new ConcurrentSkipListMap<>();
+    private final AtomicInteger nextID = new AtomicInteger(1);
+    private final GameSummaryIndex summaries = new GameSummaryIndex();
+
+    @Override
+    public synchronized int createGame(String gameName) {
+        int gameID = nextID.getAndIncrement();
+        GameData game = new GameData(gameID, null, null, gameName, new ChessGame());
+        games.put(gameID, game);
+        summaries.put(GameSummary.of(game));
+        return gameID;
+    }
+
+    @Override
+    public GameData getGame(int gameID) {
+        return games.get(gameID);
+    }
+
+    @Override
+    public Collection<GameData> listGames() {
+        return new ArrayList<>(games.values());
+    }
+
+    @Override
+    public List<GameSummary> listGames(GameQuery query) {
+        return summaries.find(query);
+    }
+
+    @Override
+    public synchronized void updateGame(GameData game) throws DataAccessException {
+        if (games.replace(game.gameID(), game) == null) {
+            throw new DataAccessException("No game with ID " + game.gameID());
+        }
+        summaries.put(GameSummary.of(game));
+    }
+
+    @Override
+    public void forEachGame(Consumer<GameData> action) {
+        games.values().forEach(action);
+    }
+
+    @Override
+    public synchronized void clear() {
+        games.clear();
+        summaries.clear();
+        nextID.set(1);
+    }
+}
@@ -0,0 +1,29 @@
+package dataaccess;
+
+import model.UserData;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps users in memory.
+ */
+public class MemoryUserDAO implements UserDAO {
+    private final ConcurrentHashMap<String, UserData> users = new ConcurrentHashMap<>();
+
+    @Override
+    public void createUser(UserData user) throws DataAccessException {
+        if (users.putIfAbsent(user.username(), user) != null) {
+            throw new DataAccessException("User " + user.username() + " already exists");
+        }
+    }
+
+    @Override
+    public UserData getUser(String username) {
+        return users.get(username);
+    }
+
+    @Override
+    public void clear() {
+        users.clear();
+    }
+}
@@ -0,0 +1,163 @@
+package dataaccess;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.Fen;
+import chess.InvalidMoveException;
+import chess.MoveCodec;
+import chess.PositionCodec;
+
+import java.util.List;
+
+/**
+ * The bookkeeping for storing a game as a log of moves instead of one serialized blob.
+ * <p>
+ * A game's log is its start position followed by one {@link MoveCodec} code per ply. Every so often
+ * the current position is also saved as a {@link PositionCodec} snapshot, and a game is loaded by
+ * decoding the latest snapshot and replaying only the moves after it. Snapshots are only taken right
+ * after a capture or pawn move: no earlier position can occur again, so a loaded game still counts
+ * repetitions exactly.
+ * <p>
+ * Saving a game normally appends the moves it made since the log's last ply. The game's move history is
+ * compared with the logged moves wherever both cover the same plies; if the game has fewer plies than the
+ * log, or a move differs, the game was taken back and played differently, and the log is cut at the first
+ * ply that differs and the game's moves from there are appended.
+ */
+final class MoveLog {
+    static final int DEFAULT_SNAPSHOT_INTERVAL = 32;
+
+    /**
+     * What is stored about a game's log alongside the game.
+     *
+     * @param startFen    The position the log starts from.
+     * @param basePly     The ply number of the start position, counting from a game's first move.
+     * @param plies       The number of moves in the log.
+     * @param lastMove    The code of the last move in the log, or 0 if there is none or it is not known.
+     * @param snapshotPly The log ply of the snapshot, or 0 if there is none.
+     * @param snapshot    The position at the snapshot ply, or null if there is none.
+     */
+    record Header(String startFen, int basePly, int plies, int lastMove, int snapshotPly, byte[] snapshot) {
+    }
+
+    /**
+     * The changes that save a game.
+     *
+     * @param header     The game's new header.
+     * @param deleteFrom The first log ply to delete before appending, or -1 to delete nothing.
+     * @param firstPly   The log ply of the first appended move.
+     * @param moves      The codes of the moves to append.
+     */
+    record Write(Header header, int deleteFrom, int firstPly, short[] moves) {
+    }
+
+    /**
+     * A range of log plies.
+     *
+     * @param from The first ply in the range.
+     * @param to   The ply just past the range.
+     */
+    record Range(int from, int to) {
+    }
+
+    private MoveLog() {
+    }
+
+    /**
+     * Finds the logged plies that a game's move history also covers, which {@link #plan} compares.
+     *
+     * @param stored The game's header as stored now.
+     * @param game   The game to save.
+     * @return The range of plies, which is empty if the history does not start anywhere in the log
+     */
+    static Range overlap(Header stored, ChessGame game) {
+        int ply = plyOf(game) - stored.basePly();
+        int start = ply - game.getMoveHistory().size();
+        if (start < 0 || start > stored.plies()) {
+            return new Range(0, 0);
+        }
+        return new Range(start, Math.min(ply, stored.plies()));
+    }
+
+    /**
+     * Works out what to write to save a game.
+     *
+     * @param stored           The game's header as stored now.
+     * @param logged           The codes of the logged moves in the {@link #overlap} of the game and the log.
+     * @param game             The game to save.
+     * @param snapshotInterval The fewest plies between snapshots.
+     */
+    static Write plan(Header stored, short[] logged, ChessGame game, int snapshotInterval) {
+        List<ChessMove> history = game.getMoveHistory();
+        int ply = plyOf(game) - stored.basePly();
+        // The log ply the game's own move history starts from
+        int start = ply - history.size();
+
+        Header base = stored;
+        int keep;
+        if (start < 0 || start > stored.plies()) {
+            // The game's history does not start anywhere in the log, so the log starts over from it
+            base = new Header(game.getStartPosition(), plyOf(game) - history.size(), 0, 0, 0, null);
+            start = 0;
+            ply = history.size();
+            keep = 0;
+        } else {
+            // Keep the log up to the first ply where it and the game differ, or where either one ends
+            keep = Math.min(ply, stored.plies());
+            for (int i = 0; i < keep - start; i++) {
+                if (i >= logged.length || logged[i] != (short) MoveCodec.encode(history.get(i))) {
+                    keep = start + i;
+                    break;
+                }
+            }
+        }
+
+        short[] moves = new short[ply - keep];
+        for (int i = 0; i < moves.length; i++) {
+            moves[i] = (short) MoveCodec.encode(history.get(keep - start + i));
+        }
+        int lastMove;
+        if (!history.isEmpty()) {
+            lastMove = MoveCodec.encode(history.get(history.size() - 1));
+        } else {
+            lastMove = ply == base.plies() ? base.lastMove() : 0;
+        }
+
+        int snapshotPly = base.snapshotPly();
+        byte[] snapshot = base.snapshot();
+        if (snapshotPly > keep) {
+            snapshotPly = 0;
+            snapshot = null;
+        }
+        if (ply - snapshotPly >= snapshotInterval && game.getHalfmoveClock() == 0) {
+            snapshotPly = ply;
+            snapshot = PositionCodec.encode(game);
+        }
+
+        Header header = new Header(base.startFen(), base.basePly(), ply, lastMove, snapshotPly, snapshot);
+        return new Write(header, keep < stored.plies() || base != stored ? keep : -1, keep, moves);
+    }
+
+    /**
+     * Rebuilds a game from its latest snapshot and the moves logged after it.
+     *
+     * @param header The game's header.
+     * @param tail   The codes of the moves from the snapshot ply on, in order.
+     * @throws InvalidMoveException if a logged move is not legal, meaning the log is corrupt
+     */
+    static ChessGame load(Header header, short[] tail) throws InvalidMoveException {
+        ChessGame game = header.snapshot() != null
+                ? PositionCodec.decode(header.snapshot())
+                : Fen.parse(header.startFen());
+        for (short code : tail) {
+            game.makeMove(MoveCodec.decode(code));
+        }
+        return game;
+    }
+
+    /**
+     * @return The number of plies from a game's first move to its current position
+     */
+    static int plyOf(ChessGame game) {
+        return (game.getFullmoveNumber() - 1) * 2 + (game.getTeamTurn() == ChessGame.TeamColor.BLACK ? 1 : 0);
+    }
+}
@@ -0,0 +1,79 @@
+package dataaccess;
+
+import model.AuthData;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Stores login sessions in MySQL.
+ */
+public class MySqlAuthDAO implements AuthDAO {
+    private static final String CREATE_STATEMENT = """
+            CREATE TABLE IF NOT EXISTS auth (
+              authToken VARCHAR(256) NOT NULL,
+              username VARCHAR(256) NOT NULL,
+              PRIMARY KEY (authToken)
+            )
+            """;
+
+    public MySqlAuthDAO() throws DataAccessException {
+        DatabaseManager.createDatabase();
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement statement = conn.prepareStatement(CREATE_STATEMENT)) {
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            throw new DataAccessException("Unable to configure database: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void createAuth(AuthData auth) throws DataAccessException {
+        String sql = "INSERT INTO auth (authToken, username) VALUES (?, ?)";
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement statement = conn.prepareStatement(sql)) {
+            statement.setString(1, auth.authToken());
+            statement.setString(2, auth.username());
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            throw new DataAccessException("Unable to create auth: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public AuthData getAuth(String authToken) throws DataAccessException {
+        String sql = "SELECT authToken, username FROM auth WHERE authToken=?";
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement statement = conn.prepareStatement(sql)) {
+            statement.setString(1, authToken);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() ? new AuthData(rs.getString(1), rs.getString(2)) : null;
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Unable to read auth: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void deleteAuth(String authToken) throws DataAccessException {
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement statement = conn.prepareStatement("DELETE FROM auth WHERE authToken=?")) {
+            statement.setString(1, authToken);
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            throw new DataAccessException("Unable to delete auth: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void clear() throws DataAccessException {
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement statement = conn.prepareStatement("TRUNCATE auth")) {
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            throw new DataAccessException("Unable to clear auths: " + e.getMessage());
+        }
+    }
+}
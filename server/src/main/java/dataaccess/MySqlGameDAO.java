@@ -0,0 +1,519 @@
+package dataaccess;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.Fen;
+import chess.GameReplay;
+import chess.InvalidMoveException;
+import chess.MoveCodec;
+import model.GameData;
+import model.GameSummary;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Stores games in MySQL as a log of moves.
+ * <p>
+ * Each move is one small row of (gameID, ply, packed move), and every so often the game row also gets a
+ * 32-byte snapshot of the position, so saving a game after a move appends a row instead of rewriting the
+ * whole game. Loading a game decodes its latest snapshot and replays the moves after it. The full log is
+ * kept, so any stored game can be replayed from the start with {@link #replay}. See {@link MoveLog} for
+ * when snapshots are taken and how a game that was taken back is saved.
+ * <p>
+ * The game row also records whether the game is finished, and has indexes on its open seats and on
+ * each player, so {@link #listGames(GameQuery)} reads a page of the lobby from an index without
+ * touching the move log.
+ */
+public class MySqlGameDAO implements GameDAO {
+    private static final String[] CREATE_STATEMENTS = {
+            """
+            CREATE TABLE IF NOT EXISTS game (
+              id INT NOT NULL AUTO_INCREMENT,
+              whiteUsername VARCHAR(256),
+              blackUsername VARCHAR(256),
+              gameName VARCHAR(256) NOT NULL,
+              startFen VARCHAR(100) NOT NULL,
+              basePly INT NOT NULL,
+              plies INT NOT NULL,
+              lastMove SMALLINT NOT NULL,
+              snapshotPly INT NOT NULL,
+              snapshot BINARY(32),
+              finished BOOLEAN NOT NULL DEFAULT FALSE,
+              openSeat BOOLEAN AS (whiteUsername IS NULL OR blackUsername IS NULL) STORED,
+              PRIMARY KEY (id),
+              INDEX open_games (openSeat, id),
+              INDEX white_games (whiteUsername, id),
+              INDEX black_games (blackUsername, id)
+            )
+            """,
+            """
+            CREATE TABLE IF NOT EXISTS game_move (
+              gameID INT NOT NULL,
+              ply INT NOT NULL,
+              move SMALLINT NOT NULL,
+              PRIMARY KEY (gameID, ply)
+            )
+            """
+    };
+
+    private static final String GAME_COLUMNS =
+            "g.id, g.whiteUsername, g.blackUsername, g.gameName, g.startFen, g.basePly, g.plies, g.lastMove, "
+                    + "g.snapshotPly, g.snapshot";
+    private static final String SUMMARY_COLUMNS = "id, whiteUsername, blackUsername, gameName, finished";
+    private static final String TAIL_SQL =
+            "SELECT move FROM game_move WHERE gameID=? AND ply>=? AND ply<? ORDER BY ply";
+
+    private final int snapshotInterval;
+
+    public MySqlGameDAO() throws DataAccessException {
+        this(MoveLog.DEFAULT_SNAPSHOT_INTERVAL);
+    }
+
+    /**
+     * @param snapshotInterval The fewest plies between position snapshots. Smaller values make loading
+     *                         faster and saving slightly slower.
+     */
+    public MySqlGameDAO(int snapshotInterval) throws DataAccessException {
+        if (snapshotInterval < 1) {
+            throw new IllegalArgumentException("snapshotInterval must be at least 1");
+        }
+        this.snapshotInterval = snapshotInterval;
+        DatabaseManager.createDatabase();
+        try (Connection conn = DatabaseManager.getConnection()) {
+            for (String statement : CREATE_STATEMENTS) {
+                try (PreparedStatement preparedStatement = conn.prepareStatement(statement)) {
+                    preparedStatement.executeUpdate();
+                }
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Unable to configure database: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public int createGame(String gameName) throws DataAccessException {
+        String sql = "INSERT INTO game (gameName, startFen, basePly, plies, lastMove, snapshotPly) "
+                + "VALUES (?, ?, 0, 0, 0, 0)";
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement statement = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            statement.setString(1, gameName);
+            statement.setString(2, Fen.START_POSITION);
+            statement.executeUpdate();
+            try (ResultSet keys = statement.getGeneratedKeys()) {
+                keys.next();
+                return keys.getInt(1);
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Unable to create game: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public GameData getGame(int gameID) throws DataAccessException {
+        String sql = "SELECT " + GAME_COLUMNS + " FROM game g WHERE g.id=?";
+        try (Connection conn = DatabaseManager.getConnection()) {
+            MoveLog.Header header;
+            GameData names;
+            try (PreparedStatement statement = conn.prepareStatement(sql)) {
+                statement.setInt(1, gameID);
+                try (ResultSet rs = statement.executeQuery()) {
+                    if (!rs.next()) {
+                        return null;
+                    }
+                    header = readHeader(rs);
+                    names = readNames(rs);
+                }
+            }
+            List<Short> tail = new ArrayList<>();
+            try (PreparedStatement statement = conn.prepareStatement(TAIL_SQL)) {
+                statement.setInt(1, gameID);
+                statement.setInt(2, header.snapshotPly());
+                statement.setInt(3, header.plies());
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        tail.add(rs.getShort(1));
+                    }
+                }
+            }
+            return withGame(names, load(gameID, header, tail));
+        } catch (SQLException e) {
+            throw new DataAccessException("Unable to read game: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public Collection<GameData> listGames() throws DataAccessException {
+        List<GameData> games = new ArrayList<>();
+        forEachGame(games::add);
+        return games;
+    }
+
+    /**
+     * Lists a page of games from the game rows alone. The games of a player are read as the union of
+     * one page from each seat's index, so neither side needs a scan.
+     */
+    @Override
+    public List<GameSummary> listGames(GameQuery query) throws DataAccessException {
+        StringBuilder filters = new StringBuilder("id>?");
+        if (query.openSeat()) {
+            filters.append(" AND openSeat=TRUE");
+        }
+        if (query.finished() != null) {
+            filters.append(" AND finished=?");
+        }
+        String sql;
+        if (query.player() == null) {
+            sql = "SELECT " + SUMMARY_COLUMNS + " FROM game WHERE " + filters + " ORDER BY id LIMIT ?";
+        } else {
+            String seat = "SELECT " + SUMMARY_COLUMNS + " FROM game WHERE %s=? AND " + filters
+                    + " ORDER BY id LIMIT ?";
+            sql = "(" + String.format(seat, "whiteUsername") + ") UNION (" + String.format(seat, "blackUsername")
+                    + ") ORDER BY id LIMIT ?";
+        }
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement statement = conn.prepareStatement(sql)) {
+            if (query.player() == null) {
+                bindFilters(statement, 1, query);
+            } else {
+                int index = 1;
+                for (int seat = 0; seat < 2; seat++) {
+                    statement.setString(index++, query.player());
+                    index = bindFilters(statement, index, query);
+                }
+                statement.setInt(index, query.limit());
+            }
+            List<GameSummary> games = new ArrayList<>();
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    games.add(new GameSummary(rs.getInt("id"), rs.getString("whiteUsername"),
+                            rs.getString("blackUsername"), rs.getString("gameName"), rs.getBoolean("finished")));
+                }
+            }
+            return games;
+        } catch (SQLException e) {
+            throw new DataAccessException("Unable to list games: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void updateGame(GameData game) throws DataAccessException {
+        updateGames(List.of(game));
+    }
+
+    /**
+     * Saves the games in one transaction, appending their new moves to the log as one JDBC batch. The
+     * logged moves each game's history also covers are read first, to find where a game that was taken
+     * back stops matching its log.
+     */
+    @Override
+    public void updateGames(Collection<GameData> games) throws DataAccessException {
+        String headerSql = "SELECT " + GAME_COLUMNS + " FROM game g WHERE g.id=? FOR UPDATE";
+        String deleteSql = "DELETE FROM game_move WHERE gameID=? AND ply>=?";
+        String insertSql = "INSERT INTO game_move (gameID, ply, move) VALUES (?, ?, ?)";
+        String updateSql = "UPDATE game SET whiteUsername=?, blackUsername=?, gameName=?, startFen=?, basePly=?, "
+                + "plies=?, lastMove=?, snapshotPly=?, snapshot=?, finished=? WHERE id=?";
+        try (Connection conn = DatabaseManager.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement select = conn.prepareStatement(headerSql);
+                 PreparedStatement logged = conn.prepareStatement(TAIL_SQL);
+                 PreparedStatement delete = conn.prepareStatement(deleteSql);
+                 PreparedStatement insert = conn.prepareStatement(insertSql);
+                 PreparedStatement update = conn.prepareStatement(updateSql)) {
+                // Only the last state of a game listed twice is saved; each plan reads the stored header
+                Map<Integer, GameData> latest = new LinkedHashMap<>();
+                for (GameData game : games) {
+                    latest.put(game.gameID(), game);
+                }
+                boolean deletes = false;
+                for (GameData game : latest.values()) {
+                    MoveLog.Header stored = lockHeader(select, game.gameID());
+                    MoveLog.Range overlap = MoveLog.overlap(stored, game.game());
+                    short[] codes = readMoves(logged, game.gameID(), overlap);
+                    MoveLog.Write write = MoveLog.plan(stored, codes, game.game(), snapshotInterval);
+                    if (write.deleteFrom() >= 0) {
+                        delete.setInt(1, game.gameID());
+                        delete.setInt(2, write.deleteFrom());
+                        delete.addBatch();
+                        deletes = true;
+                    }
+                    for (int i = 0; i < write.moves().length; i++) {
+                        insert.setInt(1, game.gameID());
+                        insert.setInt(2, write.firstPly() + i);
+                        insert.setShort(3, write.moves()[i]);
+                        insert.addBatch();
+                    }
+                    bindUpdate(update, game, write.header());
+                    update.addBatch();
+                }
+                // Deletes go first so a rewritten log does not collide with the rows it replaces
+                if (deletes) {
+                    delete.executeBatch();
+                }
+                insert.executeBatch();
+                update.executeBatch();
+                conn.commit();
+            } catch (SQLException | DataAccessException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Unable to update games: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Passes every game that loads to an action.
+     *
+     * @throws DataAccessException after the iteration, if any game could not be loaded
+     */
+    @Override
+    public void forEachGame(Consumer<GameData> action) throws DataAccessException {
+        List<Integer> failed = new ArrayList<>();
+        List<DataAccessException> errors = new ArrayList<>();
+        forEachGame(action, (gameID, e) -> {
+            failed.add(gameID);
+            errors.add(e);
+        });
+        if (!failed.isEmpty()) {
+            throw new DataAccessException("Unable to load games " + failed + ": " + errors.get(0).getMessage());
+        }
+    }
+
+    @Override
+    public void forEachGame(Consumer<GameData> action, BiConsumer<Integer, DataAccessException> failed)
+            throws DataAccessException {
+        streamGames("AND m.ply >= g.snapshotPly", (names, header, tail) -> {
+            ChessGame game;
+            try {
+                game = load(names.gameID(), header, tail);
+            } catch (DataAccessException e) {
+                failed.accept(names.gameID(), e);
+                return;
+            }
+            action.accept(withGame(names, game));
+        });
+    }
+
+    /**
+     * Passes each game's log from ply 0, not only the moves after its snapshot, with the game as
+     * loaded from the snapshot.
+     */
+    @Override
+    public void forEachGameLog(Consumer<GameLog> action, BiConsumer<Integer, DataAccessException> failed)
+            throws DataAccessException {
+        streamGames("", (names, header, moves) -> {
+            ChessGame stored;
+            try {
+                stored = load(names.gameID(), header,
+                        moves.subList(Math.min(header.snapshotPly(), moves.size()), moves.size()));
+            } catch (DataAccessException e) {
+                failed.accept(names.gameID(), e);
+                return;
+            }
+            short[] codes = new short[moves.size()];
+            for (int i = 0; i < codes.length; i++) {
+                codes[i] = moves.get(i);
+            }
+            action.accept(new GameLog(names.gameID(), header.startFen(), codes, stored));
+        });
+    }
+
+    /**
+     * Replays a stored game from its start position through its whole move log.
+     *
+     * @param gameID   The game.
+     * @param interval The number of plies between the replay's checkpoints.
+     * @return The replay at ply 0, or null if there is no game with that ID
+     */
+    public GameReplay replay(int gameID, int interval) throws DataAccessException {
+        String sql = "SELECT " + GAME_COLUMNS + " FROM game g WHERE g.id=?";
+        try (Connection conn = DatabaseManager.getConnection()) {
+            MoveLog.Header header;
+            try (PreparedStatement statement = conn.prepareStatement(sql)) {
+                statement.setInt(1, gameID);
+                try (ResultSet rs = statement.executeQuery()) {
+                    if (!rs.next()) {
+                        return null;
+                    }
+                    header = readHeader(rs);
+                }
+            }
+            List<ChessMove> moves = new ArrayList<>(header.plies());
+            try (PreparedStatement statement = conn.prepareStatement(TAIL_SQL)) {
+                statement.setInt(1, gameID);
+                statement.setInt(2, 0);
+                statement.setInt(3, header.plies());
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        moves.add(MoveCodec.decode(rs.getShort(1)));
+                    }
+                }
+            }
+            return new GameReplay(header.startFen(), moves, interval);
+        } catch (SQLException e) {
+            throw new DataAccessException("Unable to read game: " + e.getMessage());
+        } catch (InvalidMoveException e) {
+            throw new DataAccessException("Move log of game " + gameID + " is corrupt: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void clear() throws DataAccessException {
+        try (Connection conn = DatabaseManager.getConnection()) {
+            for (String table : new String[]{"game_move", "game"}) {
+                try (PreparedStatement statement = conn.prepareStatement("TRUNCATE " + table)) {
+                    statement.executeUpdate();
+                }
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Unable to clear games: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Receives one game's row and its logged moves from {@link #streamGames}.
+     */
+    private interface GameRows {
+        void accept(GameData names, MoveLog.Header header, List<Short> moves);
+    }
+
+    /**
+     * Helper method to stream every game's row with its logged moves, in ID order.
+     *
+     * @param moveRange Further conditions on the joined move rows.
+     */
+    private static void streamGames(String moveRange, GameRows action) throws DataAccessException {
+        // One row per move, or one row with a null move for a game with none in range
+        String sql = "SELECT " + GAME_COLUMNS + ", m.move FROM game g LEFT JOIN game_move m "
+                + "ON m.gameID = g.id AND m.ply < g.plies " + moveRange + " ORDER BY g.id, m.ply";
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement statement = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY,
+                     ResultSet.CONCUR_READ_ONLY)) {
+            // Tells the MySQL driver to stream rows instead of reading the whole result into memory
+            statement.setFetchSize(Integer.MIN_VALUE);
+            try (ResultSet rs = statement.executeQuery()) {
+                boolean more = rs.next();
+                while (more) {
+                    int gameID = rs.getInt("id");
+                    MoveLog.Header header = readHeader(rs);
+                    GameData names = readNames(rs);
+                    List<Short> moves = new ArrayList<>();
+                    do {
+                        short move = rs.getShort("move");
+                        if (!rs.wasNull()) {
+                            moves.add(move);
+                        }
+                        more = rs.next();
+                    } while (more && rs.getInt("id") == gameID);
+                    action.accept(names, header, moves);
+                }
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Unable to read games: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Helper method to read and lock a game's header inside a transaction.
+     *
+     * @throws DataAccessException if there is no game with that ID
+     */
+    private static MoveLog.Header lockHeader(PreparedStatement select, int gameID)
+            throws SQLException, DataAccessException {
+        select.setInt(1, gameID);
+        try (ResultSet rs = select.executeQuery()) {
+            if (!rs.next()) {
+                throw new DataAccessException("No game with ID " + gameID);
+            }
+            return readHeader(rs);
+        }
+    }
+
+    /**
+     * Helper method to read the logged moves in a range of plies.
+     */
+    private static short[] readMoves(PreparedStatement statement, int gameID, MoveLog.Range range)
+            throws SQLException {
+        if (range.from() >= range.to()) {
+            return new short[0];
+        }
+        short[] codes = new short[range.to() - range.from()];
+        int count = 0;
+        statement.setInt(1, gameID);
+        statement.setInt(2, range.from());
+        statement.setInt(3, range.to());
+        try (ResultSet rs = statement.executeQuery()) {
+            while (rs.next() && count < codes.length) {
+                codes[count++] = rs.getShort(1);
+            }
+        }
+        return count == codes.length ? codes : Arrays.copyOf(codes, count);
+    }
+
+    private static void bindUpdate(PreparedStatement statement, GameData game, MoveLog.Header header)
+            throws SQLException {
+        statement.setString(1, game.whiteUsername());
+        statement.setString(2, game.blackUsername());
+        statement.setString(3, game.gameName());
+        statement.setString(4, header.startFen());
+        statement.setInt(5, header.basePly());
+        statement.setInt(6, header.plies());
+        statement.setShort(7, (short) header.lastMove());
+        statement.setInt(8, header.snapshotPly());
+        statement.setBytes(9, header.snapshot());
+        statement.setBoolean(10, GameSummary.isFinished(game.game()));
+        statement.setInt(11, game.gameID());
+    }
+
+    /**
+     * Helper method to bind the ID bound, the finished filter if any, and the limit of one SELECT.
+     *
+     * @return The index of the next parameter
+     */
+    private static int bindFilters(PreparedStatement statement, int index, GameQuery query) throws SQLException {
+        statement.setInt(index++, query.after());
+        if (query.finished() != null) {
+            statement.setBoolean(index++, query.finished());
+        }
+        statement.setInt(index++, query.limit());
+        return index;
+    }
+
+    private static MoveLog.Header readHeader(ResultSet rs) throws SQLException {
+        return new MoveLog.Header(rs.getString("startFen"), rs.getInt("basePly"), rs.getInt("plies"),
+                rs.getShort("lastMove"), rs.getInt("snapshotPly"), rs.getBytes("snapshot"));
+    }
+
+    private static GameData readNames(ResultSet rs) throws SQLException {
+        return new GameData(rs.getInt("id"), rs.getString("whiteUsername"), rs.getString("blackUsername"),
+                rs.getString("gameName"), null);
+    }
+
+    private static GameData withGame(GameData names, ChessGame game) {
+        return new GameData(names.gameID(), names.whiteUsername(), names.blackUsername(), names.gameName(), game);
+    }
+
+    private static ChessGame load(int gameID, MoveLog.Header header, List<Short> tail) throws DataAccessException {
+        short[] codes = new short[tail.size()];
+        for (int i = 0; i < codes.length; i++) {
+            codes[i] = tail.get(i);
+        }
+        try {
+            return MoveLog.load(header, codes);
+        } catch (InvalidMoveException | IllegalArgumentException e) {
+            throw new DataAccessException("Move log of game " + gameID + " is corrupt: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package dataaccess;
+
+import model.UserData;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+
+/**
+ * Stores users in MySQL.
+ */
+public class MySqlUserDAO implements UserDAO {
+    private static final String CREATE_STATEMENT = """
+            CREATE TABLE IF NOT EXISTS user (
+              username VARCHAR(256) NOT NULL,
+              password VARCHAR(256) NOT NULL,
+              email VARCHAR(256) NOT NULL,
+              PRIMARY KEY (username)
+            )
+            """;
+
+    public MySqlUserDAO() throws DataAccessException {
+        DatabaseManager.createDatabase();
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement statement = conn.prepareStatement(CREATE_STATEMENT)) {
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            throw new DataAccessException("Unable to configure database: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void createUser(UserData user) throws DataAccessException {
+        String sql = "INSERT INTO user (username, password, email) VALUES (?, ?, ?)";
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement statement = conn.prepareStatement(sql)) {
+            statement.setString(1, user.username());
+            statement.setString(2, user.password());
+            statement.setString(3, user.email());
+            statement.executeUpdate();
+        } catch (SQLIntegrityConstraintViolationException e) {
+            throw new DataAccessException("User " + user.username() + " already exists");
+        } catch (SQLException e) {
+            throw new DataAccessException("Unable to create user: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public UserData getUser(String username) throws DataAccessException {
+        String sql = "SELECT username, password, email FROM user WHERE username=?";
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement statement = conn.prepareStatement(sql)) {
+            statement.setString(1, username);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() ? new UserData(rs.getString(1), rs.getString(2), rs.getString(3)) : null;
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Unable to read user: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void clear() throws DataAccessException {
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement statement = conn.prepareStatement("TRUNCATE user")) {
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            throw new DataAccessException("Unable to clear users: " + e.getMessage());
+        }
+    }
+}
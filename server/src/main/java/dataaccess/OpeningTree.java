@@ -0,0 +1,295 @@
+package dataaccess;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.Fen;
+import chess.InvalidMoveException;
+import chess.MoveCodec;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Win, draw and loss counts for every move played from every position in the opening of finished games.
+ * <p>
+ * Counts live in a primitive open-addressing table with one slot per (position hash, move). A slot's
+ * probe sequence starts from the position hash alone, so all moves from one position sit in a single
+ * run of slots and {@link #movesFrom(long)} reads them without touching anything else. Results are
+ * added as each game finishes, and every {@code snapshotEvery} games the table is written to a
+ * memory-mapped file that {@link #OpeningTree(Path, int, int)} reloads on startup.
+ */
+public class OpeningTree {
+    public static final int DEFAULT_MAX_PLIES = 40;
+
+    private static final int MAGIC = 0x4F50454E;
+    private static final int HEADER_SIZE = 12;
+    // Bytes per slot: hash, move, wins, draws, losses
+    private static final int SLOT_SIZE = 8 + 4 + 4 + 4 + 4;
+    private static final int MIN_CAPACITY = 1 << 10;
+
+    private final Path file;
+    private final int maxPlies;
+    private final int snapshotEvery;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Moves are MoveCodec codes, and 0 marks an empty slot
+    private long[] hashes;
+    private int[] moves;
+    private int[] wins;
+    private int[] draws;
+    private int[] losses;
+    private int size;
+    private int gamesSinceSnapshot;
+
+    /**
+     * Counts for one move from a position, from the point of view of the side that played it.
+     */
+    public record MoveStats(ChessMove move, int wins, int draws, int losses) {
+        public int games() {
+            return wins + draws + losses;
+        }
+    }
+
+    /**
+     * Opens the tree stored in a snapshot file, or starts an empty one if the file does not exist.
+     *
+     * @param file          The snapshot file.
+     * @param maxPlies      The number of plies of each game that are counted.
+     * @param snapshotEvery The number of finished games between snapshots, or 0 to snapshot only when asked.
+     */
+    public OpeningTree(Path file, int maxPlies, int snapshotEvery) throws DataAccessException {
+        this.file = file;
+        this.maxPlies = maxPlies;
+        this.snapshotEvery = snapshotEvery;
+        if (Files.exists(file)) {
+            load();
+        } else {
+            allocate(MIN_CAPACITY);
+        }
+    }
+
+    public OpeningTree(Path file) throws DataAccessException {
+        this(file, DEFAULT_MAX_PLIES, 1000);
+    }
+
+    /**
+     * Adds a finished game's result to every move in its opening.
+     *
+     * @param game   The finished game. It is not changed.
+     * @param winner The winning team, or null for a draw.
+     */
+    public void recordGame(ChessGame game, ChessGame.TeamColor winner) throws DataAccessException {
+        // Replay outside the lock; only the counting needs it
+        List<ChessMove> history = game.getMoveHistory();
+        int plies = Math.min(history.size(), maxPlies);
+        long[] positionHashes = new long[plies];
+        ChessGame replay = Fen.parse(game.getStartPosition());
+        ChessGame.TeamColor firstMover = replay.getTeamTurn();
+        for (int ply = 0; ply < plies; ply++) {
+            positionHashes[ply] = replay.getPositionHash();
+            try {
+                replay.makeMove(history.get(ply));
+            } catch (InvalidMoveException e) {
+                throw new DataAccessException("Game has an illegal move at ply " + ply);
+            }
+        }
+
+        boolean snapshot;
+        lock.writeLock().lock();
+        try {
+            for (int ply = 0; ply < plies; ply++) {
+                int slot = slotFor(positionHashes[ply], MoveCodec.encode(history.get(ply)));
+                ChessGame.TeamColor mover = ply % 2 == 0 ? firstMover : opponent(firstMover);
+                if (winner == null) {
+                    draws[slot]++;
+                } else if (winner == mover) {
+                    wins[slot]++;
+                } else {
+                    losses[slot]++;
+                }
+            }
+            snapshot = snapshotEvery > 0 && ++gamesSinceSnapshot >= snapshotEvery;
+            if (snapshot) {
+                gamesSinceSnapshot = 0;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (snapshot) {
+            snapshot();
+        }
+    }
+
+    /**
+     * Lists the moves played from a position and their results.
+     *
+     * @param hash The position's Zobrist hash, as from {@link ChessGame#getPositionHash()}.
+     * @return The moves, most played first.
+     */
+    public List<MoveStats> movesFrom(long hash) {
+        List<MoveStats> found = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            int mask = hashes.length - 1;
+            for (int slot = home(hash, mask); moves[slot] != 0; slot = (slot + 1) & mask) {
+                if (hashes[slot] == hash) {
+                    found.add(new MoveStats(MoveCodec.decode(moves[slot]), wins[slot], draws[slot], losses[slot]));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        found.sort((a, b) -> Integer.compare(b.games(), a.games()));
+        return found;
+    }
+
+    /**
+     * Gets the counts for one move from a position.
+     *
+     * @return The counts, or null if the move was never played there.
+     */
+    public MoveStats get(long hash, ChessMove move) {
+        int code = MoveCodec.encode(move);
+        lock.readLock().lock();
+        try {
+            int mask = hashes.length - 1;
+            for (int slot = home(hash, mask); moves[slot] != 0; slot = (slot + 1) & mask) {
+                if (hashes[slot] == hash && moves[slot] == code) {
+                    return new MoveStats(move, wins[slot], draws[slot], losses[slot]);
+                }
+            }
+            return null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return The number of distinct (position, move) pairs
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Writes the whole table to the snapshot file, replacing it atomically.
+     */
+    public synchronized void snapshot() throws DataAccessException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        lock.readLock().lock();
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            int capacity = hashes.length;
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) capacity * SLOT_SIZE);
+            map.putInt(MAGIC).putInt(capacity).putInt(size);
+            // Column by column, so each array goes out in one bulk copy
+            map.asLongBuffer().put(hashes);
+            map.position(map.position() + capacity * 8);
+            map.asIntBuffer().put(moves).put(wins).put(draws).put(losses);
+            map.force();
+        } catch (IOException e) {
+            throw new DataAccessException("Unable to snapshot opening tree: " + e.getMessage());
+        } finally {
+            lock.readLock().unlock();
+        }
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new DataAccessException("Unable to snapshot opening tree: " + e.getMessage());
+        }
+    }
+
+    private void load() throws DataAccessException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            int capacity = map.remaining() >= HEADER_SIZE && map.getInt() == MAGIC ? map.getInt() : -1;
+            if (capacity < MIN_CAPACITY || Integer.bitCount(capacity) != 1
+                    || channel.size() != HEADER_SIZE + (long) capacity * SLOT_SIZE) {
+                throw new DataAccessException("Corrupt opening tree snapshot " + file);
+            }
+            allocate(capacity);
+            size = map.getInt();
+            map.asLongBuffer().get(hashes);
+            map.position(map.position() + capacity * 8);
+            map.asIntBuffer().get(moves).get(wins).get(draws).get(losses);
+        } catch (IOException e) {
+            throw new DataAccessException("Unable to load opening tree: " + e.getMessage());
+        }
+    }
+
+    private void allocate(int capacity) {
+        hashes = new long[capacity];
+        moves = new int[capacity];
+        wins = new int[capacity];
+        draws = new int[capacity];
+        losses = new int[capacity];
+    }
+
+    /**
+     * Helper method to find the slot for a (position, move) pair, claiming an empty one if it is new.
+     */
+    private int slotFor(long hash, int move) {
+        int mask = hashes.length - 1;
+        int slot = home(hash, mask);
+        while (moves[slot] != 0) {
+            if (hashes[slot] == hash && moves[slot] == move) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        // Keep at most half the slots full so runs stay short
+        if ((size + 1) * 2 > hashes.length) {
+            grow();
+            return slotFor(hash, move);
+        }
+        hashes[slot] = hash;
+        moves[slot] = move;
+        size++;
+        return slot;
+    }
+
+    private void grow() {
+        long[] oldHashes = hashes;
+        int[] oldMoves = moves;
+        int[] oldWins = wins;
+        int[] oldDraws = draws;
+        int[] oldLosses = losses;
+        allocate(oldHashes.length * 2);
+        int mask = hashes.length - 1;
+        for (int i = 0; i < oldHashes.length; i++) {
+            if (oldMoves[i] != 0) {
+                int slot = home(oldHashes[i], mask);
+                while (moves[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                hashes[slot] = oldHashes[i];
+                moves[slot] = oldMoves[i];
+                wins[slot] = oldWins[i];
+                draws[slot] = oldDraws[i];
+                losses[slot] = oldLosses[i];
+            }
+        }
+    }
+
+    private static int home(long hash, int mask) {
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private static ChessGame.TeamColor opponent(ChessGame.TeamColor color) {
+        return color == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+    }
+}
@@ -0,0 +1,587 @@
+package dataaccess;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.Fen;
+import chess.InvalidMoveException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * An on-disk index from a position's Zobrist hash to every (game, ply) where that position occurred.
+ * <p>
+ * New postings collect in memory and are flushed as immutable segment files. A segment holds each
+ * hash's postings sorted and delta encoded as varints, followed by a sorted table of hashes and a
+ * Bloom filter over them. Segments are memory-mapped, so a lookup checks each segment's Bloom filter
+ * and only binary searches the segments that might hold the hash. {@link #compact()} merges the
+ * segments into one, and a flush that leaves more than the maximum number of segments compacts them.
+ * <p>
+ * Next to the segments, a plies file holds the last ply indexed for each game whose postings are in a
+ * segment. It is replaced after each segment is written, so after a crash it tells a writer which plies
+ * were lost with the pending postings and must be indexed again; see {@link #lastIndexedPly(int)}.
+ * <p>
+ * Segment layout, big-endian:
+ * <ul>
+ *     <li>postings: per hash, the varint deltas between consecutive {@code gameID << 32 | ply} values</li>
+ *     <li>key table: per hash, in ascending order, the hash (8 bytes), postings offset (8) and count (4)</li>
+ *     <li>Bloom filter words (8 bytes each)</li>
+ *     <li>trailer: key table offset (8), key count (4), Bloom filter words (4), {@link #MAGIC} (4)</li>
+ * </ul>
+ */
+public class PositionIndex {
+    public static final int DEFAULT_FLUSH_THRESHOLD = 1 << 20;
+    public static final int DEFAULT_MAX_SEGMENTS = 8;
+
+    private static final int MAGIC = 0x504F5358;
+    private static final int KEY_ENTRY_SIZE = 20;
+    private static final int TRAILER_SIZE = 20;
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String PLIES_FILE = "plies.bin";
+
+    private final Path directory;
+    private final int flushThreshold;
+    private final int maxSegments;
+    private final Map<Long, PostingList> pending = new HashMap<>();
+    // Last ply added for each game, in the pending postings and in the segments
+    private final Map<Integer, Integer> pendingPlies = new HashMap<>();
+    private final Map<Integer, Integer> flushedPlies = new HashMap<>();
+    private int pendingCount;
+    private int nextSegment;
+    // Replaced, never changed in place, so lookups can read it without locking
+    private volatile List<Segment> segments;
+
+    /**
+     * A place a position occurred: the game and the number of plies played before it.
+     */
+    public record Posting(int gameID, int ply) {
+    }
+
+    /**
+     * Opens the index stored in a directory, creating the directory if needed.
+     *
+     * @param directory      The directory holding the segment files.
+     * @param flushThreshold The number of pending postings that triggers a flush.
+     * @param maxSegments    The number of segments past which a flush compacts them.
+     */
+    public PositionIndex(Path directory, int flushThreshold, int maxSegments) throws DataAccessException {
+        this.directory = directory;
+        this.flushThreshold = flushThreshold;
+        this.maxSegments = maxSegments;
+        List<Segment> opened = new ArrayList<>();
+        try {
+            Files.createDirectories(directory);
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path file : files.filter(f -> f.toString().endsWith(SEGMENT_SUFFIX)).sorted().toList()) {
+                    opened.add(Segment.open(file));
+                    nextSegment = Math.max(nextSegment, segmentNumber(file) + 1);
+                }
+            }
+            readPlies();
+        } catch (IOException e) {
+            throw new DataAccessException("Unable to open position index: " + e.getMessage());
+        }
+        this.segments = List.copyOf(opened);
+    }
+
+    public PositionIndex(Path directory, int flushThreshold) throws DataAccessException {
+        this(directory, flushThreshold, DEFAULT_MAX_SEGMENTS);
+    }
+
+    public PositionIndex(Path directory) throws DataAccessException {
+        this(directory, DEFAULT_FLUSH_THRESHOLD);
+    }
+
+    /**
+     * Records that a game reached a position. Call it with the game's
+     * {@link ChessGame#getPositionHash()} after each move.
+     *
+     * @param hash   The position's hash.
+     * @param gameID The game.
+     * @param ply    The number of plies played to reach the position.
+     */
+    public synchronized void add(long hash, int gameID, int ply) throws DataAccessException {
+        if (gameID < 0 || ply < 0) {
+            throw new IllegalArgumentException("gameID and ply must not be negative");
+        }
+        pending.computeIfAbsent(hash, h -> new PostingList()).add(pack(gameID, ply));
+        pendingPlies.put(gameID, ply);
+        if (++pendingCount >= flushThreshold) {
+            flush();
+        }
+    }
+
+    /**
+     * Records every position of a game, from its start position through its move history.
+     *
+     * @param gameID The game.
+     * @param game   The game to index. It is not changed.
+     */
+    public void addGame(int gameID, ChessGame game) throws DataAccessException {
+        addGame(gameID, game, 0);
+    }
+
+    /**
+     * Records the positions of a game from a ply onward, for a game whose earlier positions are
+     * already indexed.
+     *
+     * @param gameID  The game.
+     * @param game    The game to index. It is not changed.
+     * @param fromPly The first ply to record.
+     */
+    public void addGame(int gameID, ChessGame game, int fromPly) throws DataAccessException {
+        ChessGame replay = Fen.parse(game.getStartPosition());
+        if (fromPly == 0) {
+            add(replay.getPositionHash(), gameID, 0);
+        }
+        int ply = 0;
+        for (ChessMove move : game.getMoveHistory()) {
+            try {
+                replay.makeMove(move);
+            } catch (InvalidMoveException e) {
+                throw new DataAccessException("Game " + gameID + " has an illegal move at ply " + ply);
+            }
+            if (++ply >= fromPly) {
+                add(replay.getPositionHash(), gameID, ply);
+            }
+        }
+    }
+
+    /**
+     * Gets the last ply recorded for a game, whether it is still pending or in a segment. After a
+     * crash this is the last ply that reached a segment, so a writer can index the plies after it again.
+     *
+     * @param gameID The game.
+     * @return The ply, or -1 if nothing is recorded for the game
+     */
+    public synchronized int lastIndexedPly(int gameID) {
+        Integer ply = pendingPlies.get(gameID);
+        if (ply == null) {
+            ply = flushedPlies.get(gameID);
+        }
+        return ply == null ? -1 : ply;
+    }
+
+    /**
+     * Finds everywhere a position occurred.
+     *
+     * @param hash The position's hash.
+     * @return The postings, ordered by game and then ply.
+     */
+    public List<Posting> find(long hash) {
+        long[] packed;
+        int count;
+        synchronized (this) {
+            PostingList list = pending.get(hash);
+            packed = list == null ? new long[0] : Arrays.copyOf(list.values, list.size);
+            count = packed.length;
+        }
+        for (Segment segment : segments) {
+            int at = segment.indexOf(hash);
+            if (at >= 0) {
+                int found = segment.count(at);
+                if (count + found > packed.length) {
+                    packed = Arrays.copyOf(packed, count + found);
+                }
+                segment.read(at, packed, count);
+                count += found;
+            }
+        }
+        Arrays.sort(packed, 0, count);
+        List<Posting> postings = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            if (i == 0 || packed[i] != packed[i - 1]) {
+                postings.add(new Posting((int) (packed[i] >>> 32), (int) packed[i]));
+            }
+        }
+        return postings;
+    }
+
+    /**
+     * Finds every game that reached the given game's current position.
+     */
+    public List<Posting> find(ChessGame game) {
+        return find(game.getPositionHash());
+    }
+
+    /**
+     * Writes the pending postings to a new segment, then compacts if there are more than the maximum
+     * number of segments.
+     */
+    public synchronized void flush() throws DataAccessException {
+        if (pending.isEmpty()) {
+            return;
+        }
+        long[] hashes = new long[pending.size()];
+        int i = 0;
+        for (long hash : pending.keySet()) {
+            hashes[i++] = hash;
+        }
+        Arrays.sort(hashes);
+
+        Path file = segmentPath(nextSegment);
+        try (SegmentWriter writer = new SegmentWriter(file, hashes.length)) {
+            for (long hash : hashes) {
+                PostingList list = pending.get(hash);
+                Arrays.sort(list.values, 0, list.size);
+                writer.add(hash, list.values, list.size);
+            }
+            writer.finish();
+            addSegment(Segment.open(file), List.of());
+            flushedPlies.putAll(pendingPlies);
+            writePlies();
+        } catch (IOException e) {
+            throw new DataAccessException("Unable to write position index segment: " + e.getMessage());
+        }
+        nextSegment++;
+        pending.clear();
+        pendingPlies.clear();
+        pendingCount = 0;
+        if (segments.size() > maxSegments) {
+            compact();
+        }
+    }
+
+    /**
+     * Flushes and then merges all segments into one, so lookups touch a single file.
+     */
+    public synchronized void compact() throws DataAccessException {
+        flush();
+        List<Segment> old = segments;
+        if (old.size() < 2) {
+            return;
+        }
+        int keys = 0;
+        for (Segment segment : old) {
+            keys += segment.keyCount;
+        }
+
+        Path file = segmentPath(nextSegment);
+        int[] cursors = new int[old.size()];
+        long[] merged = new long[64];
+        try (SegmentWriter writer = new SegmentWriter(file, keys)) {
+            while (true) {
+                // Take the smallest hash any segment is at, and all of its postings
+                boolean any = false;
+                long hash = Long.MAX_VALUE;
+                for (int s = 0; s < old.size(); s++) {
+                    if (cursors[s] < old.get(s).keyCount) {
+                        long candidate = old.get(s).hashAt(cursors[s]);
+                        if (!any || candidate < hash) {
+                            hash = candidate;
+                            any = true;
+                        }
+                    }
+                }
+                if (!any) {
+                    break;
+                }
+                int count = 0;
+                for (int s = 0; s < old.size(); s++) {
+                    Segment segment = old.get(s);
+                    if (cursors[s] < segment.keyCount && segment.hashAt(cursors[s]) == hash) {
+                        int found = segment.count(cursors[s]);
+                        if (count + found > merged.length) {
+                            merged = Arrays.copyOf(merged, Math.max(merged.length * 2, count + found));
+                        }
+                        segment.read(cursors[s], merged, count);
+                        count += found;
+                        cursors[s]++;
+                    }
+                }
+                Arrays.sort(merged, 0, count);
+                writer.add(hash, merged, count);
+            }
+            writer.finish();
+            addSegment(Segment.open(file), old);
+        } catch (IOException e) {
+            throw new DataAccessException("Unable to compact position index: " + e.getMessage());
+        }
+        nextSegment++;
+        for (Segment segment : old) {
+            try {
+                Files.deleteIfExists(segment.file);
+            } catch (IOException e) {
+                throw new DataAccessException("Unable to delete compacted segment: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * @return The number of segment files
+     */
+    public int segmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * Helper method to load the last flushed ply of each game, if the plies file exists.
+     */
+    private void readPlies() throws IOException {
+        Path file = directory.resolve(PLIES_FILE);
+        if (!Files.exists(file)) {
+            return;
+        }
+        ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(file));
+        int count = bytes.getInt();
+        if (bytes.remaining() != count * 8L) {
+            throw new IOException("Corrupt plies file " + file);
+        }
+        for (int i = 0; i < count; i++) {
+            flushedPlies.put(bytes.getInt(), bytes.getInt());
+        }
+    }
+
+    /**
+     * Helper method to replace the plies file with the last flushed ply of each game.
+     */
+    private void writePlies() throws IOException {
+        ByteBuffer bytes = ByteBuffer.allocate(4 + flushedPlies.size() * 8);
+        bytes.putInt(flushedPlies.size());
+        flushedPlies.forEach((gameID, ply) -> bytes.putInt(gameID).putInt(ply));
+        Path file = directory.resolve(PLIES_FILE);
+        Path temp = file.resolveSibling(PLIES_FILE + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            bytes.flip();
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void addSegment(Segment added, List<Segment> replaced) {
+        List<Segment> updated = new ArrayList<>(segments);
+        updated.removeAll(replaced);
+        updated.add(added);
+        segments = List.copyOf(updated);
+    }
+
+    private Path segmentPath(int number) {
+        return directory.resolve(String.format("positions-%08d%s", number, SEGMENT_SUFFIX));
+    }
+
+    private static int segmentNumber(Path file) {
+        String name = file.getFileName().toString();
+        try {
+            return Integer.parseInt(name.substring(name.indexOf('-') + 1, name.length() - SEGMENT_SUFFIX.length()));
+        } catch (RuntimeException e) {
+            return -1;
+        }
+    }
+
+    private static long pack(int gameID, int ply) {
+        return (long) gameID << 32 | ply;
+    }
+
+    private static final class PostingList {
+        private long[] values = new long[4];
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+
+    /**
+     * A memory-mapped segment file.
+     */
+    private static final class Segment {
+        private final Path file;
+        private final MappedByteBuffer map;
+        private final long keyTableOffset;
+        private final int keyCount;
+        private final BloomFilter bloom;
+
+        private Segment(Path file, MappedByteBuffer map, long keyTableOffset, int keyCount, BloomFilter bloom) {
+            this.file = file;
+            this.map = map;
+            this.keyTableOffset = keyTableOffset;
+            this.keyCount = keyCount;
+            this.bloom = bloom;
+        }
+
+        static Segment open(Path file) throws IOException {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                long size = channel.size();
+                if (size < TRAILER_SIZE || size > Integer.MAX_VALUE) {
+                    throw new IOException("Bad segment size in " + file);
+                }
+                MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                int trailer = (int) size - TRAILER_SIZE;
+                long keyTableOffset = map.getLong(trailer);
+                int keyCount = map.getInt(trailer + 8);
+                int bloomWords = map.getInt(trailer + 12);
+                if (map.getInt(trailer + 16) != MAGIC
+                        || keyTableOffset + (long) keyCount * KEY_ENTRY_SIZE + bloomWords * 8L != trailer) {
+                    throw new IOException("Corrupt segment " + file);
+                }
+                ByteBuffer bloomBytes = map.duplicate().position((int) (keyTableOffset + (long) keyCount * KEY_ENTRY_SIZE));
+                return new Segment(file, map, keyTableOffset, keyCount, BloomFilter.readFrom(bloomBytes, bloomWords));
+            }
+        }
+
+        /**
+         * @return The key table index of the hash, or -1 if the segment does not have it
+         */
+        int indexOf(long hash) {
+            if (!bloom.mightContain(hash)) {
+                return -1;
+            }
+            int low = 0;
+            int high = keyCount - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                long midHash = hashAt(mid);
+                if (midHash < hash) {
+                    low = mid + 1;
+                } else if (midHash > hash) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -1;
+        }
+
+        long hashAt(int index) {
+            return map.getLong(entry(index));
+        }
+
+        int count(int index) {
+            return map.getInt(entry(index) + 16);
+        }
+
+        /**
+         * Decodes the postings of a key table entry into {@code out} starting at {@code from}.
+         */
+        void read(int index, long[] out, int from) {
+            int position = (int) map.getLong(entry(index) + 8);
+            int count = count(index);
+            long value = 0;
+            for (int i = 0; i < count; i++) {
+                long delta = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = map.get(position++);
+                    delta |= (long) (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+                value += delta;
+                out[from + i] = value;
+            }
+        }
+
+        private int entry(int index) {
+            return (int) (keyTableOffset + (long) index * KEY_ENTRY_SIZE);
+        }
+    }
+
+    /**
+     * Streams a new segment to a temporary file and moves it into place when finished.
+     */
+    private static final class SegmentWriter implements AutoCloseable {
+        private final Path file;
+        private final Path temp;
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(64 << 10);
+        private final BloomFilter bloom;
+        private final ByteBuffer keyTable;
+        private long written;
+        private int keyCount;
+        private boolean finished;
+
+        SegmentWriter(Path file, int expectedKeys) throws IOException {
+            this.file = file;
+            this.temp = file.resolveSibling(file.getFileName() + ".tmp");
+            this.channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            this.bloom = new BloomFilter(expectedKeys);
+            this.keyTable = ByteBuffer.allocate(expectedKeys * KEY_ENTRY_SIZE);
+        }
+
+        /**
+         * Adds a hash's postings, which must be sorted. Duplicates are dropped.
+         */
+        void add(long hash, long[] sorted, int size) throws IOException {
+            long offset = written + buffer.position();
+            long previous = 0;
+            int count = 0;
+            for (int i = 0; i < size; i++) {
+                if (i > 0 && sorted[i] == previous) {
+                    continue;
+                }
+                if (buffer.remaining() < 10) {
+                    drain();
+                }
+                long delta = sorted[i] - previous;
+                while ((delta & ~0x7FL) != 0) {
+                    buffer.put((byte) (delta | 0x80));
+                    delta >>>= 7;
+                }
+                buffer.put((byte) delta);
+                previous = sorted[i];
+                count++;
+            }
+            keyTable.putLong(hash).putLong(offset).putInt(count);
+            bloom.add(hash);
+            keyCount++;
+        }
+
+        void finish() throws IOException {
+            drain();
+            long keyTableOffset = written;
+            keyTable.flip();
+            writeFully(keyTable);
+            ByteBuffer tail = ByteBuffer.allocate(bloom.wordCount() * 8 + TRAILER_SIZE);
+            bloom.writeTo(tail);
+            tail.putLong(keyTableOffset).putInt(keyCount).putInt(bloom.wordCount()).putInt(MAGIC);
+            tail.flip();
+            writeFully(tail);
+            channel.force(true);
+            channel.close();
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+            finished = true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!finished) {
+                channel.close();
+                Files.deleteIfExists(temp);
+            }
+        }
+
+        private void drain() throws IOException {
+            buffer.flip();
+            written += writeFully(buffer);
+            buffer.clear();
+        }
+
+        private int writeFully(ByteBuffer bytes) throws IOException {
+            int total = bytes.remaining();
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            return total;
+        }
+    }
+}
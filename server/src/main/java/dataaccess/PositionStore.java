@@ -0,0 +1,325 @@
+package dataaccess;
+
+import chess.ChessGame;
+import chess.PositionCodec;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Keeps the {@link PositionCodec} encoding of every resident game off the Java heap, so the garbage
+ * collector does not have to trace board state for hundreds of thousands of games.
+ * <p>
+ * Positions live in fixed-size slots inside direct buffers allocated in chunks. Each slot starts
+ * with a version number used as a sequence lock: a writer makes it odd while it copies the position
+ * in and even again afterwards, and a reader retries if the version was odd or changed while it copied
+ * the position out. Readers and writers of different slots never block each other. Only adding and
+ * removing games and {@link #compact()}, which moves slots down to fill the holes left by removed
+ * games and releases empty chunks, take the store's exclusive lock.
+ */
+public class PositionStore {
+    private static final int SLOTS_PER_CHUNK = 1 << 14;
+    // Version (4 bytes), gameID (4), encoded position
+    private static final int SLOT_SIZE = 8 + PositionCodec.ENCODED_SIZE;
+    private static final VarHandle INT = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+    private static final ThreadLocal<ByteBuffer> SCRATCH =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocate(PositionCodec.ENCODED_SIZE));
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+    private final SlotMap slots = new SlotMap();
+    private int[] freeSlots = new int[16];
+    private int freeCount;
+    // Slots at or past this index have never been used
+    private int slotLimit;
+
+    /**
+     * Stores a game's current position, replacing any position already stored for the game.
+     *
+     * @param gameID The game's ID, which must be positive.
+     * @param game   The game to store. It is not changed.
+     */
+    public void put(int gameID, ChessGame game) {
+        if (gameID <= 0) {
+            throw new IllegalArgumentException("gameID must be positive");
+        }
+        ByteBuffer scratch = SCRATCH.get().clear();
+        PositionCodec.encode(game, scratch);
+
+        lock.readLock().lock();
+        try {
+            int slot = slots.get(gameID);
+            if (slot >= 0) {
+                write(slot, scratch);
+                return;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        lock.writeLock().lock();
+        try {
+            int slot = slots.get(gameID);
+            if (slot < 0) {
+                slot = allocate();
+                chunk(slot).putInt(offset(slot) + 4, gameID);
+                slots.put(gameID, slot);
+            }
+            write(slot, scratch);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Loads a stored position into a game, reusing its board.
+     *
+     * @param gameID The game's ID.
+     * @param game   The game to load into.
+     * @return false if no position is stored for the game, in which case {@code game} is unchanged
+     */
+    public boolean get(int gameID, ChessGame game) {
+        ByteBuffer scratch = SCRATCH.get().clear();
+        lock.readLock().lock();
+        try {
+            int slot = slots.get(gameID);
+            if (slot < 0) {
+                return false;
+            }
+            read(slot, scratch);
+        } finally {
+            lock.readLock().unlock();
+        }
+        PositionCodec.decode(scratch, game);
+        return true;
+    }
+
+    /**
+     * Forgets a game's position. Its slot is reused by later games.
+     *
+     * @return false if no position was stored for the game
+     */
+    public boolean remove(int gameID) {
+        lock.writeLock().lock();
+        try {
+            int slot = slots.remove(gameID);
+            if (slot < 0) {
+                return false;
+            }
+            chunk(slot).putInt(offset(slot) + 4, 0);
+            if (freeCount == freeSlots.length) {
+                freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+            }
+            freeSlots[freeCount++] = slot;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Moves the last used slots into the holes left by removed games and frees the chunks no longer needed.
+     */
+    public void compact() {
+        lock.writeLock().lock();
+        try {
+            int live = slots.size();
+            // Fill each hole below the live count with a slot from above it
+            Arrays.sort(freeSlots, 0, freeCount);
+            int from = slotLimit - 1;
+            for (int i = 0; i < freeCount && freeSlots[i] < live; i++) {
+                int hole = freeSlots[i];
+                while (chunk(from).getInt(offset(from) + 4) == 0) {
+                    from--;
+                }
+                int gameID = chunk(from).getInt(offset(from) + 4);
+                ByteBuffer target = chunk(hole);
+                target.put(offset(hole), chunk(from), offset(from), SLOT_SIZE);
+                chunk(from).putInt(offset(from) + 4, 0);
+                slots.put(gameID, hole);
+                from--;
+            }
+            freeCount = 0;
+            slotLimit = live;
+            int chunksNeeded = (live + SLOTS_PER_CHUNK - 1) / SLOTS_PER_CHUNK;
+            while (chunks.size() > chunksNeeded) {
+                // Dropping the last reference lets the cleaner release the native memory
+                chunks.remove(chunks.size() - 1);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return The number of games stored
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slots.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return The number of bytes of native memory the store holds
+     */
+    public long offHeapBytes() {
+        lock.readLock().lock();
+        try {
+            return (long) chunks.size() * SLOTS_PER_CHUNK * SLOT_SIZE;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int allocate() {
+        if (freeCount > 0) {
+            return freeSlots[--freeCount];
+        }
+        if (slotLimit == chunks.size() * SLOTS_PER_CHUNK) {
+            chunks.add(ByteBuffer.allocateDirect(SLOTS_PER_CHUNK * SLOT_SIZE).order(ByteOrder.nativeOrder()));
+        }
+        return slotLimit++;
+    }
+
+    /**
+     * Helper method to copy an encoded position into a slot under its sequence lock.
+     */
+    private void write(int slot, ByteBuffer encoded) {
+        ByteBuffer chunk = chunk(slot);
+        int offset = offset(slot);
+        int version;
+        do {
+            version = (int) INT.getVolatile(chunk, offset);
+        } while ((version & 1) != 0 || !INT.compareAndSet(chunk, offset, version, version + 1));
+        chunk.put(offset + 8, encoded, 0, PositionCodec.ENCODED_SIZE);
+        INT.setRelease(chunk, offset, version + 2);
+    }
+
+    /**
+     * Helper method to copy a slot's encoded position out, retrying until no write overlapped the copy.
+     */
+    private void read(int slot, ByteBuffer out) {
+        ByteBuffer chunk = chunk(slot);
+        int offset = offset(slot);
+        while (true) {
+            int before = (int) INT.getAcquire(chunk, offset);
+            if ((before & 1) == 0) {
+                out.put(0, chunk, offset + 8, PositionCodec.ENCODED_SIZE);
+                VarHandle.loadLoadFence();
+                if ((int) INT.getVolatile(chunk, offset) == before) {
+                    return;
+                }
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    private ByteBuffer chunk(int slot) {
+        return chunks.get(slot / SLOTS_PER_CHUNK);
+    }
+
+    private static int offset(int slot) {
+        return (slot % SLOTS_PER_CHUNK) * SLOT_SIZE;
+    }
+
+    /**
+     * An open-addressing map from positive game IDs to slot numbers, with 0 marking an empty key.
+     */
+    private static final class SlotMap {
+        private int[] keys = new int[64];
+        private int[] values = new int[64];
+        private int size;
+
+        int size() {
+            return size;
+        }
+
+        /**
+         * @return The slot, or -1 if the game has none
+         */
+        int get(int key) {
+            int mask = keys.length - 1;
+            for (int i = home(key, mask); keys[i] != 0; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    return values[i];
+                }
+            }
+            return -1;
+        }
+
+        void put(int key, int value) {
+            int mask = keys.length - 1;
+            int i = home(key, mask);
+            while (keys[i] != 0 && keys[i] != key) {
+                i = (i + 1) & mask;
+            }
+            if (keys[i] == 0) {
+                if ((size + 1) * 2 > keys.length) {
+                    grow();
+                    put(key, value);
+                    return;
+                }
+                keys[i] = key;
+                size++;
+            }
+            values[i] = value;
+        }
+
+        /**
+         * @return The removed slot, or -1 if the game had none
+         */
+        int remove(int key) {
+            int mask = keys.length - 1;
+            int i = home(key, mask);
+            while (keys[i] != key) {
+                if (keys[i] == 0) {
+                    return -1;
+                }
+                i = (i + 1) & mask;
+            }
+            int removed = values[i];
+            // Shift later entries of the run back so lookups never stop at the new gap too early
+            int gap = i;
+            for (int j = (i + 1) & mask; keys[j] != 0; j = (j + 1) & mask) {
+                int want = home(keys[j], mask);
+                if (((j - want) & mask) >= ((j - gap) & mask)) {
+                    keys[gap] = keys[j];
+                    values[gap] = values[j];
+                    gap = j;
+                }
+            }
+            keys[gap] = 0;
+            size--;
+            return removed;
+        }
+
+        private void grow() {
+            int[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new int[oldKeys.length * 2];
+            values = new int[oldKeys.length * 2];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0) {
+                    put(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+
+        private static int home(int key, int mask) {
+            int hash = key * 0x9E3779B9;
+            return (hash ^ (hash >>> 16)) & mask;
+        }
+    }
+}
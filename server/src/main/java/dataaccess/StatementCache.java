@@ -0,0 +1,194 @@
+package dataaccess;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The prepared statements of one pooled connection, kept open across borrows and keyed by SQL text.
+ * <p>
+ * Borrowers get a wrapper whose {@code close()} clears the parameters and any pending batch, puts
+ * back the fetch size, max rows and query timeout the statement was prepared with, and keeps the
+ * statement for the next {@code prepareStatement} call with the same SQL. Once the cache is full the least recently
+ * used statement is really closed. A statement that is still open when the same SQL is prepared again
+ * is not shared; the second caller gets an uncached one.
+ */
+final class StatementCache {
+    // Statement settings a borrower may change, which are put back when it closes the statement
+    private static final Set<String> SETTINGS = Set.of("setFetchSize", "setMaxRows", "setLargeMaxRows",
+            "setQueryTimeout");
+
+    private final Connection physical;
+    private final Connection owner;
+    private final ConcurrentMap<String, Counts> counts;
+    private final LinkedHashMap<String, CachedStatement> statements;
+
+    /**
+     * Hits and misses for one SQL text, across all connections of a pool.
+     */
+    static final class Counts {
+        final LongAdder hits = new LongAdder();
+        final LongAdder misses = new LongAdder();
+    }
+
+    /**
+     * @param physical The connection statements are prepared on.
+     * @param owner    The connection proxy that borrowers see, returned by {@code getConnection()}.
+     * @param capacity The most statements kept open.
+     * @param counts   Where hits and misses are counted.
+     */
+    StatementCache(Connection physical, Connection owner, int capacity, ConcurrentMap<String, Counts> counts) {
+        this.physical = physical;
+        this.owner = owner;
+        this.counts = counts;
+        this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedStatement> eldest) {
+                if (size() <= capacity) {
+                    return false;
+                }
+                eldest.getValue().discard();
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Handles {@code prepareStatement(sql)} and {@code prepareStatement(sql, autoGeneratedKeys)}.
+     */
+    PreparedStatement prepare(Method method, Object[] args) throws Throwable {
+        String sql = (String) args[0];
+        String key = args.length == 1 ? sql : sql + '\u0000' + args[1];
+        Counts count = counts.computeIfAbsent(sql, s -> new Counts());
+
+        CachedStatement cached = statements.get(key);
+        if (cached != null && !cached.inUse) {
+            count.hits.increment();
+            cached.inUse = true;
+            return cached.proxy;
+        }
+        count.misses.increment();
+        PreparedStatement statement = (PreparedStatement) invoke(method, physical, args);
+        if (cached != null) {
+            // The cached one is still open; this caller gets its own and closes it for real
+            return statement;
+        }
+        CachedStatement created = new CachedStatement(statement);
+        created.inUse = true;
+        statements.put(key, created);
+        return created.proxy;
+    }
+
+    private static Object invoke(Method method, Object target, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * A physical statement and the proxy handed to borrowers.
+     */
+    private final class CachedStatement implements InvocationHandler {
+        private final PreparedStatement physical;
+        private final PreparedStatement proxy;
+        private final int fetchSize;
+        private final int maxRows;
+        private final int queryTimeout;
+        private boolean inUse;
+        private boolean discarded;
+        private boolean settingsChanged;
+
+        CachedStatement(PreparedStatement physical) throws SQLException {
+            this.physical = physical;
+            this.fetchSize = physical.getFetchSize();
+            this.maxRows = physical.getMaxRows();
+            this.queryTimeout = physical.getQueryTimeout();
+            this.proxy = (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class}, this);
+        }
+
+        /**
+         * Helper method to leave the statement as the next borrower expects to find it.
+         */
+        private void reset() throws SQLException {
+            physical.clearParameters();
+            physical.clearBatch();
+            if (settingsChanged) {
+                physical.setFetchSize(fetchSize);
+                physical.setMaxRows(maxRows);
+                physical.setQueryTimeout(queryTimeout);
+                settingsChanged = false;
+            }
+        }
+
+        /**
+         * Closes the physical statement once no borrower is using it.
+         */
+        void discard() {
+            discarded = true;
+            if (!inUse) {
+                closeQuietly();
+            }
+        }
+
+        private void closeQuietly() {
+            try {
+                physical.close();
+            } catch (SQLException e) {
+                // The statement is being dropped either way
+            }
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close" -> {
+                    if (inUse) {
+                        inUse = false;
+                        if (discarded) {
+                            closeQuietly();
+                        } else {
+                            reset();
+                        }
+                    }
+                    return null;
+                }
+                case "isClosed" -> {
+                    return !inUse || physical.isClosed();
+                }
+                case "getConnection" -> {
+                    return owner;
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "toString" -> {
+                    return "Cached " + physical;
+                }
+                default -> {
+                    if (!inUse) {
+                        throw new SQLException("Statement is closed");
+                    }
+                    if (SETTINGS.contains(method.getName())) {
+                        settingsChanged = true;
+                    }
+                    return StatementCache.invoke(method, physical, args);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package dataaccess;
+
+import model.UserData;
+
+/**
+ * Stores registered users.
+ */
+public interface UserDAO {
+    /**
+     * @throws DataAccessException if a user with that username already exists
+     */
+    void createUser(UserData user) throws DataAccessException;
+
+    /**
+     * @return The user, or null if there is no user with that username
+     */
+    UserData getUser(String username) throws DataAccessException;
+
+    void clear() throws DataAccessException;
+}
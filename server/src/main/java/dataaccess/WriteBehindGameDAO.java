@@ -0,0 +1,579 @@
+package dataaccess;
+
+import chess.CompactGame;
+import model.GameData;
+import model.GameSummary;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Puts game updates on a queue and writes them to another {@link GameDAO} in the background, so a
+ * move does not wait for a database round trip.
+ * <p>
+ * Updates to the same game are coalesced: only the latest state of each game is queued. A single
+ * writer thread takes everything queued once the batch size is reached or the oldest update has
+ * waited the flush interval, and hands it to {@link GameDAO#updateGames} in chunks of the batch size,
+ * which for {@link MySqlGameDAO} is one JDBC batch in one transaction per chunk. Because there is only
+ * one writer and a batch is written before the next is taken, a game's states reach the database in
+ * the order they were made. A failed batch is put back behind any newer states and retried.
+ * <p>
+ * When a chunk fails, its games are written one at a time so that one bad game does not hold back the
+ * rest. A game whose own write fails {@link #MAX_ATTEMPTS} times while other games are written is set
+ * aside: it leaves the queue, reads see its stored state again, and {@link #getSetAside()} returns it.
+ * <p>
+ * Each queued state is copied once when it is queued, through a {@link CompactGame}, so a caller that
+ * keeps playing its game after queueing it does not change the queued state under the writer. Reads and
+ * writes then use that copy as it is, the way {@link MemoryGameDAO} hands out its stored games, so a
+ * caller must not change a game it read from here without queueing it again.
+ * <p>
+ * At most {@code maxPending} games are queued at once. When the queue is full, updates to games not
+ * already queued wait for the writer to catch up, and give up with a {@link DataAccessException}
+ * after the offer timeout. Reads see queued states, so callers never read an older state than they wrote.
+ * Call {@link #flush()} to wait until everything queued so far is written.
+ */
+public class WriteBehindGameDAO implements GameDAO, AutoCloseable {
+    /**
+     * How many times a game's own write may fail before it is set aside.
+     */
+    public static final int MAX_ATTEMPTS = 3;
+
+    private final GameDAO delegate;
+    private final Settings settings;
+    private final Thread writer;
+    private final Set<Integer> known = ConcurrentHashMap.newKeySet();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition work = lock.newCondition();
+    private final Condition space = lock.newCondition();
+    private final Condition written = lock.newCondition();
+    private LinkedHashMap<Integer, Queued> pending = new LinkedHashMap<>();
+    private Map<Integer, Queued> inFlight = Map.of();
+    private final Map<Integer, GameData> setAside = new ConcurrentHashMap<>();
+    private long oldestPendingAt;
+    private long enqueuedSeq;
+    private long writtenSeq;
+    private boolean flushRequested;
+    private boolean closed;
+    private DataAccessException lastError;
+
+    private final LongAdder updates = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder gamesWritten = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder setAsideCount = new LongAdder();
+    private final LongAdder batchNanos = new LongAdder();
+
+    /**
+     * Queue limits, with times in milliseconds.
+     *
+     * @param batchSize     The most games written in one transaction, and the queue length that starts a write early.
+     * @param flushInterval How long an update can wait before it is written.
+     * @param maxPending    The most games queued at once.
+     * @param offerTimeout  How long an update waits for room when the queue is full.
+     * @param retryDelay    How long to wait before retrying a failed write.
+     */
+    public record Settings(int batchSize, long flushInterval, int maxPending, long offerTimeout, long retryDelay) {
+        public Settings {
+            if (batchSize < 1 || maxPending < 1) {
+                throw new IllegalArgumentException("batchSize and maxPending must be positive");
+            }
+        }
+    }
+
+    /**
+     * Counts for the queue.
+     *
+     * @param pending        Games queued and not yet taken by the writer.
+     * @param updates        Updates accepted.
+     * @param coalesced      Updates that replaced a queued state of the same game.
+     * @param batches        Transactions written.
+     * @param written        Game states written.
+     * @param failures       Writes that failed and were retried.
+     * @param setAside       Game states set aside after failing {@link #MAX_ATTEMPTS} times.
+     * @param meanBatchNanos The mean time to write a transaction.
+     */
+    public record Stats(int pending, long updates, long coalesced, long batches, long written, long failures,
+                        long setAside, long meanBatchNanos) {
+    }
+
+    /**
+     * A queued game state, copied so that the caller's later moves do not change it.
+     */
+    private static final class Queued {
+        private final int gameID;
+        private final GameData data;
+        // Built the first time a page of games is listed while this state is queued
+        private GameSummary summary;
+        // Failed writes of this state on its own
+        private int attempts;
+
+        Queued(GameData data) {
+            this.gameID = data.gameID();
+            this.data = new GameData(gameID, data.whiteUsername(), data.blackUsername(), data.gameName(),
+                    data.game() == null ? null : CompactGame.of(data.game()).toGame());
+        }
+
+        GameSummary summary() {
+            if (summary == null) {
+                summary = GameSummary.of(data);
+            }
+            return summary;
+        }
+    }
+
+    /**
+     * @param delegate Where games are stored. Writes to it happen on one background thread.
+     * @param settings The queue limits.
+     */
+    public WriteBehindGameDAO(GameDAO delegate, Settings settings) {
+        this.delegate = delegate;
+        this.settings = settings;
+        this.writer = new Thread(this::writeLoop, "game-write-behind");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public int createGame(String gameName) throws DataAccessException {
+        int gameID = delegate.createGame(gameName);
+        known.add(gameID);
+        return gameID;
+    }
+
+    @Override
+    public GameData getGame(int gameID) throws DataAccessException {
+        Queued queued;
+        lock.lock();
+        try {
+            queued = pending.get(gameID);
+            if (queued == null) {
+                queued = inFlight.get(gameID);
+            }
+        } finally {
+            lock.unlock();
+        }
+        return queued != null ? queued.data : delegate.getGame(gameID);
+    }
+
+    @Override
+    public Collection<GameData> listGames() throws DataAccessException {
+        List<GameData> games = new ArrayList<>();
+        forEachGame(games::add);
+        return games;
+    }
+
+    /**
+     * Lists a page of games, with queued states in place of stored ones. The delegate is asked for one
+     * extra game per queued game, so the page is still full if every queued game drops out of it.
+     */
+    @Override
+    public List<GameSummary> listGames(GameQuery query) throws DataAccessException {
+        Map<Integer, Queued> overlay = queued();
+        overlay.keySet().removeIf(gameID -> gameID <= query.after());
+        if (overlay.isEmpty()) {
+            return delegate.listGames(query);
+        }
+        int limit = query.limit() + overlay.size();
+        List<GameSummary> stored = delegate.listGames(new GameQuery(query.after(), limit, query.openSeat(),
+                query.player(), query.finished()));
+        // Past the last stored game of a full page there may be stored games not read yet
+        int bound = stored.size() == limit ? stored.get(limit - 1).gameID() : Integer.MAX_VALUE;
+        TreeMap<Integer, GameSummary> page = new TreeMap<>();
+        for (GameSummary game : stored) {
+            if (!overlay.containsKey(game.gameID())) {
+                page.put(game.gameID(), game);
+            }
+        }
+        for (Queued game : overlay.values()) {
+            if (game.gameID <= bound) {
+                GameSummary summary = game.summary();
+                if (query.matches(summary)) {
+                    page.put(game.gameID, summary);
+                }
+            }
+        }
+        return page.values().stream().limit(query.limit()).toList();
+    }
+
+    /**
+     * Queues a game's new state. Returns once it is queued, not once it is written.
+     *
+     * @throws DataAccessException if there is no game with that ID, or the queue stayed full for the offer timeout
+     */
+    @Override
+    public void updateGame(GameData game) throws DataAccessException {
+        int gameID = game.gameID();
+        if (!known.contains(gameID)) {
+            // Checked once per game so a bad ID fails here rather than stalling the writer
+            if (delegate.getGame(gameID) == null) {
+                throw new DataAccessException("No game with ID " + gameID);
+            }
+            known.add(gameID);
+        }
+        Queued queued = new Queued(game);
+
+        lock.lock();
+        try {
+            long remaining = TimeUnit.MILLISECONDS.toNanos(settings.offerTimeout());
+            while (!closed && pending.size() >= settings.maxPending() && !pending.containsKey(gameID)) {
+                if (remaining <= 0) {
+                    throw new DataAccessException("Timed out after " + settings.offerTimeout()
+                            + "ms waiting for room in the game write queue");
+                }
+                remaining = space.awaitNanos(remaining);
+            }
+            if (closed) {
+                throw new DataAccessException("Game writer is closed");
+            }
+            if (pending.isEmpty()) {
+                oldestPendingAt = System.nanoTime();
+            }
+            if (pending.put(gameID, queued) != null) {
+                coalesced.increment();
+            }
+            setAside.remove(gameID);
+            updates.increment();
+            enqueuedSeq++;
+            if (pending.size() >= settings.batchSize() || pending.size() == 1) {
+                work.signal();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DataAccessException("Interrupted while waiting for room in the game write queue");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Passes every game to an action, with queued states in place of stored ones.
+     */
+    @Override
+    public void forEachGame(Consumer<GameData> action) throws DataAccessException {
+        Map<Integer, Queued> overlay = queued();
+        delegate.forEachGame(game -> action.accept(overlaid(overlay, game)));
+    }
+
+    @Override
+    public void forEachGame(Consumer<GameData> action, BiConsumer<Integer, DataAccessException> failed)
+            throws DataAccessException {
+        Map<Integer, Queued> overlay = queued();
+        delegate.forEachGame(game -> action.accept(overlaid(overlay, game)), failed);
+    }
+
+    /**
+     * Passes every game's move log, with the log of a queued state in place of the stored one.
+     */
+    @Override
+    public void forEachGameLog(Consumer<GameLog> action, BiConsumer<Integer, DataAccessException> failed)
+            throws DataAccessException {
+        Map<Integer, Queued> overlay = queued();
+        delegate.forEachGameLog(log -> {
+            Queued queued = overlay.get(log.gameID());
+            action.accept(queued != null ? GameLog.of(queued.data) : log);
+        }, failed);
+    }
+
+    /**
+     * Drops queued updates, waits for any write in progress, and clears the stored games.
+     */
+    @Override
+    public void clear() throws DataAccessException {
+        lock.lock();
+        try {
+            // A failed write puts its games back in the queue, so repeat until both are empty
+            do {
+                pending.clear();
+                while (!inFlight.isEmpty()) {
+                    written.awaitUninterruptibly();
+                }
+            } while (!pending.isEmpty());
+            writtenSeq = enqueuedSeq;
+            space.signalAll();
+            written.signalAll();
+            delegate.clear();
+            known.clear();
+            setAside.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes everything queued so far now, rather than when the batch fills or the interval passes,
+     * and waits for it to be written.
+     *
+     * @throws DataAccessException if a write fails before everything queued so far is written. The
+     *                             updates stay queued and are retried. Also thrown if a game was set
+     *                             aside while waiting.
+     */
+    public void flush() throws DataAccessException {
+        lock.lock();
+        try {
+            if (closed) {
+                throw new DataAccessException("Game writer is closed");
+            }
+            long target = enqueuedSeq;
+            long failuresBefore = failures.sum();
+            long setAsideBefore = setAsideCount.sum();
+            flushRequested = true;
+            work.signal();
+            while (writtenSeq < target) {
+                if (failures.sum() > failuresBefore) {
+                    throw new DataAccessException("Unable to write queued games: " + lastError.getMessage());
+                }
+                written.awaitUninterruptibly();
+            }
+            if (setAsideCount.sum() > setAsideBefore) {
+                throw new DataAccessException("Set aside games that could not be written: " + lastError.getMessage());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return The latest state of each game set aside after its writes kept failing, until the game is
+     *         updated again or the DAO is cleared
+     */
+    public List<GameData> getSetAside() {
+        return List.copyOf(setAside.values());
+    }
+
+    public Stats getStats() {
+        int pendingCount;
+        lock.lock();
+        try {
+            pendingCount = pending.size();
+        } finally {
+            lock.unlock();
+        }
+        long count = batches.sum();
+        return new Stats(pendingCount, updates.sum(), coalesced.sum(), count, gamesWritten.sum(), failures.sum(),
+                setAsideCount.sum(), count == 0 ? 0 : batchNanos.sum() / count);
+    }
+
+    /**
+     * Writes what is queued and stops the writer. Updates are refused from then on.
+     *
+     * @throws DataAccessException if queued games could not be written; they are lost
+     */
+    @Override
+    public void close() throws DataAccessException {
+        lock.lock();
+        try {
+            closed = true;
+            work.signal();
+            space.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        lock.lock();
+        try {
+            if (!pending.isEmpty()) {
+                throw new DataAccessException("Unable to write " + pending.size() + " queued games: "
+                        + lastError.getMessage());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Body of the writer thread: waits for a batch, writes it, and repeats until closed and drained.
+     */
+    private void writeLoop() {
+        lock.lock();
+        try {
+            while (true) {
+                while (pending.isEmpty() && !closed) {
+                    work.awaitUninterruptibly();
+                }
+                if (pending.isEmpty()) {
+                    return;
+                }
+                long remaining = oldestPendingAt + TimeUnit.MILLISECONDS.toNanos(settings.flushInterval())
+                        - System.nanoTime();
+                if (pending.size() < settings.batchSize() && !flushRequested && !closed && remaining > 0) {
+                    work.awaitNanos(remaining);
+                    continue;
+                }
+
+                Map<Integer, Queued> batch = pending;
+                long batchSeq = enqueuedSeq;
+                inFlight = batch;
+                pending = new LinkedHashMap<>();
+                flushRequested = false;
+                space.signalAll();
+
+                LinkedHashMap<Integer, Queued> failed = new LinkedHashMap<>();
+                DataAccessException error;
+                lock.unlock();
+                try {
+                    error = writeBatch(batch.values(), failed);
+                } finally {
+                    lock.lock();
+                }
+
+                inFlight = Map.of();
+                if (error != null) {
+                    lastError = error;
+                    failures.increment();
+                    // Only when the database took other games is a game's own failure held against it
+                    if (failed.size() < batch.size()) {
+                        setAsideRepeatedFailures(failed);
+                    }
+                }
+                if (failed.isEmpty()) {
+                    writtenSeq = batchSeq;
+                } else {
+                    requeue(failed);
+                }
+                written.signalAll();
+                if (!failed.isEmpty()) {
+                    if (closed) {
+                        return;
+                    }
+                    work.await(settings.retryDelay(), TimeUnit.MILLISECONDS);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Helper method to write taken games in transactions of at most the batch size. The games of a
+     * chunk that fails are written one at a time, and the ones that still fail are added to
+     * {@code failed}.
+     *
+     * @return The last failure, or null if every game was written
+     */
+    private DataAccessException writeBatch(Collection<Queued> games, Map<Integer, Queued> failed) {
+        DataAccessException error = null;
+        List<Queued> chunk = new ArrayList<>(Math.min(games.size(), settings.batchSize()));
+        for (Queued game : games) {
+            chunk.add(game);
+            if (chunk.size() == settings.batchSize()) {
+                error = writeChunkOrEach(chunk, failed, error);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            error = writeChunkOrEach(chunk, failed, error);
+        }
+        return error;
+    }
+
+    /**
+     * Helper method to write a chunk, or each of its games on its own if the chunk fails.
+     */
+    private DataAccessException writeChunkOrEach(List<Queued> chunk, Map<Integer, Queued> failed,
+                                                 DataAccessException error) {
+        try {
+            writeChunk(chunk);
+            return error;
+        } catch (DataAccessException | RuntimeException e) {
+            if (chunk.size() == 1) {
+                failed.put(chunk.get(0).gameID, chunk.get(0));
+                return asDataAccessException(e);
+            }
+        }
+        for (Queued game : chunk) {
+            try {
+                writeChunk(List.of(game));
+            } catch (DataAccessException | RuntimeException e) {
+                failed.put(game.gameID, game);
+                error = asDataAccessException(e);
+            }
+        }
+        return error;
+    }
+
+    private void writeChunk(List<Queued> chunk) throws DataAccessException {
+        List<GameData> games = new ArrayList<>(chunk.size());
+        for (Queued game : chunk) {
+            games.add(game.data);
+        }
+        long start = System.nanoTime();
+        delegate.updateGames(games);
+        batchNanos.add(System.nanoTime() - start);
+        batches.increment();
+        gamesWritten.add(chunk.size());
+    }
+
+    private static DataAccessException asDataAccessException(Exception e) {
+        return e instanceof DataAccessException dae ? dae : new DataAccessException(e.toString());
+    }
+
+    /**
+     * Helper method to count a failed write against each game, and set aside the ones that have failed
+     * too often and have no newer state queued.
+     */
+    private void setAsideRepeatedFailures(Map<Integer, Queued> failed) {
+        Iterator<Queued> iterator = failed.values().iterator();
+        while (iterator.hasNext()) {
+            Queued game = iterator.next();
+            if (++game.attempts >= MAX_ATTEMPTS && !pending.containsKey(game.gameID)) {
+                iterator.remove();
+                setAside.put(game.gameID, game.data);
+                setAsideCount.increment();
+            }
+        }
+    }
+
+    /**
+     * Helper method to put back the games of a failed write, behind any newer state queued since.
+     */
+    private void requeue(Map<Integer, Queued> batch) {
+        LinkedHashMap<Integer, Queued> merged = new LinkedHashMap<>(batch);
+        merged.putAll(pending);
+        if (pending.isEmpty()) {
+            oldestPendingAt = System.nanoTime();
+        }
+        pending = merged;
+    }
+
+    /**
+     * Helper method to collect the queued and in-flight states, the queued ones taking precedence.
+     * Only references are copied; a state is looked at only if a caller reaches its game.
+     */
+    private Map<Integer, Queued> queued() {
+        lock.lock();
+        try {
+            Map<Integer, Queued> overlay = new HashMap<>(inFlight);
+            overlay.putAll(pending);
+            return overlay;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static GameData overlaid(Map<Integer, Queued> overlay, GameData stored) {
+        Queued queued = overlay.get(stored.gameID());
+        return queued != null ? queued.data : stored;
+    }
+}
@@ -0,0 +1,17 @@
+package server;
+
+/**
+ * An error reported to the client with a specific HTTP status.
+ */
+class HttpException extends RuntimeException {
+    private final int status;
+
+    HttpException(int status, String message) {
+        super(message);
+        this.status = status;
+    }
+
+    int getStatus() {
+        return status;
+    }
+}
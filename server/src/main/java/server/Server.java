@@ -0,0 +1,365 @@
+package server;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import dataaccess.AsyncDataAccess;
+import dataaccess.DataAccess;
+import dataaccess.DataAccessException;
+import dataaccess.GameQuery;
+import dataaccess.OpeningTree;
+import dataaccess.PositionIndex;
+import chess.Fen;
+import model.AuthData;
+import model.GameData;
+import model.GameSummary;
+import model.UserData;
+import service.PasswordHasher;
+import spark.*;
+import spark.embeddedserver.EmbeddedServers;
+import spark.embeddedserver.jetty.EmbeddedJettyFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+public class Server {
+    /**
+     * How the server runs requests.
+     */
+    public enum RequestThreads {
+        /**
+         * Jetty's pool of platform threads. A request that blocks holds one of them until it is done.
+         */
+        POOLED,
+        /**
+         * A new virtual thread for each request, so requests that block on the database or on
+         * password hashing do not use up a limited pool of threads.
+         */
+        VIRTUAL
+    }
+
+    private static final Logger LOG = LoggerFactory.getLogger(Server.class);
+    private static final Gson GSON = new Gson();
+    // Data access calls allowed to wait for a thread before new ones are refused
+    private static final int DATA_ACCESS_QUEUE = 1000;
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 100;
+    // Password hashing gets half the cores, so a burst of logins leaves the rest for everything else
+    private static final PasswordHasher.Settings PASSWORD_HASHING = new PasswordHasher.Settings(
+            Math.max(1, Runtime.getRuntime().availableProcessors() / 2), 100, 10);
+
+    /**
+     * One page of the game list.
+     *
+     * @param games      The games on the page.
+     * @param nextCursor The cursor of the next page, or null if this is the last.
+     */
+    private record GamePage(List<GameSummary> games, String nextCursor) {
+    }
+
+    private final Path dataDirectory;
+    private final RequestThreads requestThreads;
+    private DataAccess dataAccess;
+    private AsyncDataAccess asyncDataAccess;
+    private PasswordHasher passwordHasher;
+    private PositionIndex positionIndex;
+    private OpeningTree openingTree;
+
+    public Server() {
+        this(Path.of("data"));
+    }
+
+    public Server(Path dataDirectory) {
+        this(dataDirectory, RequestThreads.POOLED);
+    }
+
+    /**
+     * @param dataDirectory  The directory the server keeps its files in.
+     * @param requestThreads How requests are run.
+     */
+    public Server(Path dataDirectory, RequestThreads requestThreads) {
+        this.dataDirectory = dataDirectory;
+        this.requestThreads = requestThreads;
+    }
+
+    public int run(int desiredPort) {
+        try {
+            positionIndex = new PositionIndex(dataDirectory.resolve("positions"));
+            openingTree = new OpeningTree(dataDirectory.resolve("opening-tree.bin"));
+            dataAccess = DataAccess.open().withIndexes(positionIndex, openingTree);
+            asyncDataAccess = new AsyncDataAccess(dataAccess, DATA_ACCESS_QUEUE);
+            passwordHasher = new PasswordHasher(PASSWORD_HASHING);
+        } catch (DataAccessException e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+
+        // Spark keeps one Jetty factory for the whole process, so it is set again on every run
+        EmbeddedServers.add(EmbeddedServers.Identifiers.JETTY, switch (requestThreads) {
+            case POOLED -> new EmbeddedJettyFactory();
+            case VIRTUAL -> new EmbeddedJettyFactory().withThreadPool(new VirtualThreadPool());
+        });
+        Spark.port(desiredPort);
+
+        Spark.staticFiles.location("web");
+
+        // Register your endpoints and handle exceptions here.
+        Spark.get("/position", this::findPosition);
+        Spark.get("/opening", this::openingMoves);
+        Spark.get("/game", this::listGames);
+        Spark.get("/game/:gameID", this::getGame);
+        Spark.post("/user", this::register);
+        Spark.post("/session", this::login);
+        Spark.delete("/session", this::logout);
+        Spark.exception(IllegalArgumentException.class, (e, req, res) -> error(res, 400, e));
+        Spark.exception(HttpException.class, (e, req, res) -> error(res, e.getStatus(), e));
+        Spark.exception(RejectedExecutionException.class, (e, req, res) -> error(res, 503, e));
+        Spark.exception(DataAccessException.class, (e, req, res) -> error(res, 500, e));
+
+        Spark.awaitInitialization();
+        return Spark.port();
+    }
+
+    public void stop() {
+        Spark.stop();
+        Spark.awaitStop();
+        try {
+            if (positionIndex != null) {
+                positionIndex.flush();
+            }
+            if (openingTree != null) {
+                openingTree.snapshot();
+            }
+            if (passwordHasher != null) {
+                passwordHasher.close();
+            }
+            if (asyncDataAccess != null) {
+                asyncDataAccess.close();
+            }
+            if (dataAccess != null) {
+                dataAccess.close();
+            }
+        } catch (DataAccessException e) {
+            LOG.error("Unable to save data: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * @return The DAOs of the storage engine chosen in db.properties
+     */
+    public DataAccess getDataAccess() {
+        return dataAccess;
+    }
+
+    /**
+     * @return The pool that hashes and checks passwords
+     */
+    public PasswordHasher getPasswordHasher() {
+        return passwordHasher;
+    }
+
+    /**
+     * @return The index of positions reached in played games
+     */
+    public PositionIndex getPositionIndex() {
+        return positionIndex;
+    }
+
+    /**
+     * @return The win, draw and loss counts of opening moves in finished games
+     */
+    public OpeningTree getOpeningTree() {
+        return openingTree;
+    }
+
+    /**
+     * Lists the games that reached the position given by the {@code fen} query parameter.
+     */
+    private Object findPosition(Request req, Response res) throws DataAccessException {
+        authorize(asyncDataAccess.getAuth(req.headers("authorization")));
+        String fen = req.queryParams("fen");
+        if (fen == null) {
+            throw new IllegalArgumentException("Error: missing fen");
+        }
+        res.type("application/json");
+        return GSON.toJson(Map.of("games", positionIndex.find(Fen.parse(fen))));
+    }
+
+    /**
+     * Lists the moves played from the position given by the {@code fen} query parameter, with their results.
+     */
+    private Object openingMoves(Request req, Response res) throws DataAccessException {
+        authorize(asyncDataAccess.getAuth(req.headers("authorization")));
+        String fen = req.queryParams("fen");
+        if (fen == null) {
+            throw new IllegalArgumentException("Error: missing fen");
+        }
+        res.type("application/json");
+        return GSON.toJson(Map.of("moves", openingTree.movesFrom(Fen.parse(fen).getPositionHash())));
+    }
+
+    /**
+     * Lists one page of games without their boards. The {@code cursor} query parameter continues from
+     * the previous page's {@code nextCursor}, {@code limit} sets the page size, and {@code open=true},
+     * {@code mine=true} and {@code finished=true|false} filter the games.
+     */
+    private Object listGames(Request req, Response res) throws DataAccessException {
+        AuthData auth = authorize(asyncDataAccess.getAuth(req.headers("authorization")));
+        int after = intParam(req, "cursor", 0);
+        int limit = intParam(req, "limit", DEFAULT_PAGE_SIZE);
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Error: limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        String finished = req.queryParams("finished");
+        if (finished != null && !finished.equals("true") && !finished.equals("false")) {
+            throw new IllegalArgumentException("Error: bad request");
+        }
+        GameQuery query = new GameQuery(after, limit, "true".equals(req.queryParams("open")),
+                "true".equals(req.queryParams("mine")) ? auth.username() : null,
+                finished != null ? Boolean.valueOf(finished) : null);
+        List<GameSummary> games = AsyncDataAccess.await(asyncDataAccess.listGames(query));
+        // A full page may be followed by more games; a short one is the last
+        String nextCursor = games.size() == limit ? Integer.toString(games.get(limit - 1).gameID()) : null;
+        res.type("application/json");
+        return GSON.toJson(new GamePage(games, nextCursor));
+    }
+
+    /**
+     * Gets one game with its board. The token check and the game fetch run at the same time.
+     */
+    private Object getGame(Request req, Response res) throws DataAccessException {
+        int gameID;
+        try {
+            gameID = Integer.parseInt(req.params("gameID"));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Error: bad request");
+        }
+        CompletableFuture<AuthData> auth = asyncDataAccess.getAuth(req.headers("authorization"));
+        CompletableFuture<GameData> game = asyncDataAccess.getGame(gameID);
+        authorize(auth);
+        GameData data = AsyncDataAccess.await(game);
+        if (data == null) {
+            throw new IllegalArgumentException("Error: bad request");
+        }
+        res.type("application/json");
+        return GSON.toJson(data);
+    }
+
+    /**
+     * Registers a user and logs them in. The password is hashed while the username is checked.
+     */
+    private Object register(Request req, Response res) throws DataAccessException {
+        UserData user = readBody(req, UserData.class);
+        if (user == null || user.username() == null || user.password() == null || user.email() == null) {
+            throw new IllegalArgumentException("Error: bad request");
+        }
+        CompletableFuture<String> hash = passwordHasher.hash(user.password());
+        CompletableFuture<UserData> existing = asyncDataAccess.getUser(user.username());
+        if (AsyncDataAccess.await(existing) != null) {
+            // A hash that has not started yet is skipped rather than computed for nothing
+            hash.cancel(false);
+            throw new HttpException(403, "Error: already taken");
+        }
+        UserData stored = new UserData(user.username(), AsyncDataAccess.await(hash), user.email());
+        try {
+            AsyncDataAccess.await(asyncDataAccess.createUser(stored));
+        } catch (DataAccessException e) {
+            if (AsyncDataAccess.await(asyncDataAccess.getUser(user.username())) != null) {
+                throw new HttpException(403, "Error: already taken");
+            }
+            throw e;
+        }
+        return startSession(res, user.username());
+    }
+
+    /**
+     * Logs a user in if the password matches the stored hash.
+     */
+    private Object login(Request req, Response res) throws DataAccessException {
+        UserData login = readBody(req, UserData.class);
+        if (login == null || login.username() == null || login.password() == null) {
+            throw new IllegalArgumentException("Error: bad request");
+        }
+        UserData user = AsyncDataAccess.await(asyncDataAccess.getUser(login.username()));
+        // An unknown user still pays for a bcrypt check, so the response time does not say who exists
+        String hash = user != null ? user.password() : null;
+        if (!AsyncDataAccess.await(passwordHasher.verify(login.password(), hash)) || user == null) {
+            throw new HttpException(401, "Error: unauthorized");
+        }
+        return startSession(res, user.username());
+    }
+
+    /**
+     * Helper method to create a session for a user and return its token.
+     */
+    private Object startSession(Response res, String username) throws DataAccessException {
+        AuthData auth = new AuthData(UUID.randomUUID().toString(), username);
+        AsyncDataAccess.await(asyncDataAccess.createAuth(auth));
+        res.type("application/json");
+        return GSON.toJson(auth);
+    }
+
+    /**
+     * Ends the session of the token in the {@code authorization} header.
+     */
+    private Object logout(Request req, Response res) throws DataAccessException {
+        String authToken = req.headers("authorization");
+        authorize(asyncDataAccess.getAuth(authToken));
+        AsyncDataAccess.await(asyncDataAccess.deleteAuth(authToken));
+        res.type("application/json");
+        return "{}";
+    }
+
+    /**
+     * Helper method to wait for a token lookup and reject the request if the token is not valid.
+     *
+     * @return The session
+     */
+    private static AuthData authorize(CompletableFuture<AuthData> lookup) throws DataAccessException {
+        AuthData auth = AsyncDataAccess.await(lookup);
+        if (auth == null) {
+            throw new HttpException(401, "Error: unauthorized");
+        }
+        return auth;
+    }
+
+    /**
+     * Helper method to read an optional whole-number query parameter.
+     */
+    private static int intParam(Request req, String name, int defaultValue) {
+        String value = req.queryParams(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Error: bad request");
+        }
+    }
+
+    /**
+     * Helper method to parse a JSON request body, treating malformed JSON as a bad request.
+     */
+    private static <T> T readBody(Request req, Class<T> type) {
+        try {
+            return GSON.fromJson(req.body(), type);
+        } catch (JsonSyntaxException e) {
+            throw new IllegalArgumentException("Error: bad request");
+        }
+    }
+
+    private static void error(Response res, int status, Exception e) {
+        res.status(status);
+        res.type("application/json");
+        // Some exceptions, such as a bare NullPointerException, have no message
+        String detail = Objects.requireNonNullElse(e.getMessage(), e.getClass().getSimpleName());
+        String message = detail.startsWith("Error") ? detail : "Error: " + detail;
+        res.body(GSON.toJson(Map.of("message", message)));
+    }
+}
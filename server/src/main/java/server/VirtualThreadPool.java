@@ -0,0 +1,85 @@
+package server;
+
+import org.eclipse.jetty.util.component.AbstractLifeCycle;
+import org.eclipse.jetty.util.thread.ThreadPool;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A Jetty thread pool that starts a new virtual thread for every task instead of keeping platform
+ * threads.
+ * <p>
+ * A request that waits on JDBC, a data access future or the password pool then only parks its virtual
+ * thread, so the number of requests in progress is not capped by a pool size. Jetty's acceptor and
+ * selector loops run on virtual threads too. There are never idle threads and the pool is never low
+ * on them.
+ */
+final class VirtualThreadPool extends AbstractLifeCycle implements ThreadPool {
+    private final AtomicInteger running = new AtomicInteger();
+    private volatile ExecutorService executor;
+
+    @Override
+    protected void doStart() {
+        executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("request-", 0).factory());
+    }
+
+    /**
+     * Stops taking tasks and waits briefly for the running ones to finish.
+     */
+    @Override
+    protected void doStop() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        ExecutorService current = executor;
+        if (current == null) {
+            throw new RejectedExecutionException("Thread pool is not started");
+        }
+        running.incrementAndGet();
+        try {
+            current.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    running.decrementAndGet();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            running.decrementAndGet();
+            throw e;
+        }
+    }
+
+    @Override
+    public void join() throws InterruptedException {
+        ExecutorService current = executor;
+        if (current != null) {
+            current.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * @return The number of tasks running now, each on its own thread
+     */
+    @Override
+    public int getThreads() {
+        return running.get();
+    }
+
+    @Override
+    public int getIdleThreads() {
+        return 0;
+    }
+
+    @Override
+    public boolean isLowOnThreads() {
+        return false;
+    }
+}
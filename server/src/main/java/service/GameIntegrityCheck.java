@@ -0,0 +1,174 @@
+package service;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.Fen;
+import chess.InvalidMoveException;
+import chess.MoveCodec;
+import dataaccess.DataAccessException;
+import dataaccess.GameDAO;
+import dataaccess.GameLog;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Re-validates every stored game by replaying its whole move log from its start position with
+ * {@link ChessGame#makeMove} and comparing the result with the game as the store loads it, such as
+ * from a snapshot. Run it after a rules fix to find games the fix affects. A game the store cannot
+ * load at all is reported as a problem and the check goes on.
+ * <p>
+ * Games are streamed from the DAO and handed to a {@link ForkJoinPool} in batches. Only a bounded
+ * number of batches are queued at once, so any number of games can be checked in fixed memory.
+ */
+public class GameIntegrityCheck {
+    public static final int DEFAULT_BATCH_SIZE = 256;
+
+    private final GameDAO gameDAO;
+    private final ForkJoinPool pool;
+    private final int batchSize;
+
+    /**
+     * A game that failed the check.
+     *
+     * @param gameID The game's ID.
+     * @param reason What is wrong with it.
+     */
+    public record Problem(int gameID, String reason) {
+    }
+
+    /**
+     * The outcome of one check.
+     *
+     * @param games        The number of games checked.
+     * @param problems     The games that failed, by ID.
+     * @param elapsedNanos How long the check took.
+     */
+    public record Report(long games, List<Problem> problems, long elapsedNanos) {
+        public double gamesPerSecond() {
+            return elapsedNanos == 0 ? 0 : games * 1_000_000_000.0 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d games checked, %d with problems, in %.2fs, %.0f games/s",
+                    games, problems.size(), elapsedNanos / 1e9, gamesPerSecond());
+        }
+    }
+
+    public GameIntegrityCheck(GameDAO gameDAO) {
+        this(gameDAO, ForkJoinPool.commonPool(), DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * @param gameDAO   Where the games are stored.
+     * @param pool      The pool games are replayed on.
+     * @param batchSize The number of games handed to the pool at a time.
+     */
+    public GameIntegrityCheck(GameDAO gameDAO, ForkJoinPool pool, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be positive");
+        }
+        this.gameDAO = gameDAO;
+        this.pool = pool;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Checks every stored game.
+     *
+     * @return The games checked and the problems found.
+     */
+    public Report run() throws DataAccessException {
+        long startNanos = System.nanoTime();
+        LongAdder games = new LongAdder();
+        Queue<Problem> problems = new ConcurrentLinkedQueue<>();
+        int maxInFlight = pool.getParallelism() * 2;
+        Semaphore inFlight = new Semaphore(maxInFlight);
+
+        List<GameLog> batch = new ArrayList<>(batchSize);
+        gameDAO.forEachGameLog(game -> {
+            batch.add(game);
+            if (batch.size() == batchSize) {
+                submit(List.copyOf(batch), inFlight, games, problems);
+                batch.clear();
+            }
+        }, (gameID, e) -> {
+            games.increment();
+            problems.add(new Problem(gameID, "Unreadable game: " + e.getMessage()));
+        });
+        if (!batch.isEmpty()) {
+            submit(List.copyOf(batch), inFlight, games, problems);
+        }
+        // Every batch holds a permit until it finishes
+        inFlight.acquireUninterruptibly(maxInFlight);
+
+        List<Problem> sorted = new ArrayList<>(problems);
+        sorted.sort(Comparator.comparingInt(Problem::gameID));
+        return new Report(games.sum(), sorted, System.nanoTime() - startNanos);
+    }
+
+    private void submit(List<GameLog> batch, Semaphore inFlight, LongAdder games, Queue<Problem> problems) {
+        inFlight.acquireUninterruptibly();
+        pool.execute(() -> {
+            try {
+                for (GameLog game : batch) {
+                    String reason;
+                    try {
+                        reason = check(game);
+                    } catch (RuntimeException e) {
+                        reason = "Unreadable game: " + e;
+                    }
+                    if (reason != null) {
+                        problems.add(new Problem(game.gameID(), reason));
+                    }
+                }
+                games.add(batch.size());
+            } finally {
+                inFlight.release();
+            }
+        });
+    }
+
+    /**
+     * Replays a stored game's move log from its start position.
+     *
+     * @return Why the game is invalid, or null if its moves are legal and lead to the stored position.
+     */
+    static String check(GameLog log) {
+        ChessGame stored = log.stored();
+        if (stored == null || log.startFen() == null) {
+            return "No game state";
+        }
+        ChessGame replay;
+        try {
+            replay = Fen.parse(log.startFen());
+        } catch (IllegalArgumentException e) {
+            return "Invalid start position: " + e.getMessage();
+        }
+        short[] moves = log.moves();
+        for (int ply = 0; ply < moves.length; ply++) {
+            ChessMove move;
+            try {
+                move = MoveCodec.decode(moves[ply]);
+            } catch (IllegalArgumentException e) {
+                return "Unreadable move at ply " + (ply + 1) + ": " + e.getMessage();
+            }
+            try {
+                replay.makeMove(move);
+            } catch (InvalidMoveException e) {
+                return "Illegal move at ply " + (ply + 1) + ": " + e.getMessage();
+            }
+        }
+        if (!replay.equals(stored)) {
+            return "Stored position does not match its moves";
+        }
+        return null;
+    }
+}
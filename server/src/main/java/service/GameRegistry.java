@@ -0,0 +1,279 @@
+package service;
+
+import dataaccess.DataAccessException;
+import dataaccess.GameDAO;
+import model.GameData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Keeps the games people are playing in memory and the rest only in the database.
+ * <p>
+ * A game is loaded from the {@link GameDAO} the first time a command needs it and stays resident
+ * while it has moves or open sessions. Once it has had neither for the idle TTL, {@link #evictIdle()}
+ * writes it back if it changed and drops it, and the next command reloads it. Memory use therefore
+ * follows the number of active games rather than the number of stored games.
+ */
+public class GameRegistry {
+    private static final Logger LOG = LoggerFactory.getLogger(GameRegistry.class);
+    // Slots for remembering recent evictions; game IDs start at 1, so 0 marks an empty slot
+    private static final int EVICTION_SLOTS = 1 << 12;
+
+    private final GameDAO gameDAO;
+    private final long idleNanos;
+    private final LongSupplier clock;
+    private final ConcurrentHashMap<Integer, Entry> resident = new ConcurrentHashMap<>();
+    // The last game evicted into each slot, by ID, until it is loaded again. A load of a game found
+    // here counts as a reload; a game whose slot was taken by a later eviction is not counted
+    private final AtomicIntegerArray recentlyEvicted = new AtomicIntegerArray(EVICTION_SLOTS);
+    // Also tells a load whether an eviction may have written the game after it was read
+    private final AtomicLong evicted = new AtomicLong();
+    private final LongAdder reloaded = new LongAdder();
+    private final LongAdder reloadNanos = new LongAdder();
+    private final AtomicLong maxReloadNanos = new AtomicLong();
+
+    /**
+     * Counts for the registry.
+     *
+     * @param resident        The number of games in memory now.
+     * @param evicted         The number of times a game was evicted.
+     * @param reloaded        The number of times a recently evicted game was loaded from the DAO again.
+     * @param meanReloadNanos The mean time a reload took.
+     * @param maxReloadNanos  The longest time a reload took.
+     */
+    public record Stats(int resident, long evicted, long reloaded, long meanReloadNanos, long maxReloadNanos) {
+    }
+
+    private static final class Entry {
+        private GameData data;
+        private boolean dirty;
+        private boolean evicted;
+        private int sessions;
+        private long lastActive;
+
+        Entry(GameData data, long now) {
+            this.data = data;
+            this.lastActive = now;
+        }
+    }
+
+    public GameRegistry(GameDAO gameDAO, Duration idleTtl) {
+        this(gameDAO, idleTtl, System::nanoTime);
+    }
+
+    /**
+     * @param gameDAO Where games are loaded from and written back to.
+     * @param idleTtl How long a game with no moves and no sessions stays in memory.
+     * @param clock   The time source, in nanoseconds.
+     */
+    public GameRegistry(GameDAO gameDAO, Duration idleTtl, LongSupplier clock) {
+        this.gameDAO = gameDAO;
+        this.idleNanos = idleTtl.toNanos();
+        this.clock = clock;
+    }
+
+    /**
+     * Gets a game, loading it if it is not resident, and marks it active.
+     *
+     * @return The game, or null if there is no game with that ID
+     */
+    public GameData getGame(int gameID) throws DataAccessException {
+        while (true) {
+            Entry entry = load(gameID);
+            if (entry == null) {
+                return null;
+            }
+            synchronized (entry) {
+                if (!entry.evicted) {
+                    entry.lastActive = clock.getAsLong();
+                    return entry.data;
+                }
+            }
+        }
+    }
+
+    /**
+     * Replaces a game after a command changed it. The change is written to the DAO when the game is
+     * evicted or {@link #flush()} is called.
+     *
+     * @param game The changed game.
+     * @throws DataAccessException if there is no game with that ID
+     */
+    public void updateGame(GameData game) throws DataAccessException {
+        while (true) {
+            Entry entry = load(game.gameID());
+            if (entry == null) {
+                throw new DataAccessException("No game with ID " + game.gameID());
+            }
+            synchronized (entry) {
+                if (!entry.evicted) {
+                    entry.data = game;
+                    entry.dirty = true;
+                    entry.lastActive = clock.getAsLong();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Keeps a game resident while a client has a session open on it.
+     */
+    public void openSession(int gameID) throws DataAccessException {
+        changeSessions(gameID, 1);
+    }
+
+    public void closeSession(int gameID) throws DataAccessException {
+        changeSessions(gameID, -1);
+    }
+
+    /**
+     * Writes back and drops every game with no open sessions that has been idle for the TTL. A game
+     * that cannot be written back stays resident and the rest are still evicted.
+     *
+     * @return The number of games evicted
+     * @throws DataAccessException after the pass, if any game could not be written back
+     */
+    public int evictIdle() throws DataAccessException {
+        long now = clock.getAsLong();
+        int count = 0;
+        List<Integer> failed = new ArrayList<>();
+        DataAccessException failure = null;
+        for (Entry entry : resident.values()) {
+            synchronized (entry) {
+                if (entry.evicted || entry.sessions > 0 || now - entry.lastActive < idleNanos) {
+                    continue;
+                }
+                if (entry.dirty) {
+                    try {
+                        gameDAO.updateGame(entry.data);
+                    } catch (DataAccessException e) {
+                        failed.add(entry.data.gameID());
+                        failure = failure == null ? e : failure;
+                        continue;
+                    }
+                }
+                entry.evicted = true;
+                recentlyEvicted.set(evictionSlot(entry.data.gameID()), entry.data.gameID());
+                evicted.incrementAndGet();
+                resident.remove(entry.data.gameID(), entry);
+            }
+            count++;
+        }
+        if (failure != null) {
+            throw new DataAccessException("Unable to write back games " + failed + ": " + failure.getMessage());
+        }
+        return count;
+    }
+
+    /**
+     * Runs {@link #evictIdle()} on an executor every half TTL.
+     *
+     * @return The scheduled task, to cancel it on shutdown.
+     */
+    public ScheduledFuture<?> scheduleEviction(ScheduledExecutorService executor) {
+        long period = Math.max(1, idleNanos / 2);
+        return executor.scheduleAtFixedRate(() -> {
+            try {
+                evictIdle();
+            } catch (DataAccessException e) {
+                LOG.warn("Unable to evict idle games: {}", e.getMessage());
+            }
+        }, period, period, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Writes every changed resident game to the DAO without evicting it.
+     */
+    public void flush() throws DataAccessException {
+        for (Entry entry : resident.values()) {
+            synchronized (entry) {
+                if (entry.dirty && !entry.evicted) {
+                    gameDAO.updateGame(entry.data);
+                    entry.dirty = false;
+                }
+            }
+        }
+    }
+
+    public Stats getStats() {
+        long loads = reloaded.sum();
+        return new Stats(resident.size(), evicted.get(), loads,
+                loads == 0 ? 0 : reloadNanos.sum() / loads, maxReloadNanos.get());
+    }
+
+    private void changeSessions(int gameID, int delta) throws DataAccessException {
+        while (true) {
+            Entry entry = load(gameID);
+            if (entry == null) {
+                throw new DataAccessException("No game with ID " + gameID);
+            }
+            synchronized (entry) {
+                if (!entry.evicted) {
+                    entry.sessions = Math.max(0, entry.sessions + delta);
+                    entry.lastActive = clock.getAsLong();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Helper method to get a game's entry, loading it from the DAO if it is not resident.
+     * <p>
+     * The DAO is read outside the map so a slow load does not block other games. If another thread
+     * loaded the game first, its entry is used. If a game was evicted while this load was reading,
+     * the eviction may have written a newer version, so the load is thrown away and tried again.
+     *
+     * @return The entry, or null if there is no game with that ID
+     */
+    private Entry load(int gameID) throws DataAccessException {
+        while (true) {
+            Entry entry = resident.get(gameID);
+            if (entry != null) {
+                return entry;
+            }
+            long evictions = evicted.get();
+            long start = clock.getAsLong();
+            GameData data = gameDAO.getGame(gameID);
+            if (data == null) {
+                return null;
+            }
+            long now = clock.getAsLong();
+            Entry loaded = new Entry(data, now);
+            entry = resident.putIfAbsent(gameID, loaded);
+            if (entry != null) {
+                return entry;
+            }
+            if (evicted.get() != evictions) {
+                synchronized (loaded) {
+                    loaded.evicted = true;
+                    resident.remove(gameID, loaded);
+                }
+                continue;
+            }
+            if (recentlyEvicted.compareAndSet(evictionSlot(gameID), gameID, 0)) {
+                reloaded.increment();
+                reloadNanos.add(now - start);
+                maxReloadNanos.accumulateAndGet(now - start, Math::max);
+            }
+            return loaded;
+        }
+    }
+
+    private static int evictionSlot(int gameID) {
+        return Math.floorMod(gameID, EVICTION_SLOTS);
+    }
+}
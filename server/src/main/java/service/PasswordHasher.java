@@ -0,0 +1,142 @@
+package service;
+
+import org.mindrot.jbcrypt.BCrypt;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Hashes and checks passwords with bcrypt on a small pool of its own.
+ * <p>
+ * Each bcrypt call costs tens of milliseconds of CPU, so a burst of logins run on the request threads
+ * would take every core from moves and game lists. Here at most {@code threads} calls run at once
+ * and at most {@code queueCapacity} wait; beyond that a call is refused at once with a
+ * {@link RejectedExecutionException}, which the server answers with 503, rather than holding a
+ * request thread until its turn comes.
+ */
+public class PasswordHasher implements AutoCloseable {
+    private final ThreadPoolExecutor executor;
+    private final int logRounds;
+    // Checked in place of a missing hash, so a login for an unknown user takes as long as a wrong password
+    private final String missingHash;
+    private final LongAdder hashed = new LongAdder();
+    private final LongAdder verified = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+
+    /**
+     * Pool limits.
+     *
+     * @param threads       The most calls run at once.
+     * @param queueCapacity The most calls waiting for a thread.
+     * @param logRounds     The bcrypt cost of new hashes, as a power of two.
+     */
+    public record Settings(int threads, int queueCapacity, int logRounds) {
+        public Settings {
+            if (threads < 1 || queueCapacity < 1) {
+                throw new IllegalArgumentException("threads and queueCapacity must be positive");
+            }
+        }
+    }
+
+    /**
+     * Counts for the pool.
+     *
+     * @param active    Calls running now.
+     * @param queued    Calls waiting for a thread.
+     * @param hashed    Passwords hashed.
+     * @param verified  Passwords checked, whether they matched or not.
+     * @param rejected  Calls refused because the queue was full.
+     * @param meanNanos The mean time a call took to run, not counting its wait.
+     */
+    public record Stats(int active, int queued, long hashed, long verified, long rejected, long meanNanos) {
+    }
+
+    public PasswordHasher(Settings settings) {
+        this.logRounds = settings.logRounds();
+        this.missingHash = BCrypt.hashpw("", BCrypt.gensalt(logRounds));
+        AtomicInteger count = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(settings.threads(), settings.threads(), 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(settings.queueCapacity()), runnable -> {
+            Thread thread = new Thread(runnable, "password-hasher-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @return A future of the bcrypt hash of the password, with a new salt
+     * @throws RejectedExecutionException if too many calls are already waiting
+     */
+    public CompletableFuture<String> hash(String password) {
+        return run(() -> {
+            String hash = BCrypt.hashpw(password, BCrypt.gensalt(logRounds));
+            hashed.increment();
+            return hash;
+        });
+    }
+
+    /**
+     * A null hash, as for a user that does not exist, is still checked against a hash of the same
+     * cost, so the answer takes as long as it would for a real user.
+     *
+     * @return A future of whether the password matches the hash; false for a null or malformed hash
+     * @throws RejectedExecutionException if too many calls are already waiting
+     */
+    public CompletableFuture<Boolean> verify(String password, String hash) {
+        return run(() -> {
+            boolean matches;
+            try {
+                matches = BCrypt.checkpw(password, hash != null ? hash : missingHash) && hash != null;
+            } catch (IllegalArgumentException e) {
+                matches = false;
+            }
+            verified.increment();
+            return matches;
+        });
+    }
+
+    public Stats getStats() {
+        long calls = hashed.sum() + verified.sum();
+        return new Stats(executor.getActiveCount(), executor.getQueue().size(), hashed.sum(), verified.sum(),
+                rejected.sum(), calls == 0 ? 0 : totalNanos.sum() / calls);
+    }
+
+    /**
+     * Stops taking calls and waits briefly for the queued ones to finish.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Helper method to run a call on the pool, timing it, or refuse it if the queue is full.
+     */
+    private <T> CompletableFuture<T> run(Supplier<T> call) {
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                long start = System.nanoTime();
+                try {
+                    return call.get();
+                } finally {
+                    totalNanos.add(System.nanoTime() - start);
+                }
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new RejectedExecutionException("Error: too many logins, try again later");
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package dataaccess;
+
+import model.AuthData;
+import model.GameData;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+public class AsyncDataAccessTests {
+
+    @Test
+    @DisplayName("Run Independent Calls At The Same Time")
+    public void concurrent() throws Exception {
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        MemoryAuthDAO auths = new MemoryAuthDAO() {
+            @Override
+            public AuthData getAuth(String authToken) {
+                bothStarted.countDown();
+                await(bothStarted);
+                return super.getAuth(authToken);
+            }
+        };
+        MemoryGameDAO games = new MemoryGameDAO() {
+            @Override
+            public GameData getGame(int gameID) {
+                bothStarted.countDown();
+                await(bothStarted);
+                return super.getGame(gameID);
+            }
+        };
+        auths.createAuth(new AuthData("token", "alice"));
+        int gameID = games.createGame("game");
+
+        DataAccess data = new DataAccess(new MemoryUserDAO(), auths, games, null, 2);
+        try (AsyncDataAccess async = new AsyncDataAccess(data, 10)) {
+            // Each call waits for the other to start, so run one after the other they would time out
+            CompletableFuture<AuthData> auth = async.getAuth("token");
+            CompletableFuture<GameData> game = async.getGame(gameID);
+            Assertions.assertEquals("alice", AsyncDataAccess.await(auth).username());
+            Assertions.assertEquals("game", AsyncDataAccess.await(game).gameName());
+            Assertions.assertTrue(bothStarted.await(0, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    @DisplayName("Refuse Calls Once The Queue Is Full And Pass On Failures")
+    public void rejectAndFail() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        DataAccess data = DataAccess.memory();
+        try (AsyncDataAccess async = new AsyncDataAccess(data, 1, 1)) {
+            CompletableFuture<Object> running = async.run(() -> {
+                await(release);
+                return null;
+            });
+            CompletableFuture<Object> queued = async.run(() -> "queued");
+            CompletableFuture<Object> refused = async.run(() -> "refused");
+            Assertions.assertThrows(RejectedExecutionException.class, () -> AsyncDataAccess.await(refused));
+            Assertions.assertEquals(1, async.getStats().rejected());
+
+            release.countDown();
+            AsyncDataAccess.await(running);
+            Assertions.assertEquals("queued", AsyncDataAccess.await(queued));
+
+            CompletableFuture<Void> missing = async.updateGame(new GameData(99, null, null, "missing", null));
+            Assertions.assertThrows(DataAccessException.class, () -> AsyncDataAccess.await(missing));
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            if (!latch.await(5, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("Timed out");
+            }
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package dataaccess;
+
+import model.AuthData;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class CachingAuthDAOTests {
+    private static final AuthData SESSION = new AuthData("token", "alice");
+
+    /**
+     * Counts the lookups that reach the stored sessions.
+     */
+    private static final class CountingAuthDAO extends MemoryAuthDAO {
+        final AtomicInteger lookups = new AtomicInteger();
+
+        @Override
+        public AuthData getAuth(String authToken) {
+            lookups.incrementAndGet();
+            return super.getAuth(authToken);
+        }
+    }
+
+    private final AtomicLong now = new AtomicLong();
+    private CountingAuthDAO stored;
+    private CachingAuthDAO cache;
+
+    @BeforeEach
+    public void setup() {
+        stored = new CountingAuthDAO();
+        cache = new CachingAuthDAO(stored, new CachingAuthDAO.Settings(10, 1000, 100), now::get);
+    }
+
+    private void advanceMillis(long millis) {
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    @Test
+    @DisplayName("Answer Repeated Lookups From The Cache")
+    public void hit() throws DataAccessException {
+        stored.createAuth(SESSION);
+        Assertions.assertEquals(SESSION, cache.getAuth("token"));
+        Assertions.assertEquals(SESSION, cache.getAuth("token"));
+        Assertions.assertEquals(SESSION, cache.getAuth("token"));
+        Assertions.assertEquals(1, stored.lookups.get());
+
+        CachingAuthDAO.Stats stats = cache.getStats();
+        Assertions.assertEquals(2, stats.hits());
+        Assertions.assertEquals(1, stats.misses());
+    }
+
+    @Test
+    @DisplayName("Cache A New Session Without Looking It Up")
+    public void create() throws DataAccessException {
+        cache.createAuth(SESSION);
+        Assertions.assertEquals(SESSION, cache.getAuth("token"));
+        Assertions.assertEquals(0, stored.lookups.get());
+    }
+
+    @Test
+    @DisplayName("Look A Session Up Again After Its TTL")
+    public void ttl() throws DataAccessException {
+        cache.createAuth(SESSION);
+        advanceMillis(999);
+        cache.getAuth("token");
+        Assertions.assertEquals(0, stored.lookups.get());
+
+        advanceMillis(1);
+        stored.deleteAuth("token");
+        Assertions.assertNull(cache.getAuth("token"));
+        Assertions.assertEquals(1, stored.lookups.get());
+    }
+
+    @Test
+    @DisplayName("Cache An Unknown Token For The Negative TTL")
+    public void negative() throws DataAccessException {
+        Assertions.assertNull(cache.getAuth("token"));
+        Assertions.assertNull(cache.getAuth("token"));
+        Assertions.assertEquals(1, stored.lookups.get());
+        Assertions.assertEquals(1, cache.getStats().negativeHits());
+
+        stored.createAuth(SESSION);
+        advanceMillis(100);
+        Assertions.assertEquals(SESSION, cache.getAuth("token"));
+        Assertions.assertEquals(2, stored.lookups.get());
+    }
+
+    @Test
+    @DisplayName("Forget A Deleted Session At Once")
+    public void delete() throws DataAccessException {
+        cache.createAuth(SESSION);
+        cache.getAuth("token");
+        cache.deleteAuth("token");
+        Assertions.assertNull(cache.getAuth("token"));
+        Assertions.assertNull(stored.getAuth("token"));
+    }
+
+    @Test
+    @DisplayName("Stay Within The Maximum Size")
+    public void bounded() throws DataAccessException {
+        for (int i = 0; i < 25; i++) {
+            cache.createAuth(new AuthData("token" + i, "alice"));
+        }
+        CachingAuthDAO.Stats stats = cache.getStats();
+        Assertions.assertTrue(stats.size() <= 10);
+        Assertions.assertTrue(stats.evictions() > 0);
+
+        // Evicted sessions are still found in the DAO
+        for (int i = 0; i < 25; i++) {
+            Assertions.assertNotNull(cache.getAuth("token" + i));
+        }
+    }
+
+    @Test
+    @DisplayName("Drop Expired Entries Before Live Ones")
+    public void expiredFirst() throws DataAccessException {
+        for (int i = 0; i < 10; i++) {
+            cache.getAuth("unknown" + i);
+        }
+        advanceMillis(100);
+        cache.createAuth(SESSION);
+        Assertions.assertEquals(0, cache.getStats().evictions());
+        Assertions.assertEquals(1, cache.getStats().size());
+    }
+}
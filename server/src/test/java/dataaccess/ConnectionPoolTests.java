@@ -0,0 +1,206 @@
+package dataaccess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class ConnectionPoolTests {
+
+    /**
+     * A stand-in for a physical connection that only tracks whether it is open and valid.
+     */
+    private static final class FakeConnection {
+        boolean open = true;
+        boolean valid = true;
+        int prepared;
+        int statementsClosed;
+
+        Connection proxy() {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, (p, method, args) -> switch (method.getName()) {
+                        case "close" -> {
+                            open = false;
+                            yield null;
+                        }
+                        case "isClosed" -> !open;
+                        case "isValid" -> valid;
+                        case "prepareStatement" -> {
+                            prepared++;
+                            yield statement();
+                        }
+                        case "getAutoCommit" -> true;
+                        default -> null;
+                    });
+        }
+
+        PreparedStatement statement() {
+            int[] batch = {0};
+            int[] fetchSize = {0};
+            return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class}, (p, method, args) -> switch (method.getName()) {
+                        case "close" -> {
+                            statementsClosed++;
+                            yield null;
+                        }
+                        case "addBatch" -> {
+                            batch[0]++;
+                            yield null;
+                        }
+                        case "clearBatch" -> {
+                            batch[0] = 0;
+                            yield null;
+                        }
+                        case "executeBatch" -> {
+                            int[] counts = new int[batch[0]];
+                            batch[0] = 0;
+                            yield counts;
+                        }
+                        case "setFetchSize" -> {
+                            fetchSize[0] = (int) args[0];
+                            yield null;
+                        }
+                        case "getFetchSize" -> fetchSize[0];
+                        default -> method.getReturnType() == int.class ? 0 : null;
+                    });
+        }
+    }
+
+    private final List<FakeConnection> opened = new ArrayList<>();
+    private final AtomicLong now = new AtomicLong();
+
+    private ConnectionPool pool(int maxSize) {
+        return new ConnectionPool(() -> {
+            FakeConnection connection = new FakeConnection();
+            opened.add(connection);
+            return connection.proxy();
+        }, new ConnectionPool.Settings(maxSize, 50, 1000, 10_000, 0, 2), now::get);
+    }
+
+    @Test
+    @DisplayName("Reuse Returned Connections")
+    public void reuse() throws Exception {
+        ConnectionPool pool = pool(2);
+        try (Connection first = pool.getConnection()) {
+            Assertions.assertFalse(first.isClosed());
+        }
+        try (Connection again = pool.getConnection()) {
+            Assertions.assertFalse(again.isClosed());
+            Assertions.assertEquals(1, opened.size());
+            Assertions.assertEquals(1, pool.getStats().active());
+        }
+        Assertions.assertEquals(1, pool.getStats().idle());
+        Assertions.assertTrue(opened.get(0).open);
+    }
+
+    @Test
+    @DisplayName("Time Out When Exhausted")
+    public void exhausted() throws Exception {
+        ConnectionPool pool = pool(1);
+        Connection held = pool.getConnection();
+        Assertions.assertThrows(DataAccessException.class, pool::getConnection);
+        Assertions.assertEquals(1, pool.getStats().timeouts());
+        held.close();
+        held.close();
+        pool.getConnection().close();
+        Assertions.assertThrows(java.sql.SQLException.class, held::createStatement);
+    }
+
+    @Test
+    @DisplayName("Retire Old And Invalid Connections")
+    public void retire() throws Exception {
+        ConnectionPool pool = pool(2);
+        pool.getConnection().close();
+        now.set(2000);
+        opened.get(0).valid = false;
+        pool.getConnection().close();
+        Assertions.assertEquals(2, opened.size());
+        Assertions.assertFalse(opened.get(0).open);
+
+        now.set(20_000);
+        pool.getConnection().close();
+        Assertions.assertEquals(3, opened.size());
+        Assertions.assertEquals(2, pool.getStats().retired());
+    }
+
+    @Test
+    @DisplayName("Report Leaked Connections Once")
+    public void leaks() throws Exception {
+        ConnectionPool pool = new ConnectionPool(() -> new FakeConnection().proxy(),
+                new ConnectionPool.Settings(2, 50, 1000, 10_000, 100, 0), now::get);
+        Connection leaked = pool.getConnection();
+        now.set(500);
+        pool.detectLeaks();
+        pool.detectLeaks();
+        Assertions.assertEquals(1, pool.getStats().leaks());
+        leaked.close();
+        pool.close();
+    }
+
+    @Test
+    @DisplayName("Cache Prepared Statements Per Connection")
+    public void statementCache() throws Exception {
+        ConnectionPool pool = pool(1);
+        String auth = "SELECT username FROM auth WHERE authToken=?";
+        String game = "SELECT json FROM game WHERE id=?";
+        String insert = "INSERT INTO game (json) VALUES (?)";
+        for (int i = 0; i < 3; i++) {
+            try (Connection connection = pool.getConnection();
+                 PreparedStatement statement = connection.prepareStatement(auth)) {
+                statement.setString(1, "token");
+                statement.executeQuery();
+                Assertions.assertSame(connection, statement.getConnection());
+            }
+        }
+        FakeConnection physical = opened.get(0);
+        Assertions.assertEquals(1, physical.prepared);
+        Assertions.assertEquals(0, physical.statementsClosed);
+
+        try (Connection connection = pool.getConnection()) {
+            PreparedStatement outer = connection.prepareStatement(auth);
+            // Still open, so a second prepare of the same SQL is not shared
+            connection.prepareStatement(auth).close();
+            outer.close();
+            Assertions.assertThrows(java.sql.SQLException.class, outer::executeQuery);
+
+            connection.prepareStatement(game).close();
+            connection.prepareStatement(insert, Statement.RETURN_GENERATED_KEYS).close();
+        }
+        // A cache of two evicts the least recently used statement, the auth lookup
+        Assertions.assertEquals(4, physical.prepared);
+        Assertions.assertEquals(2, physical.statementsClosed);
+
+        var stats = pool.getStatementStats();
+        Assertions.assertEquals(new ConnectionPool.StatementStats(3, 2), stats.get(auth));
+        Assertions.assertEquals(new ConnectionPool.StatementStats(0, 1), stats.get(game));
+    }
+
+    @Test
+    @DisplayName("Reset Returned Statements For The Next Borrower")
+    public void statementReset() throws Exception {
+        ConnectionPool pool = pool(1);
+        String insert = "INSERT INTO game (json) VALUES (?)";
+        try (Connection connection = pool.getConnection();
+             PreparedStatement statement = connection.prepareStatement(insert)) {
+            statement.setString(1, "abandoned");
+            statement.addBatch();
+            statement.addBatch();
+            statement.setFetchSize(Integer.MIN_VALUE);
+        }
+        try (Connection connection = pool.getConnection();
+             PreparedStatement statement = connection.prepareStatement(insert)) {
+            Assertions.assertEquals(1, opened.get(0).prepared);
+            Assertions.assertEquals(0, statement.getFetchSize());
+            statement.setString(1, "mine");
+            statement.addBatch();
+            Assertions.assertEquals(1, statement.executeBatch().length);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package dataaccess;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.Fen;
+import chess.InvalidMoveException;
+import chess.MoveCodec;
+import chess.San;
+import model.AuthData;
+import model.GameData;
+import model.GameSummary;
+import model.UserData;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+public class FileDAOTests {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Keep Users, Sessions And Games Across Restarts")
+    public void reopen() throws DataAccessException, InvalidMoveException {
+        Path file = directory.resolve("chess.log");
+        ChessGame played = new ChessGame();
+        for (String move : "e4 e5 Nf3 Nc6 Bb5".split(" ")) {
+            played.makeMove(San.parse(played, move));
+        }
+        int gameID;
+        try (DataAccess data = DataAccess.file(file, true)) {
+            data.getUserDAO().createUser(new UserData("alice", "hash", "alice@mail.com"));
+            Assertions.assertThrows(DataAccessException.class,
+                    () -> data.getUserDAO().createUser(new UserData("alice", "other", "a@mail.com")));
+            data.getAuthDAO().createAuth(new AuthData("token-1", "alice"));
+            data.getAuthDAO().createAuth(new AuthData("token-2", "alice"));
+            data.getAuthDAO().deleteAuth("token-1");
+
+            gameID = data.getGameDAO().createGame("first");
+            data.getGameDAO().createGame("second");
+            data.getGameDAO().updateGame(new GameData(gameID, "alice", null, "first", played));
+            Assertions.assertThrows(DataAccessException.class,
+                    () -> data.getGameDAO().updateGame(new GameData(99, null, null, "missing", played)));
+        }
+
+        try (DataAccess data = DataAccess.file(file, true)) {
+            Assertions.assertEquals(new UserData("alice", "hash", "alice@mail.com"),
+                    data.getUserDAO().getUser("alice"));
+            Assertions.assertNull(data.getUserDAO().getUser("bob"));
+            Assertions.assertNull(data.getAuthDAO().getAuth("token-1"));
+            Assertions.assertEquals("alice", data.getAuthDAO().getAuth("token-2").username());
+
+            GameData game = data.getGameDAO().getGame(gameID);
+            Assertions.assertEquals("alice", game.whiteUsername());
+            Assertions.assertNull(game.blackUsername());
+            Assertions.assertEquals(played, game.game());
+            Assertions.assertEquals(played.getMoveHistory(), game.game().getMoveHistory());
+            Assertions.assertEquals(List.of("first", "second"),
+                    data.getGameDAO().listGames().stream().map(GameData::gameName).toList());
+            // Summaries for listing are rebuilt from the stored games
+            Assertions.assertEquals(List.of(new GameSummary(gameID, "alice", null, "first", false)),
+                    data.getGameDAO().listGames(new GameQuery(0, 10, false, "alice", null)));
+            Assertions.assertEquals(3, data.getGameDAO().createGame("third"));
+            Assertions.assertEquals(List.of("second", "third"),
+                    data.getGameDAO().listGames(new GameQuery(gameID, 10, true, null, false)).stream()
+                            .map(GameSummary::gameName).toList());
+
+            data.getGameDAO().clear();
+            data.getUserDAO().clear();
+            Assertions.assertEquals(List.of(), data.getGameDAO().listGames());
+            Assertions.assertNull(data.getUserDAO().getUser("alice"));
+            Assertions.assertNotNull(data.getAuthDAO().getAuth("token-2"));
+        }
+    }
+
+    @Test
+    @DisplayName("Keep Iterating And Opening Past A Corrupt Game")
+    public void corruptGame() throws DataAccessException, IOException {
+        try (LogStore store = new LogStore(directory.resolve("chess.log"), false)) {
+            FileGameDAO dao = new FileGameDAO(store);
+            for (String name : List.of("first", "second", "third")) {
+                dao.createGame(name);
+            }
+            // A pawn that jumps three squares
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                out.writeBoolean(false);
+                out.writeBoolean(false);
+                out.writeUTF("second");
+                out.writeUTF(Fen.START_POSITION);
+                out.writeInt(1);
+                out.writeShort(MoveCodec.encode(new ChessMove(new ChessPosition(2, 5), new ChessPosition(5, 5), null)));
+            }
+            store.replace(FileGameDAO.TABLE, "2", bytes.toByteArray());
+
+            List<String> loaded = new ArrayList<>();
+            List<Integer> failed = new ArrayList<>();
+            dao.forEachGame(game -> loaded.add(game.gameName()), (gameID, e) -> failed.add(gameID));
+            Assertions.assertEquals(List.of("first", "third"), loaded);
+            Assertions.assertEquals(List.of(2), failed);
+
+            DataAccessException e = Assertions.assertThrows(DataAccessException.class,
+                    () -> dao.forEachGame(game -> loaded.add(game.gameName())));
+            Assertions.assertTrue(e.getMessage().contains("[2]"), e.getMessage());
+
+            // Opening the store again lists the corrupt game from its header
+            FileGameDAO reopened = new FileGameDAO(store);
+            Assertions.assertEquals(List.of("first", "second", "third"),
+                    reopened.listGames(new GameQuery(0, 10, false, null, null)).stream()
+                            .map(GameSummary::gameName).toList());
+        }
+    }
+}
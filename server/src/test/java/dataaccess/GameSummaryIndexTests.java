@@ -0,0 +1,87 @@
+package dataaccess;
+
+import chess.ChessGame;
+import chess.InvalidMoveException;
+import chess.San;
+import model.GameData;
+import model.GameSummary;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+public class GameSummaryIndexTests {
+
+    private static List<Integer> ids(List<GameSummary> games) {
+        return games.stream().map(GameSummary::gameID).toList();
+    }
+
+    @Test
+    @DisplayName("Page Through Games In ID Order")
+    public void pages() {
+        GameSummaryIndex index = new GameSummaryIndex();
+        for (int gameID = 1; gameID <= 25; gameID++) {
+            index.put(new GameSummary(gameID, null, null, "game" + gameID, false));
+        }
+        Assertions.assertEquals(List.of(1, 2, 3, 4, 5, 6, 7, 8, 9, 10),
+                ids(index.find(new GameQuery(0, 10, false, null, null))));
+        Assertions.assertEquals(List.of(11, 12, 13, 14, 15, 16, 17, 18, 19, 20),
+                ids(index.find(new GameQuery(10, 10, false, null, null))));
+        Assertions.assertEquals(List.of(21, 22, 23, 24, 25), ids(index.find(new GameQuery(20, 10, false, null, null))));
+        Assertions.assertEquals(List.of(), ids(index.find(new GameQuery(25, 10, false, null, null))));
+    }
+
+    @Test
+    @DisplayName("Filter By Open Seat, Player And Finished")
+    public void filters() {
+        GameSummaryIndex index = new GameSummaryIndex();
+        index.put(new GameSummary(1, null, null, "empty", false));
+        index.put(new GameSummary(2, "alice", null, "waiting", false));
+        index.put(new GameSummary(3, "alice", "bob", "playing", false));
+        index.put(new GameSummary(4, "bob", "alice", "done", true));
+        index.put(new GameSummary(5, "carol", "dave", "other", true));
+
+        Assertions.assertEquals(List.of(1, 2), ids(index.find(new GameQuery(0, 10, true, null, null))));
+        Assertions.assertEquals(List.of(2, 3, 4), ids(index.find(new GameQuery(0, 10, false, "alice", null))));
+        Assertions.assertEquals(List.of(3, 4), ids(index.find(new GameQuery(2, 10, false, "alice", null))));
+        Assertions.assertEquals(List.of(4, 5), ids(index.find(new GameQuery(0, 10, false, null, true))));
+        Assertions.assertEquals(List.of(2, 3), ids(index.find(new GameQuery(0, 10, false, "alice", false))));
+        Assertions.assertEquals(List.of(2), ids(index.find(new GameQuery(0, 10, true, "alice", null))));
+        Assertions.assertEquals(List.of(), ids(index.find(new GameQuery(0, 10, false, "erin", null))));
+    }
+
+    @Test
+    @DisplayName("Move A Game Between Sets When Its Seats Change")
+    public void reindex() {
+        GameSummaryIndex index = new GameSummaryIndex();
+        index.put(new GameSummary(1, "alice", null, "game", false));
+        index.put(new GameSummary(1, "alice", "bob", "game", false));
+        Assertions.assertEquals(List.of(), ids(index.find(new GameQuery(0, 10, true, null, null))));
+        Assertions.assertEquals(List.of(1), ids(index.find(new GameQuery(0, 10, false, "bob", null))));
+
+        index.put(new GameSummary(1, "carol", "bob", "game", false));
+        Assertions.assertEquals(List.of(), ids(index.find(new GameQuery(0, 10, false, "alice", null))));
+        Assertions.assertEquals(List.of(1), ids(index.find(new GameQuery(0, 10, false, "carol", null))));
+
+        index.clear();
+        Assertions.assertEquals(List.of(), ids(index.find(new GameQuery(0, 10, false, "bob", null))));
+    }
+
+    @Test
+    @DisplayName("List Checkmated Games As Finished")
+    public void finished() throws DataAccessException, InvalidMoveException {
+        MemoryGameDAO dao = new MemoryGameDAO();
+        int mated = dao.createGame("mated");
+        int open = dao.createGame("open");
+        ChessGame game = new ChessGame();
+        for (String move : "f3 e5 g4 Qh4#".split(" ")) {
+            game.makeMove(San.parse(game, move));
+        }
+        dao.updateGame(new GameData(mated, "alice", "bob", "mated", game));
+
+        Assertions.assertEquals(List.of(new GameSummary(mated, "alice", "bob", "mated", true)),
+                dao.listGames(new GameQuery(0, 10, false, null, true)));
+        Assertions.assertEquals(List.of(open), ids(dao.listGames(new GameQuery(0, 10, false, null, false))));
+    }
+}
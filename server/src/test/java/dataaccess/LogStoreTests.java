@@ -0,0 +1,109 @@
+package dataaccess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class LogStoreTests {
+
+    @TempDir
+    Path directory;
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    @DisplayName("Rebuild The Index From The Log And Drop A Torn Record")
+    public void recover() throws Exception {
+        Path file = directory.resolve("store.log");
+        try (LogStore store = new LogStore(file, true)) {
+            Assertions.assertTrue(store.insert(1, "alice", bytes("a1")));
+            Assertions.assertFalse(store.insert(1, "alice", bytes("a2")));
+            Assertions.assertTrue(store.replace(1, "alice", bytes("a3")));
+            Assertions.assertFalse(store.replace(1, "bob", bytes("b1")));
+            store.put(1, "bob", bytes("b2"));
+            store.put(2, "bob", bytes("other table"));
+            Assertions.assertTrue(store.delete(1, "bob"));
+            Assertions.assertFalse(store.delete(1, "bob"));
+        }
+        long intact = Files.size(file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.APPEND)) {
+            // The start of a record that a crash cut short
+            channel.write(ByteBuffer.wrap(new byte[]{0, 0, 0, 40, 1, 2, 3}));
+        }
+
+        try (LogStore store = new LogStore(file, true)) {
+            Assertions.assertEquals(intact, Files.size(file));
+            Assertions.assertArrayEquals(bytes("a3"), store.get(1, "alice"));
+            Assertions.assertNull(store.get(1, "bob"));
+            Assertions.assertArrayEquals(bytes("other table"), store.get(2, "bob"));
+            store.clear(2);
+            Assertions.assertEquals(List.of(), store.keys(2));
+        }
+        try (LogStore store = new LogStore(file, true)) {
+            Assertions.assertNull(store.get(2, "bob"));
+            Assertions.assertEquals(List.of("alice"), store.keys(1));
+        }
+    }
+
+    @Test
+    @DisplayName("Compact Once Dead Records Outweigh Live Ones")
+    public void compact() throws Exception {
+        Path file = directory.resolve("store.log");
+        try (LogStore store = new LogStore(file, false, 1024)) {
+            for (int i = 0; i < 1000; i++) {
+                store.put(1, "key" + (i % 10), bytes("value " + i));
+            }
+            LogStore.Stats stats = store.getStats();
+            Assertions.assertTrue(stats.compactions() > 0);
+            Assertions.assertTrue(stats.fileBytes() < 2048 + stats.liveBytes());
+            Assertions.assertEquals(stats.fileBytes(), Files.size(file));
+            Assertions.assertArrayEquals(bytes("value 999"), store.get(1, "key9"));
+        }
+        try (LogStore store = new LogStore(file, false, 1024)) {
+            Assertions.assertEquals(10, store.keys(1).size());
+            Assertions.assertArrayEquals(bytes("value 990"), store.get(1, "key0"));
+        }
+    }
+
+    @Test
+    @DisplayName("Share Fsyncs Between Concurrent Writers")
+    public void groupCommit() throws Exception {
+        try (LogStore store = new LogStore(directory.resolve("store.log"), true)) {
+            ExecutorService executor = Executors.newFixedThreadPool(8);
+            try {
+                List<Future<?>> writers = new ArrayList<>();
+                for (int t = 0; t < 8; t++) {
+                    int thread = t;
+                    writers.add(executor.submit(() -> {
+                        for (int i = 0; i < 50; i++) {
+                            store.put(1, thread + ":" + i, bytes("value"));
+                        }
+                        return null;
+                    }));
+                }
+                for (Future<?> writer : writers) {
+                    writer.get();
+                }
+            } finally {
+                executor.shutdown();
+            }
+            Assertions.assertEquals(400, store.keys(1).size());
+            Assertions.assertTrue(store.getStats().syncs() <= 400);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package dataaccess;
+
+import chess.ChessGame;
+import chess.Fen;
+import chess.InvalidMoveException;
+import chess.San;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collection;
+import java.util.TreeMap;
+
+public class MoveLogTests {
+
+    /**
+     * Stands in for the game and game_move rows of one game.
+     */
+    private static final class StoredLog {
+        MoveLog.Header header = new MoveLog.Header(Fen.START_POSITION, 0, 0, 0, 0, null);
+        final TreeMap<Integer, Short> rows = new TreeMap<>();
+
+        MoveLog.Write save(ChessGame game, int snapshotInterval) {
+            MoveLog.Range overlap = MoveLog.overlap(header, game);
+            short[] logged = new short[overlap.to() - overlap.from()];
+            for (int i = 0; i < logged.length; i++) {
+                logged[i] = rows.get(overlap.from() + i);
+            }
+            MoveLog.Write write = MoveLog.plan(header, logged, game, snapshotInterval);
+            if (write.deleteFrom() >= 0) {
+                rows.tailMap(write.deleteFrom()).clear();
+            }
+            for (int i = 0; i < write.moves().length; i++) {
+                Assertions.assertNull(rows.put(write.firstPly() + i, write.moves()[i]));
+            }
+            header = write.header();
+            Assertions.assertEquals(header.plies(), rows.size());
+            return write;
+        }
+
+        ChessGame load() throws InvalidMoveException {
+            Collection<Short> tail = rows.subMap(header.snapshotPly(), header.plies()).values();
+            short[] codes = new short[tail.size()];
+            int i = 0;
+            for (short code : tail) {
+                codes[i++] = code;
+            }
+            return MoveLog.load(header, codes);
+        }
+    }
+
+    private static void play(ChessGame game, String moves) throws InvalidMoveException {
+        for (String move : moves.split(" ")) {
+            game.makeMove(San.parse(game, move));
+        }
+    }
+
+    @Test
+    @DisplayName("Append One Row Per Move And Load From The Latest Snapshot")
+    public void appendAndSnapshot() throws InvalidMoveException {
+        StoredLog log = new StoredLog();
+        ChessGame game = new ChessGame();
+        String moves = "e4 e5 Nf3 Nc6 Bb5 a6 Bxc6 dxc6 O-O f6 d4 exd4 Nxd4 c5 Nb3 Qxd1 Rxd1 Bg4 f3 Be6";
+        for (String move : moves.split(" ")) {
+            game.makeMove(San.parse(game, move));
+            MoveLog.Write write = log.save(game, 4);
+            Assertions.assertEquals(-1, write.deleteFrom());
+            Assertions.assertEquals(1, write.moves().length);
+        }
+
+        Assertions.assertNotNull(log.header.snapshot());
+        Assertions.assertTrue(log.header.snapshotPly() >= 4);
+        ChessGame loaded = log.load();
+        Assertions.assertEquals(game, loaded);
+        Assertions.assertEquals(20 - log.header.snapshotPly(), loaded.getMoveHistory().size());
+
+        // A game loaded from a snapshot keeps appending where the log left off
+        play(loaded, "Nc3");
+        MoveLog.Write write = log.save(loaded, 4);
+        Assertions.assertEquals(-1, write.deleteFrom());
+        Assertions.assertEquals(20, write.firstPly());
+        Assertions.assertEquals(1, write.moves().length);
+        play(game, "Nc3");
+        Assertions.assertEquals(game, log.load());
+    }
+
+    @Test
+    @DisplayName("Count Repetitions From Before The Snapshot")
+    public void repetitionAcrossSnapshot() throws InvalidMoveException {
+        StoredLog log = new StoredLog();
+        ChessGame game = new ChessGame();
+        for (String move : "e4 e5 Nf3 Nc6 Ng1 Nb8 Nf3 Nc6 Ng1 Nb8 Nf3 Nc6 Ng1 Nb8".split(" ")) {
+            game.makeMove(San.parse(game, move));
+            log.save(game, 2);
+        }
+        // Only the position after the last pawn move can be a snapshot, and the knight moves after it are
+        // replayed. No white pawn can take e5 en passant, so that position recurs after every Nb8
+        Assertions.assertEquals(2, log.header.snapshotPly());
+        ChessGame loaded = log.load();
+        Assertions.assertEquals(4, game.getRepetitionCount());
+        Assertions.assertEquals(game.getRepetitionCount(), loaded.getRepetitionCount());
+        Assertions.assertTrue(loaded.isThreefoldRepetition());
+    }
+
+    @Test
+    @DisplayName("Rewrite The Log After Moves Are Taken Back")
+    public void takeBack() throws InvalidMoveException {
+        StoredLog log = new StoredLog();
+        ChessGame game = new ChessGame();
+        play(game, "e4 e5 Nf3 Nc6 Bb5 a6");
+        log.save(game, 100);
+
+        game.undoMove();
+        game.undoMove();
+        play(game, "Bc4 Bc5");
+        MoveLog.Write write = log.save(game, 100);
+        Assertions.assertEquals(4, write.deleteFrom());
+        Assertions.assertEquals(2, write.moves().length);
+        Assertions.assertEquals(game, log.load());
+
+        game.undoMove();
+        log.save(game, 100);
+        Assertions.assertEquals(5, log.header.plies());
+        Assertions.assertEquals(game, log.load());
+
+        // The last move matches the log again, but an earlier one does not
+        StoredLog other = new StoredLog();
+        ChessGame changed = new ChessGame();
+        play(changed, "e4 e5 Nf3");
+        other.save(changed, 100);
+        changed.undoMove();
+        changed.undoMove();
+        play(changed, "e6 Nf3");
+        write = other.save(changed, 100);
+        Assertions.assertEquals(1, write.deleteFrom());
+        Assertions.assertEquals(2, write.moves().length);
+        Assertions.assertEquals(changed, other.load());
+    }
+
+    @Test
+    @DisplayName("Start The Log Over For A Game From Another Position")
+    public void newStart() throws InvalidMoveException {
+        StoredLog log = new StoredLog();
+        ChessGame game = new ChessGame();
+        play(game, "e4 e5");
+        log.save(game, 100);
+
+        ChessGame other = Fen.parse("4k3/8/8/8/8/8/4P3/4K3 w - - 0 40");
+        play(other, "e4 Kd7");
+        MoveLog.Write write = log.save(other, 100);
+        Assertions.assertEquals(0, write.deleteFrom());
+        Assertions.assertEquals(78, log.header.basePly());
+        Assertions.assertEquals(2, log.header.plies());
+        Assertions.assertEquals(other, log.load());
+    }
+}
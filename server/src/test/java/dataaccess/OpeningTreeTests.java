@@ -0,0 +1,148 @@
+package dataaccess;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import chess.Fen;
+import chess.InvalidMoveException;
+import chess.San;
+import model.GameData;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+
+public class OpeningTreeTests {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Count Results Per Move And Reload From Snapshot")
+    public void countAndReload() throws Exception {
+        Path file = directory.resolve("tree.bin");
+        OpeningTree tree = new OpeningTree(file, 4, 3);
+        tree.recordGame(play("e4", "e5", "Nf3"), ChessGame.TeamColor.WHITE);
+        tree.recordGame(play("e4", "c5"), ChessGame.TeamColor.BLACK);
+        Assertions.assertFalse(Files.exists(file));
+        tree.recordGame(play("d4", "d5"), null);
+        Assertions.assertTrue(Files.exists(file));
+
+        long start = new ChessGame().getPositionHash();
+        List<OpeningTree.MoveStats> moves = tree.movesFrom(start);
+        Assertions.assertEquals(2, moves.size());
+        Assertions.assertEquals(new OpeningTree.MoveStats(move("e4"), 1, 0, 1), moves.get(0));
+        Assertions.assertEquals(new OpeningTree.MoveStats(move("d4"), 0, 1, 0), moves.get(1));
+
+        long afterE4 = play("e4").getPositionHash();
+        Assertions.assertEquals(1, tree.get(afterE4, new ChessMove(pos("c7"), pos("c5"), null)).wins());
+        Assertions.assertEquals(1, tree.get(afterE4, new ChessMove(pos("e7"), pos("e5"), null)).losses());
+        Assertions.assertNull(tree.get(afterE4, new ChessMove(pos("d7"), pos("d5"), null)));
+
+        OpeningTree reloaded = new OpeningTree(file, 4, 0);
+        Assertions.assertEquals(tree.size(), reloaded.size());
+        Assertions.assertEquals(moves, reloaded.movesFrom(start));
+    }
+
+    @Test
+    @DisplayName("Count Games Once When Written Through The DAO")
+    public void countWrites() throws Exception {
+        OpeningTree tree = new OpeningTree(directory.resolve("tree.bin"), 4, 0);
+        GameDAO dao = new IndexingGameDAO(new MemoryGameDAO(), new PositionIndex(directory.resolve("positions")),
+                tree);
+        int gameID = dao.createGame("mate");
+        dao.updateGame(new GameData(gameID, null, null, "mate", play("f3", "e5", "g4")));
+        Assertions.assertEquals(0, tree.size());
+
+        dao.updateGame(new GameData(gameID, null, null, "mate", play("f3", "e5", "g4", "Qh4#")));
+        dao.updateGame(new GameData(gameID, "white", "black", "mate", play("f3", "e5", "g4", "Qh4#")));
+        Assertions.assertEquals(List.of(new OpeningTree.MoveStats(move("f3"), 0, 0, 1)),
+                tree.movesFrom(new ChessGame().getPositionHash()));
+    }
+
+    @Test
+    @DisplayName("Count A Game Once When Threads Write It Together")
+    public void countConcurrentWrites() throws Exception {
+        OpeningTree tree = new OpeningTree(directory.resolve("tree.bin"), 4, 0);
+        GameDAO dao = new IndexingGameDAO(new MemoryGameDAO(), new PositionIndex(directory.resolve("positions")),
+                tree);
+        int gameID = dao.createGame("mate");
+        GameData finished = new GameData(gameID, null, null, "mate", play("f3", "e5", "g4", "Qh4#"));
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> writers = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            Thread writer = new Thread(() -> {
+                try {
+                    start.await();
+                    dao.updateGame(finished);
+                } catch (InterruptedException | DataAccessException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            writer.start();
+            writers.add(writer);
+        }
+        start.countDown();
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        Assertions.assertEquals(List.of(new OpeningTree.MoveStats(move("f3"), 0, 0, 1)),
+                tree.movesFrom(new ChessGame().getPositionHash()));
+    }
+
+    @Test
+    @DisplayName("Grow Past Initial Capacity")
+    public void grow() throws Exception {
+        OpeningTree tree = new OpeningTree(directory.resolve("tree.bin"), 40, 0);
+        Random random = new Random(42);
+        for (int g = 0; g < 100; g++) {
+            ChessGame game = new ChessGame();
+            for (int i = 0; i < 40; i++) {
+                List<ChessMove> legal = new ArrayList<>();
+                for (int row = 1; row <= 8; row++) {
+                    for (int col = 1; col <= 8; col++) {
+                        ChessPiece piece = game.getBoard().getPiece(new ChessPosition(row, col));
+                        if (piece != null && piece.getTeamColor() == game.getTeamTurn()) {
+                            legal.addAll(game.validMoves(new ChessPosition(row, col)));
+                        }
+                    }
+                }
+                if (legal.isEmpty()) {
+                    break;
+                }
+                game.makeMove(legal.get(random.nextInt(legal.size())));
+            }
+            tree.recordGame(game, g % 3 == 0 ? null : ChessGame.TeamColor.WHITE);
+        }
+        Assertions.assertTrue(tree.size() > 2000);
+        tree.snapshot();
+        OpeningTree reloaded = new OpeningTree(directory.resolve("tree.bin"), 200, 0);
+        Assertions.assertEquals(tree.movesFrom(new ChessGame().getPositionHash()),
+                reloaded.movesFrom(new ChessGame().getPositionHash()));
+        Assertions.assertEquals(tree.size(), reloaded.size());
+    }
+
+    private static ChessGame play(String... moves) throws InvalidMoveException {
+        ChessGame game = Fen.parse(Fen.START_POSITION);
+        for (String move : moves) {
+            game.makeMove(San.parse(game, move));
+        }
+        return game;
+    }
+
+    private static ChessMove move(String san) throws InvalidMoveException {
+        return San.parse(new ChessGame(), san);
+    }
+
+    private static ChessPosition pos(String square) {
+        return new ChessPosition(square.charAt(1) - '0', square.charAt(0) - 'a' + 1);
+    }
+}
@@ -0,0 +1,122 @@
+package dataaccess;
+
+import chess.ChessGame;
+import chess.Fen;
+import chess.InvalidMoveException;
+import chess.San;
+import model.GameData;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+public class PositionIndexTests {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Find Positions Across Pending And Flushed Postings")
+    public void findAcrossSegments() throws Exception {
+        PositionIndex index = new PositionIndex(directory, 5);
+        index.addGame(1, play("e4", "e5", "Nf3", "Nc6"));
+        index.addGame(2, play("Nf3", "e5", "e4", "Nc6"));
+        index.addGame(3, play("d4", "d5"));
+
+        ChessGame transposed = play("e4", "e5", "Nf3", "Nc6");
+        Assertions.assertEquals(List.of(new PositionIndex.Posting(1, 4), new PositionIndex.Posting(2, 4)),
+                index.find(transposed));
+        Assertions.assertEquals(3, index.find(new ChessGame()).size());
+        Assertions.assertEquals(List.of(), index.find(play("a4")));
+        Assertions.assertTrue(index.segmentCount() > 1);
+
+        index.compact();
+        Assertions.assertEquals(1, index.segmentCount());
+        Assertions.assertEquals(2, index.find(transposed).size());
+
+        PositionIndex reopened = new PositionIndex(directory, 5);
+        Assertions.assertEquals(List.of(new PositionIndex.Posting(3, 2)), reopened.find(play("d4", "d5")));
+        reopened.add(transposed.getPositionHash(), 9, 4);
+        Assertions.assertEquals(3, reopened.find(transposed).size());
+    }
+
+    @Test
+    @DisplayName("Index Games Written Through The DAO")
+    public void indexWrites() throws Exception {
+        PositionIndex index = new PositionIndex(directory);
+        GameDAO dao = new IndexingGameDAO(new MemoryGameDAO(), index,
+                new OpeningTree(directory.resolve("tree.bin")));
+        int gameID = dao.createGame("indexed");
+        Assertions.assertEquals(List.of(new PositionIndex.Posting(gameID, 0)), index.find(new ChessGame()));
+
+        dao.updateGame(new GameData(gameID, null, null, "indexed", play("e4", "e5")));
+        dao.updateGame(new GameData(gameID, null, null, "indexed", play("e4", "e5", "Nf3")));
+        Assertions.assertEquals(List.of(new PositionIndex.Posting(gameID, 2)), index.find(play("e4", "e5")));
+        Assertions.assertEquals(List.of(new PositionIndex.Posting(gameID, 3)), index.find(play("e4", "e5", "Nf3")));
+        Assertions.assertEquals(List.of(new PositionIndex.Posting(gameID, 0)), index.find(new ChessGame()));
+    }
+
+    @Test
+    @DisplayName("Index Plies Again That Were Pending In A Crash")
+    public void reindexAfterCrash() throws Exception {
+        PositionIndex index = new PositionIndex(directory, 1000);
+        GameDAO games = new MemoryGameDAO();
+        GameDAO dao = new IndexingGameDAO(games, index, new OpeningTree(directory.resolve("tree.bin")));
+        int gameID = dao.createGame("indexed");
+        dao.updateGame(new GameData(gameID, null, null, "indexed", play("e4", "e5")));
+        index.flush();
+        dao.updateGame(new GameData(gameID, null, null, "indexed", play("e4", "e5", "Nf3")));
+        Assertions.assertEquals(3, index.lastIndexedPly(gameID));
+
+        // Reopening without a flush loses the pending posting for Nf3
+        PositionIndex reopened = new PositionIndex(directory, 1000);
+        Assertions.assertEquals(2, reopened.lastIndexedPly(gameID));
+        Assertions.assertEquals(List.of(), reopened.find(play("e4", "e5", "Nf3")));
+
+        dao = new IndexingGameDAO(games, reopened, new OpeningTree(directory.resolve("tree.bin")));
+        dao.updateGame(new GameData(gameID, null, null, "indexed", play("e4", "e5", "Nf3", "Nc6")));
+        Assertions.assertEquals(List.of(new PositionIndex.Posting(gameID, 3)), reopened.find(play("e4", "e5", "Nf3")));
+        Assertions.assertEquals(List.of(new PositionIndex.Posting(gameID, 4)),
+                reopened.find(play("e4", "e5", "Nf3", "Nc6")));
+        Assertions.assertEquals(-1, reopened.lastIndexedPly(gameID + 1));
+    }
+
+    @Test
+    @DisplayName("Compact When Flushes Pass The Segment Limit")
+    public void compactOnFlush() throws Exception {
+        PositionIndex index = new PositionIndex(directory, 1, 3);
+        index.addGame(1, play("e4", "e5", "Nf3", "Nc6", "Bb5", "a6"));
+        Assertions.assertTrue(index.segmentCount() <= 3);
+        Assertions.assertEquals(List.of(new PositionIndex.Posting(1, 6)),
+                index.find(play("e4", "e5", "Nf3", "Nc6", "Bb5", "a6")));
+        Assertions.assertEquals(List.of(new PositionIndex.Posting(1, 0)), index.find(new ChessGame()));
+    }
+
+    @Test
+    @DisplayName("Bloom Filter Has No False Negatives")
+    public void bloomFilter() {
+        BloomFilter bloom = new BloomFilter(1000);
+        for (long key = 0; key < 1000; key++) {
+            bloom.add(key * 0x9E3779B97F4A7C15L);
+        }
+        int falsePositives = 0;
+        for (long key = 0; key < 1000; key++) {
+            Assertions.assertTrue(bloom.mightContain(key * 0x9E3779B97F4A7C15L));
+            if (bloom.mightContain(~key * 0x9E3779B97F4A7C15L)) {
+                falsePositives++;
+            }
+        }
+        Assertions.assertTrue(falsePositives < 50, "false positives: " + falsePositives);
+    }
+
+    private static ChessGame play(String... moves) throws InvalidMoveException {
+        ChessGame game = Fen.parse(Fen.START_POSITION);
+        for (String move : moves) {
+            game.makeMove(San.parse(game, move));
+        }
+        return game;
+    }
+}
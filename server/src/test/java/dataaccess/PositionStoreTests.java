@@ -0,0 +1,77 @@
+package dataaccess;
+
+import chess.ChessGame;
+import chess.Fen;
+import chess.InvalidMoveException;
+import chess.San;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class PositionStoreTests {
+
+    @Test
+    @DisplayName("Store, Remove And Compact Positions")
+    public void storeAndCompact() throws InvalidMoveException {
+        PositionStore store = new PositionStore();
+        ChessGame opening = new ChessGame();
+        opening.makeMove(San.parse(opening, "e4"));
+        for (int gameID = 1; gameID <= 40_000; gameID++) {
+            store.put(gameID, gameID % 2 == 0 ? opening : new ChessGame());
+        }
+        long fullBytes = store.offHeapBytes();
+        for (int gameID = 1; gameID <= 40_000; gameID++) {
+            if (gameID % 4 != 0) {
+                Assertions.assertTrue(store.remove(gameID));
+            }
+        }
+        Assertions.assertFalse(store.remove(1));
+        store.compact();
+
+        Assertions.assertEquals(10_000, store.size());
+        Assertions.assertTrue(store.offHeapBytes() < fullBytes);
+        ChessGame loaded = new ChessGame();
+        for (int gameID = 4; gameID <= 40_000; gameID += 4) {
+            Assertions.assertTrue(store.get(gameID, loaded));
+            Assertions.assertEquals(opening, loaded);
+        }
+        Assertions.assertFalse(store.get(3, loaded));
+
+        store.put(3, new ChessGame());
+        Assertions.assertTrue(store.get(3, loaded));
+        Assertions.assertEquals(new ChessGame(), loaded);
+    }
+
+    @Test
+    @DisplayName("Readers Never See Torn Positions")
+    public void concurrentUpdates() throws Exception {
+        PositionStore store = new PositionStore();
+        ChessGame first = Fen.parse("4k3/8/8/8/8/8/8/4K3 w - - 0 1");
+        ChessGame second = Fen.parse("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR b KQkq - 3 9");
+        store.put(7, first);
+
+        AtomicBoolean done = new AtomicBoolean();
+        ExecutorService pool = Executors.newFixedThreadPool(3);
+        Future<?> writer = pool.submit(() -> {
+            for (int i = 0; i < 50_000; i++) {
+                store.put(7, i % 2 == 0 ? second : first);
+            }
+            done.set(true);
+        });
+        Future<?> reader = pool.submit(() -> {
+            ChessGame loaded = new ChessGame();
+            while (!done.get()) {
+                store.get(7, loaded);
+                Assertions.assertTrue(loaded.equals(first) || loaded.equals(second));
+            }
+        });
+        writer.get();
+        reader.get();
+        pool.shutdown();
+    }
+}
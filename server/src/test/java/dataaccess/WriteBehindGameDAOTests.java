@@ -0,0 +1,219 @@
+package dataaccess;
+
+import chess.ChessGame;
+import chess.InvalidMoveException;
+import chess.San;
+import model.GameData;
+import model.GameSummary;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class WriteBehindGameDAOTests {
+
+    /**
+     * Records each batch it is given, and can hold writes back or fail them.
+     */
+    private static final class RecordingGameDAO extends MemoryGameDAO {
+        final List<List<GameData>> batches = new CopyOnWriteArrayList<>();
+        final AtomicInteger failuresLeft = new AtomicInteger();
+        volatile CountDownLatch gate = new CountDownLatch(0);
+        volatile int rejectedID;
+
+        @Override
+        public void updateGames(Collection<GameData> games) throws DataAccessException {
+            try {
+                gate.await();
+            } catch (InterruptedException e) {
+                throw new DataAccessException("Interrupted");
+            }
+            if (failuresLeft.getAndDecrement() > 0) {
+                throw new DataAccessException("Database unavailable");
+            }
+            if (games.stream().anyMatch(game -> game.gameID() == rejectedID)) {
+                throw new DataAccessException("Data too long for column");
+            }
+            batches.add(List.copyOf(games));
+            super.updateGames(games);
+        }
+    }
+
+    private static GameData named(GameData game, String white) {
+        return new GameData(game.gameID(), white, game.blackUsername(), game.gameName(), game.game());
+    }
+
+    @Test
+    @DisplayName("Coalesce Updates To The Same Game Into One Write")
+    public void coalesce() throws DataAccessException {
+        RecordingGameDAO stored = new RecordingGameDAO();
+        int first = stored.createGame("first");
+        int second = stored.createGame("second");
+        try (var dao = new WriteBehindGameDAO(stored, new WriteBehindGameDAO.Settings(100, 60_000, 100, 1000, 10))) {
+            GameData game = dao.getGame(first);
+            dao.updateGame(named(game, "a"));
+            dao.updateGame(named(game, "b"));
+            dao.updateGame(named(game, "c"));
+            dao.updateGame(named(dao.getGame(second), "d"));
+
+            Assertions.assertEquals("c", dao.getGame(first).whiteUsername());
+            Assertions.assertNull(stored.getGame(first).whiteUsername());
+            Assertions.assertEquals(List.of("c", "d"),
+                    dao.listGames().stream().map(GameData::whiteUsername).toList());
+
+            dao.flush();
+            Assertions.assertEquals(1, stored.batches.size());
+            Assertions.assertEquals(2, stored.batches.get(0).size());
+            Assertions.assertEquals("c", stored.getGame(first).whiteUsername());
+            Assertions.assertEquals("d", stored.getGame(second).whiteUsername());
+
+            WriteBehindGameDAO.Stats stats = dao.getStats();
+            Assertions.assertEquals(4, stats.updates());
+            Assertions.assertEquals(2, stats.coalesced());
+            Assertions.assertEquals(2, stats.written());
+            Assertions.assertThrows(DataAccessException.class,
+                    () -> dao.updateGame(new GameData(99, null, null, "missing", game.game())));
+        }
+    }
+
+    @Test
+    @DisplayName("Write Once The Batch Fills Without Waiting For The Interval")
+    public void batchSize() throws DataAccessException, InterruptedException {
+        RecordingGameDAO stored = new RecordingGameDAO();
+        for (int i = 0; i < 5; i++) {
+            stored.createGame("game " + i);
+        }
+        try (var dao = new WriteBehindGameDAO(stored, new WriteBehindGameDAO.Settings(2, 60_000, 100, 1000, 10))) {
+            dao.updateGame(named(dao.getGame(1), "a"));
+            dao.updateGame(named(dao.getGame(2), "b"));
+            for (int i = 0; i < 100 && stored.batches.isEmpty(); i++) {
+                TimeUnit.MILLISECONDS.sleep(10);
+            }
+            Assertions.assertEquals(1, stored.batches.size());
+            Assertions.assertEquals("b", stored.getGame(2).whiteUsername());
+        }
+    }
+
+    @Test
+    @DisplayName("Block Updates While The Queue Is Full")
+    public void backPressure() throws DataAccessException, InterruptedException {
+        RecordingGameDAO stored = new RecordingGameDAO();
+        for (int i = 0; i < 3; i++) {
+            stored.createGame("game " + i);
+        }
+        stored.gate = new CountDownLatch(1);
+        try (var dao = new WriteBehindGameDAO(stored, new WriteBehindGameDAO.Settings(1, 60_000, 1, 50, 10))) {
+            dao.updateGame(named(dao.getGame(1), "a"));
+            // Wait for the writer to take the first game, then fill the queue behind it
+            for (int i = 0; i < 100 && dao.getStats().pending() > 0; i++) {
+                TimeUnit.MILLISECONDS.sleep(10);
+            }
+            dao.updateGame(named(dao.getGame(2), "b"));
+            dao.updateGame(named(dao.getGame(2), "c"));
+            Assertions.assertThrows(DataAccessException.class, () -> dao.updateGame(named(dao.getGame(3), "d")));
+
+            stored.gate.countDown();
+            dao.updateGame(named(dao.getGame(3), "d"));
+            dao.flush();
+            Assertions.assertEquals("a", stored.getGame(1).whiteUsername());
+            Assertions.assertEquals("c", stored.getGame(2).whiteUsername());
+            Assertions.assertEquals("d", stored.getGame(3).whiteUsername());
+        }
+    }
+
+    @Test
+    @DisplayName("Retry A Failed Write Without Losing Newer States")
+    public void retry() throws DataAccessException {
+        RecordingGameDAO stored = new RecordingGameDAO();
+        int gameID = stored.createGame("game");
+        stored.failuresLeft.set(1);
+        try (var dao = new WriteBehindGameDAO(stored, new WriteBehindGameDAO.Settings(10, 60_000, 10, 1000, 10))) {
+            dao.updateGame(named(dao.getGame(gameID), "a"));
+            Assertions.assertThrows(DataAccessException.class, dao::flush);
+            Assertions.assertEquals("a", dao.getGame(gameID).whiteUsername());
+
+            dao.updateGame(named(dao.getGame(gameID), "b"));
+            dao.flush();
+            Assertions.assertEquals("b", stored.getGame(gameID).whiteUsername());
+            Assertions.assertEquals(1, dao.getStats().failures());
+        }
+    }
+
+    @Test
+    @DisplayName("Keep Queued States Apart From The Caller's Later Moves")
+    public void copyQueued() throws DataAccessException, InvalidMoveException {
+        RecordingGameDAO stored = new RecordingGameDAO();
+        int gameID = stored.createGame("game");
+        try (var dao = new WriteBehindGameDAO(stored, new WriteBehindGameDAO.Settings(10, 60_000, 10, 1000, 10))) {
+            ChessGame game = new ChessGame();
+            dao.updateGame(new GameData(gameID, "a", null, "game", game));
+            game.makeMove(San.parse(game, "e4"));
+            Assertions.assertEquals(List.of(), dao.getGame(gameID).game().getMoveHistory());
+
+            // Reads share the queued copy instead of building a game each time
+            Assertions.assertSame(dao.getGame(gameID), dao.getGame(gameID));
+            dao.flush();
+            Assertions.assertEquals(new ChessGame(), stored.getGame(gameID).game());
+        }
+    }
+
+    @Test
+    @DisplayName("Set Aside A Game Whose Writes Keep Failing")
+    public void setAside() throws DataAccessException {
+        RecordingGameDAO stored = new RecordingGameDAO();
+        int bad = stored.createGame("bad");
+        int good = stored.createGame("good");
+        stored.rejectedID = bad;
+        try (var dao = new WriteBehindGameDAO(stored, new WriteBehindGameDAO.Settings(10, 60_000, 10, 1000, 10))) {
+            dao.updateGame(named(dao.getGame(bad), "a"));
+            for (int i = 1; i < WriteBehindGameDAO.MAX_ATTEMPTS; i++) {
+                dao.updateGame(named(dao.getGame(good), "round " + i));
+                Assertions.assertThrows(DataAccessException.class, dao::flush);
+                Assertions.assertEquals("round " + i, stored.getGame(good).whiteUsername());
+                Assertions.assertEquals("a", dao.getGame(bad).whiteUsername());
+            }
+            dao.updateGame(named(dao.getGame(good), "last"));
+            Assertions.assertThrows(DataAccessException.class, dao::flush);
+
+            Assertions.assertEquals("last", stored.getGame(good).whiteUsername());
+            Assertions.assertNull(dao.getGame(bad).whiteUsername());
+            Assertions.assertEquals(List.of("a"), dao.getSetAside().stream().map(GameData::whiteUsername).toList());
+            Assertions.assertEquals(0, dao.getStats().pending());
+            Assertions.assertEquals(1, dao.getStats().setAside());
+            dao.flush();
+        }
+    }
+
+    @Test
+    @DisplayName("List Pages With Queued States In Place Of Stored Ones")
+    public void listQueued() throws DataAccessException {
+        RecordingGameDAO stored = new RecordingGameDAO();
+        for (int i = 0; i < 6; i++) {
+            stored.createGame("game" + i);
+        }
+        try (var dao = new WriteBehindGameDAO(stored, new WriteBehindGameDAO.Settings(100, 60_000, 100, 1000, 10))) {
+            // Game 2 takes its last seat and game 5 frees one, both still only queued
+            dao.updateGame(new GameData(2, "alice", "bob", "game1", dao.getGame(2).game()));
+            stored.updateGame(new GameData(5, "carol", "dave", "game4", stored.getGame(5).game()));
+            dao.updateGame(new GameData(5, "carol", null, "game4", dao.getGame(5).game()));
+
+            GameQuery open = new GameQuery(0, 3, true, null, null);
+            Assertions.assertEquals(List.of(1, 3, 4),
+                    dao.listGames(open).stream().map(GameSummary::gameID).toList());
+            Assertions.assertEquals(List.of(5, 6), dao.listGames(new GameQuery(4, 3, true, null, null)).stream()
+                    .map(GameSummary::gameID).toList());
+            Assertions.assertEquals(List.of(2), dao.listGames(new GameQuery(0, 3, false, "bob", null)).stream()
+                    .map(GameSummary::gameID).toList());
+
+            dao.flush();
+            Assertions.assertEquals(List.of(1, 3, 4),
+                    stored.listGames(open).stream().map(GameSummary::gameID).toList());
+        }
+    }
+}
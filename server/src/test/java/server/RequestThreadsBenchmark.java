@@ -0,0 +1,142 @@
+package server;
+
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Compares the pooled and virtual request thread modes under many concurrent clients.
+ * <p>
+ * For each mode and client count, a server is started on the engine configured in db.properties,
+ * one user is registered and one game created, and every client then fetches the game with
+ * {@code GET /game/:gameID} in a loop for the run time. Each line of output gives the requests per
+ * second, the median, 99th percentile and worst latency, the number of failed requests, and the most
+ * platform threads alive at once.
+ * <p>
+ * Not run by the tests. From the server directory, run it with
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) server.RequestThreadsBenchmark 1000 2000 5000 10000
+ * </pre>
+ * and add {@code -Ddb.engine=file} or {@code -Ddb.engine=memory} to run without MySQL. Each client
+ * holds its own connection, so the open file limit must allow twice the largest client count.
+ */
+public class RequestThreadsBenchmark {
+    private static final Duration WARM_UP = Duration.ofSeconds(5);
+    private static final Duration RUN = Duration.ofSeconds(20);
+
+    private record Result(long requests, long failures, long[] latencies, int peakThreads) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int[] clientCounts = args.length == 0 ? new int[]{1000, 2000, 5000, 10000}
+                : Arrays.stream(args).mapToInt(Integer::parseInt).toArray();
+        System.out.printf("%-8s %7s %10s %9s %9s %9s %8s %8s%n",
+                "mode", "clients", "req/s", "p50 ms", "p99 ms", "max ms", "failed", "threads");
+        for (int clients : clientCounts) {
+            for (Server.RequestThreads mode : Server.RequestThreads.values()) {
+                Result result = run(mode, clients);
+                long[] latencies = result.latencies();
+                Arrays.sort(latencies);
+                System.out.printf("%-8s %7d %10.0f %9.1f %9.1f %9.1f %8d %8d%n", mode, clients,
+                        result.requests() / (double) RUN.toSeconds(), millis(percentile(latencies, 0.50)),
+                        millis(percentile(latencies, 0.99)), millis(percentile(latencies, 1.0)),
+                        result.failures(), result.peakThreads());
+            }
+        }
+    }
+
+    /**
+     * Helper method to start a server in one mode and load it with clients.
+     */
+    private static Result run(Server.RequestThreads mode, int clients) throws Exception {
+        Path data = Files.createTempDirectory("benchmark");
+        Server server = new Server(data, mode);
+        int port = server.run(0);
+        try (HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(30)).build();
+             ExecutorService clientThreads = Executors.newVirtualThreadPerTaskExecutor()) {
+            String user = "user" + System.nanoTime();
+            HttpResponse<String> registered = http.send(HttpRequest.newBuilder(URI.create(
+                            "http://localhost:" + port + "/user"))
+                    .POST(HttpRequest.BodyPublishers.ofString(String.format(
+                            "{\"username\":\"%s\",\"password\":\"secret\",\"email\":\"%s@example.com\"}", user, user)))
+                    .build(), HttpResponse.BodyHandlers.ofString());
+            String authToken = registered.body().replaceAll(".*\"authToken\":\"([^\"]+)\".*", "$1");
+            int gameID = server.getDataAccess().getGameDAO().createGame("benchmark");
+            HttpRequest getGame = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/game/" + gameID))
+                    .header("authorization", authToken).timeout(Duration.ofSeconds(60)).build();
+
+            long start = System.nanoTime();
+            long measureFrom = start + WARM_UP.toNanos();
+            long end = measureFrom + RUN.toNanos();
+            LongAdder requests = new LongAdder();
+            LongAdder failures = new LongAdder();
+            long[][] perClient = new long[clients][];
+            CountDownLatch done = new CountDownLatch(clients);
+            for (int i = 0; i < clients; i++) {
+                int client = i;
+                clientThreads.execute(() -> {
+                    int count = 0;
+                    long[] latencies = new long[1024];
+                    try {
+                        for (long now = System.nanoTime(); now < end; now = System.nanoTime()) {
+                            boolean ok;
+                            try {
+                                ok = http.send(getGame, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+                            } catch (Exception e) {
+                                ok = false;
+                            }
+                            long finished = System.nanoTime();
+                            if (now < measureFrom || finished > end) {
+                                continue;
+                            }
+                            if (!ok) {
+                                failures.increment();
+                                continue;
+                            }
+                            requests.increment();
+                            if (count == latencies.length) {
+                                latencies = Arrays.copyOf(latencies, count * 2);
+                            }
+                            latencies[count++] = finished - now;
+                        }
+                    } finally {
+                        perClient[client] = Arrays.copyOf(latencies, count);
+                        done.countDown();
+                    }
+                });
+            }
+            int peakThreads = 0;
+            while (!done.await(100, TimeUnit.MILLISECONDS)) {
+                peakThreads = Math.max(peakThreads, ManagementFactory.getThreadMXBean().getThreadCount());
+            }
+            long[] all = Arrays.stream(perClient).flatMapToLong(Arrays::stream).toArray();
+            return new Result(requests.sum(), failures.sum(), all, peakThreads);
+        } finally {
+            server.stop();
+        }
+    }
+
+    private static long percentile(long[] sorted, double fraction) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(fraction * sorted.length) - 1)];
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+}
@@ -0,0 +1,60 @@
+package server;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+public class VirtualThreadPoolTests {
+
+    @Test
+    @DisplayName("Run Every Task On Its Own Virtual Thread")
+    public void virtualThreads() throws Exception {
+        VirtualThreadPool pool = new VirtualThreadPool();
+        pool.start();
+        int tasks = 10_000;
+        CountDownLatch started = new CountDownLatch(tasks);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(tasks);
+        for (int i = 0; i < tasks; i++) {
+            pool.execute(() -> {
+                Assertions.assertTrue(Thread.currentThread().isVirtual());
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                finished.countDown();
+            });
+        }
+        // Every task blocks at once, far more than a platform pool would hold
+        Assertions.assertTrue(started.await(10, TimeUnit.SECONDS));
+        Assertions.assertEquals(tasks, pool.getThreads());
+        Assertions.assertFalse(pool.isLowOnThreads());
+
+        release.countDown();
+        Assertions.assertTrue(finished.await(10, TimeUnit.SECONDS));
+        pool.stop();
+        pool.join();
+        Assertions.assertEquals(0, pool.getThreads());
+    }
+
+    @Test
+    @DisplayName("Refuse Tasks Until Started And Restart After Stopping")
+    public void lifecycle() throws Exception {
+        VirtualThreadPool pool = new VirtualThreadPool();
+        Assertions.assertThrows(RejectedExecutionException.class, () -> pool.execute(() -> { }));
+
+        pool.start();
+        pool.stop();
+        pool.start();
+        CountDownLatch ran = new CountDownLatch(1);
+        pool.execute(ran::countDown);
+        Assertions.assertTrue(ran.await(10, TimeUnit.SECONDS));
+        pool.stop();
+    }
+}
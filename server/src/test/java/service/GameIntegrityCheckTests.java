@@ -0,0 +1,100 @@
+package service;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import chess.Fen;
+import chess.InvalidMoveException;
+import chess.MoveCodec;
+import chess.San;
+import com.google.gson.Gson;
+import dataaccess.DataAccessException;
+import dataaccess.GameLog;
+import dataaccess.MemoryGameDAO;
+import model.GameData;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+public class GameIntegrityCheckTests {
+    private static final Gson GSON = new Gson();
+
+    @Test
+    @DisplayName("Flag Games Whose Board Diverges From Their Moves")
+    public void flagDivergentGames() throws DataAccessException, InvalidMoveException {
+        MemoryGameDAO dao = new MemoryGameDAO();
+        for (int i = 0; i < 1000; i++) {
+            int gameID = dao.createGame("game " + i);
+            ChessGame game = dao.getGame(gameID).game();
+            game.makeMove(San.parse(game, "e4"));
+            game.makeMove(San.parse(game, "e5"));
+            if (i == 500) {
+                // A piece appears without a move that put it there
+                game.getBoard().addPiece(new ChessPosition(4, 4), new ChessPiece(ChessGame.TeamColor.WHITE,
+                        ChessPiece.PieceType.QUEEN));
+            }
+        }
+        // Turn flipped in storage, as a hand-edited row would be
+        GameData tampered = dao.getGame(777);
+        String json = GSON.toJson(tampered.game()).replace("\"teamTurn\":\"WHITE\"", "\"teamTurn\":\"BLACK\"");
+        dao.updateGame(new GameData(777, null, null, tampered.gameName(), GSON.fromJson(json, ChessGame.class)));
+
+        GameIntegrityCheck.Report report = new GameIntegrityCheck(dao, new ForkJoinPool(4), 16).run();
+
+        Assertions.assertEquals(1000, report.games());
+        Assertions.assertEquals(List.of(501, 777), report.problems().stream().map(GameIntegrityCheck.Problem::gameID).toList());
+    }
+
+    @Test
+    @DisplayName("Accept Consistent Games")
+    public void consistentGame() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+        game.setBoard(board);
+        for (String move : List.of("d4", "d5", "c4", "dxc4", "e3", "b5", "a4", "c6", "axb5", "cxb5")) {
+            game.makeMove(San.parse(game, move));
+        }
+        Assertions.assertNull(GameIntegrityCheck.check(GameLog.of(new GameData(1, null, null, "game", game))));
+        Assertions.assertNull(GameIntegrityCheck.check(GameLog.of(new GameData(1, null, null, "game",
+                GSON.fromJson(GSON.toJson(game), ChessGame.class)))));
+    }
+
+    @Test
+    @DisplayName("Replay The Whole Log And Keep Going Past Unreadable Games")
+    public void wholeLogAndUnreadable() throws DataAccessException, InvalidMoveException {
+        ChessGame snapshot = new ChessGame();
+        for (String move : List.of("e4", "e5", "Nf3")) {
+            snapshot.makeMove(San.parse(snapshot, move));
+        }
+        short[] log = new short[3];
+        ChessGame played = new ChessGame();
+        for (int i = 0; i < log.length; i++) {
+            ChessMove move = San.parse(played, List.of("d4", "d5", "Nf3").get(i));
+            played.makeMove(move);
+            log[i] = (short) MoveCodec.encode(move);
+        }
+        MemoryGameDAO dao = new MemoryGameDAO() {
+            @Override
+            public void forEachGameLog(Consumer<GameLog> action, BiConsumer<Integer, DataAccessException> failed) {
+                action.accept(new GameLog(1, Fen.START_POSITION, log, played));
+                failed.accept(2, new DataAccessException("Move log of game 2 is corrupt"));
+                // A snapshot that does not match the moves logged before it
+                action.accept(new GameLog(3, Fen.START_POSITION, log, snapshot));
+            }
+        };
+
+        GameIntegrityCheck.Report report = new GameIntegrityCheck(dao, new ForkJoinPool(2), 16).run();
+
+        Assertions.assertEquals(3, report.games());
+        Assertions.assertEquals(List.of(2, 3), report.problems().stream().map(GameIntegrityCheck.Problem::gameID).toList());
+        Assertions.assertTrue(report.problems().get(0).reason().contains("corrupt"));
+    }
+}
@@ -0,0 +1,82 @@
+package service;
+
+import chess.ChessGame;
+import chess.InvalidMoveException;
+import chess.San;
+import dataaccess.DataAccessException;
+import dataaccess.MemoryGameDAO;
+import model.GameData;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class GameRegistryTests {
+
+    @Test
+    @DisplayName("Evict Idle Games And Reload Them With Their Changes")
+    public void evictAndReload() throws DataAccessException, InvalidMoveException {
+        MemoryGameDAO dao = new MemoryGameDAO();
+        int idle = dao.createGame("idle");
+        int watched = dao.createGame("watched");
+        AtomicLong now = new AtomicLong();
+        GameRegistry registry = new GameRegistry(dao, Duration.ofSeconds(10), now::get);
+
+        GameData game = registry.getGame(idle);
+        ChessGame played = new ChessGame();
+        played.makeMove(San.parse(played, "e4"));
+        registry.updateGame(new GameData(idle, "white", null, game.gameName(), played));
+        registry.openSession(watched);
+        Assertions.assertEquals(2, registry.getStats().resident());
+        Assertions.assertNull(dao.getGame(idle).whiteUsername());
+
+        now.set(Duration.ofSeconds(5).toNanos());
+        Assertions.assertEquals(0, registry.evictIdle());
+        now.set(Duration.ofSeconds(11).toNanos());
+        Assertions.assertEquals(1, registry.evictIdle());
+        Assertions.assertEquals("white", dao.getGame(idle).whiteUsername());
+
+        GameRegistry.Stats stats = registry.getStats();
+        Assertions.assertEquals(1, stats.resident());
+        Assertions.assertEquals(1, stats.evicted());
+        Assertions.assertEquals(0, stats.reloaded());
+
+        Assertions.assertEquals(played, registry.getGame(idle).game());
+        Assertions.assertEquals(1, registry.getStats().reloaded());
+        Assertions.assertNull(registry.getGame(99));
+
+        registry.closeSession(watched);
+        now.set(Duration.ofSeconds(30).toNanos());
+        Assertions.assertEquals(2, registry.evictIdle());
+        Assertions.assertEquals(0, registry.getStats().resident());
+    }
+
+    @Test
+    @DisplayName("Keep Evicting Past A Game That Cannot Be Written Back")
+    public void evictPastFailure() throws DataAccessException {
+        MemoryGameDAO dao = new MemoryGameDAO() {
+            @Override
+            public synchronized void updateGame(GameData game) throws DataAccessException {
+                if (game.gameName().equals("broken")) {
+                    throw new DataAccessException("Disk full");
+                }
+                super.updateGame(game);
+            }
+        };
+        int broken = dao.createGame("broken");
+        int fine = dao.createGame("fine");
+        AtomicLong now = new AtomicLong();
+        GameRegistry registry = new GameRegistry(dao, Duration.ofSeconds(10), now::get);
+        registry.updateGame(new GameData(broken, "white", null, "broken", new ChessGame()));
+        registry.updateGame(new GameData(fine, "white", null, "fine", new ChessGame()));
+
+        now.set(Duration.ofSeconds(11).toNanos());
+        DataAccessException e = Assertions.assertThrows(DataAccessException.class, registry::evictIdle);
+        Assertions.assertTrue(e.getMessage().contains("[" + broken + "]"), e.getMessage());
+        Assertions.assertEquals("white", dao.getGame(fine).whiteUsername());
+        Assertions.assertEquals(1, registry.getStats().resident());
+        Assertions.assertEquals("white", registry.getGame(broken).whiteUsername());
+    }
+}
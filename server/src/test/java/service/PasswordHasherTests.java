@@ -0,0 +1,46 @@
+package service;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+public class PasswordHasherTests {
+
+    @Test
+    @DisplayName("Verify Only The Hashed Password")
+    public void hashAndVerify() {
+        try (PasswordHasher hasher = new PasswordHasher(new PasswordHasher.Settings(2, 10, 4))) {
+            String hash = hasher.hash("secret").join();
+            Assertions.assertNotEquals("secret", hash);
+            Assertions.assertTrue(hasher.verify("secret", hash).join());
+            Assertions.assertFalse(hasher.verify("guess", hash).join());
+            Assertions.assertFalse(hasher.verify("secret", "not a hash").join());
+            Assertions.assertFalse(hasher.verify("secret", null).join());
+            Assertions.assertFalse(hasher.verify("", null).join());
+
+            PasswordHasher.Stats stats = hasher.getStats();
+            Assertions.assertEquals(1, stats.hashed());
+            Assertions.assertEquals(5, stats.verified());
+            Assertions.assertEquals(0, stats.rejected());
+        }
+    }
+
+    @Test
+    @DisplayName("Refuse Calls At Once When The Queue Is Full")
+    public void saturated() {
+        try (PasswordHasher hasher = new PasswordHasher(new PasswordHasher.Settings(1, 1, 12))) {
+            CompletableFuture<String> running = hasher.hash("first");
+            CompletableFuture<String> queued = hasher.hash("second");
+            Assertions.assertThrows(RejectedExecutionException.class, () -> hasher.hash("third"));
+            Assertions.assertEquals(1, hasher.getStats().rejected());
+
+            // The accepted calls still finish, and the pool takes calls again once they have
+            String first = running.join();
+            Assertions.assertNotNull(queued.join());
+            Assertions.assertTrue(hasher.verify("first", first).join());
+        }
+    }
+}
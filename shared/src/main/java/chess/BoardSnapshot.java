@@ -0,0 +1,74 @@
+package chess;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * An immutable view of a board position, published by a {@link ChessGame} after each move.
+ * <p>
+ * A snapshot shares its rows with the live board instead of copying them, and the board copies a
+ * row before it next writes to it. Once created a snapshot never changes, so it can be read or
+ * serialized from any thread without locking the game.
+ */
+public final class BoardSnapshot {
+    private final ChessPiece[][] board;
+    private final ChessGame.TeamColor teamTurn;
+
+    BoardSnapshot(ChessPiece[][] board, ChessGame.TeamColor teamTurn) {
+        this.board = board;
+        this.teamTurn = teamTurn;
+    }
+
+    /**
+     * Gets the piece located at the given position, or null if the position is empty.
+     *
+     * @param position The position to check.
+     * @return The piece at that position, or null if the position is empty.
+     */
+    public ChessPiece getPiece(ChessPosition position) {
+        int row = position.getRow();
+        int col = position.getColumn();
+        if (row < 1 || row > 8 || col < 1 || col > 8) {
+            return null;
+        }
+        return board[row - 1][col - 1];
+    }
+
+    /**
+     * @return Which team's turn it was when the snapshot was taken
+     */
+    public ChessGame.TeamColor getTeamTurn() {
+        return teamTurn;
+    }
+
+    /**
+     * Copies the snapshot into a new board that can be changed freely.
+     *
+     * @return A new board with the same pieces.
+     */
+    public ChessBoard toBoard() {
+        ChessBoard copy = new ChessBoard();
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                ChessPiece piece = board[row - 1][col - 1];
+                if (piece != null) {
+                    copy.addPiece(new ChessPosition(row, col), piece);
+                }
+            }
+        }
+        return copy;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        BoardSnapshot that = (BoardSnapshot) o;
+        return teamTurn == that.teamTurn && Arrays.deepEquals(board, that.board);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(Arrays.deepHashCode(board), teamTurn);
+    }
+}
@@ -11,6 +11,8 @@ import java.util.Objects;
  */
 public class ChessBoard {
     private ChessPiece[][] board;
+    // Bit r is set while row r is also referenced by a published BoardSnapshot and must be copied before writing
+    private transient int sharedRows;
 
     public ChessBoard() {
         // Initialize the board as an 8x8 array
@@ -25,6 +27,7 @@ public class ChessBoard {
     public void resetBoard() {
         // Clear the board first
         board = new ChessPiece[8][8];
+        sharedRows = 0;
 
         // Place black pieces
         board[7][0] = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK);
@@ -67,6 +70,22 @@ public class ChessBoard {
         return board[position.getRow() - 1][position.getColumn() - 1];
     }
 
+    /**
+     * Gets a piece by zero-based row and column index without creating a position.
+     * The indexes must be in the range 0 to 7.
+     */
+    ChessPiece pieceAt(int rowIndex, int colIndex) {
+        return board[rowIndex][colIndex];
+    }
+
+    /**
+     * Sets a square by zero-based row and column index without creating a position.
+     * The indexes must be in the range 0 to 7.
+     */
+    void setPieceAt(int rowIndex, int colIndex, ChessPiece piece) {
+        writableRow(rowIndex)[colIndex] = piece;
+    }
+
     /**
      * Places a piece at the given position on the board.
      *
@@ -75,7 +94,7 @@ public class ChessBoard {
      */
     public void placePiece(ChessPosition position, ChessPiece piece) {
         if (isValidPosition(position)) {
-            board[position.getRow() - 1][position.getColumn() - 1] = piece;
+            writableRow(position.getRow() - 1)[position.getColumn() - 1] = piece;
         }
     }
 
@@ -88,7 +107,7 @@ public class ChessBoard {
      */
     public void addPiece(ChessPosition position, ChessPiece piece) {
         if (isValidPosition(position)) {
-            board[position.getRow() - 1][position.getColumn() - 1] = piece;
+            writableRow(position.getRow() - 1)[position.getColumn() - 1] = piece;
         }
     }
 
@@ -99,8 +118,35 @@ public class ChessBoard {
      */
     public void clearPiece(ChessPosition position) {
         if (isValidPosition(position)) {
-            board[position.getRow() - 1][position.getColumn() - 1] = null;
+            writableRow(position.getRow() - 1)[position.getColumn() - 1] = null;
+        }
+    }
+
+    /**
+     * Captures the current position as an immutable snapshot. The snapshot shares its rows with
+     * this board, and a row is only copied the next time this board writes to it.
+     *
+     * @param teamTurn The team to move in the captured position.
+     * @return The snapshot.
+     */
+    BoardSnapshot snapshot(ChessGame.TeamColor teamTurn) {
+        sharedRows = 0xFF;
+        return new BoardSnapshot(board.clone(), teamTurn);
+    }
+
+    /**
+     * Helper method to get a row for writing, copying it first if a snapshot still shares it.
+     *
+     * @param rowIndex The zero-based row index.
+     * @return The row array, which is safe to modify.
+     */
+    private ChessPiece[] writableRow(int rowIndex) {
+        int bit = 1 << rowIndex;
+        if ((sharedRows & bit) != 0) {
+            board[rowIndex] = board[rowIndex].clone();
+            sharedRows &= ~bit;
         }
+        return board[rowIndex];
     }
 
     /**
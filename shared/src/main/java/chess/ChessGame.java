@@ -1,6 +1,12 @@
 package chess;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
 
 /**
  * For a class that can manage a chess game, making moves on a board
@@ -9,16 +15,67 @@ import java.util.Collection;
  * signature of the existing methods.
  */
 public class ChessGame {
+    static final int WHITE_KINGSIDE = 1;
+    static final int WHITE_QUEENSIDE = 2;
+    static final int BLACK_KINGSIDE = 4;
+    static final int BLACK_QUEENSIDE = 8;
+    static final int ALL_CASTLING = WHITE_KINGSIDE | WHITE_QUEENSIDE | BLACK_KINGSIDE | BLACK_QUEENSIDE;
 
-    public ChessGame() {
+    // Nibble index of each kind of piece in the packed material counts
+    private static final int PAWNS = 0;
+    private static final int KNIGHTS = 1;
+    private static final int LIGHT_BISHOPS = 2;
+    private static final int DARK_BISHOPS = 3;
+    private static final int ROOKS = 4;
+    private static final int QUEENS = 5;
+    // Any pawn, rook or queen is always enough to mate
+    private static final int MATING_MATERIAL_MASK = 0xF << (PAWNS * 4) | 0xF << (ROOKS * 4) | 0xF << (QUEENS * 4);
+
+    private ChessBoard board;
+    private TeamColor teamTurn;
+    // Bit set of the castling moves that are still allowed
+    private int castlingRights;
+    // Column of a pawn that just moved two squares and can be captured en passant, or 0 if none
+    private int enPassantColumn;
+    private int halfmoveClock;
+    private int fullmoveNumber;
+    // FEN of the position the move history starts from, or null for the standard starting position
+    private String startPosition;
+    // Whether the position was replaced and is the start of the history, but has not been written as
+    // FEN yet; that is put off until a move is made or the start position is asked for
+    private transient boolean startPending;
+    private List<ChessMove> moveHistory = new ArrayList<>();
+    private transient volatile BoardSnapshot snapshot;
+    // Set while a move is only being tried, so the position during the trial is never published
+    private transient boolean trialMove;
+    // Undo records for the moves made since this object was created or its position was replaced
+    private transient List<UndoRecord> undoStack;
+    // Zobrist hash of the current position, kept up to date move by move
+    private transient long positionHash;
+    // Hashes of every position since the game was set up, ending with the current one
+    private transient long[] hashHistory;
+    private transient int historySize;
+    // Per-side piece counts, packed 4 bits per kind of piece
+    private transient int whiteMaterial;
+    private transient int blackMaterial;
+    // Board the transient state above was last rebuilt for. Deserialization runs the constructor and
+    // then puts a new board in place, so a mismatch means that state describes some other position
+    private transient ChessBoard derivedBoard;
 
+    public ChessGame() {
+        board = new ChessBoard();
+        board.resetBoard();
+        teamTurn = TeamColor.WHITE;
+        castlingRights = ALL_CASTLING;
+        fullmoveNumber = 1;
+        positionChanged();
     }
 
     /**
      * @return Which team's turn it is
      */
     public TeamColor getTeamTurn() {
-        throw new RuntimeException("Not implemented");
+        return teamTurn;
     }
 
     /**
@@ -27,7 +84,8 @@ public class ChessGame {
      * @param team the team whose turn it is
      */
     public void setTeamTurn(TeamColor team) {
-        throw new RuntimeException("Not implemented");
+        this.teamTurn = team;
+        positionReplaced();
     }
 
     /**
@@ -46,7 +104,21 @@ public class ChessGame {
      * startPosition
      */
     public Collection<ChessMove> validMoves(ChessPosition startPosition) {
-        throw new RuntimeException("Not implemented");
+        ChessPiece piece = board.getPiece(startPosition);
+        if (piece == null) {
+            return null;
+        }
+
+        Collection<ChessMove> candidates = piece.pieceMoves(board, startPosition);
+        addSpecialMoves(candidates, piece, startPosition);
+
+        Collection<ChessMove> validMoves = new ArrayList<>();
+        for (ChessMove move : candidates) {
+            if (!leavesKingInCheck(move, piece.getTeamColor())) {
+                validMoves.add(move);
+            }
+        }
+        return validMoves;
     }
 
     /**
@@ -56,7 +128,18 @@ public class ChessGame {
      * @throws InvalidMoveException if move is invalid
      */
     public void makeMove(ChessMove move) throws InvalidMoveException {
-        throw new RuntimeException("Not implemented");
+        ChessPiece piece = board.getPiece(move.getStartPosition());
+        if (piece == null) {
+            throw new InvalidMoveException("No piece at the start position");
+        }
+        if (piece.getTeamColor() != teamTurn) {
+            throw new InvalidMoveException("It is not " + piece.getTeamColor() + "'s turn");
+        }
+        if (!isLegalMove(piece, move)) {
+            throw new InvalidMoveException("Illegal move for " + piece.getPieceType());
+        }
+
+        applyMove(piece, move);
     }
 
     /**
@@ -66,7 +149,11 @@ public class ChessGame {
      * @return True if the specified team is in check
      */
     public boolean isInCheck(TeamColor teamColor) {
-        throw new RuntimeException("Not implemented");
+        ChessPosition kingPosition = findKing(teamColor);
+        if (kingPosition == null) {
+            return false;
+        }
+        return isAttacked(kingPosition, opponent(teamColor));
     }
 
     /**
@@ -76,7 +163,7 @@ public class ChessGame {
      * @return True if the specified team is in checkmate
      */
     public boolean isInCheckmate(TeamColor teamColor) {
-        throw new RuntimeException("Not implemented");
+        return isInCheck(teamColor) && !hasAnyValidMove(teamColor);
     }
 
     /**
@@ -87,7 +174,7 @@ public class ChessGame {
      * @return True if the specified team is in stalemate, otherwise false
      */
     public boolean isInStalemate(TeamColor teamColor) {
-        throw new RuntimeException("Not implemented");
+        return !isInCheck(teamColor) && !hasAnyValidMove(teamColor);
     }
 
     /**
@@ -96,7 +183,21 @@ public class ChessGame {
      * @param board the new board to use
      */
     public void setBoard(ChessBoard board) {
-        throw new RuntimeException("Not implemented");
+        this.board = board;
+        // Without any history, castling is allowed wherever a king and rook are still on their home squares
+        castlingRights = 0;
+        if (isHome(1, 5, TeamColor.WHITE, ChessPiece.PieceType.KING)) {
+            if (isHome(1, 8, TeamColor.WHITE, ChessPiece.PieceType.ROOK)) castlingRights |= WHITE_KINGSIDE;
+            if (isHome(1, 1, TeamColor.WHITE, ChessPiece.PieceType.ROOK)) castlingRights |= WHITE_QUEENSIDE;
+        }
+        if (isHome(8, 5, TeamColor.BLACK, ChessPiece.PieceType.KING)) {
+            if (isHome(8, 8, TeamColor.BLACK, ChessPiece.PieceType.ROOK)) castlingRights |= BLACK_KINGSIDE;
+            if (isHome(8, 1, TeamColor.BLACK, ChessPiece.PieceType.ROOK)) castlingRights |= BLACK_QUEENSIDE;
+        }
+        enPassantColumn = 0;
+        halfmoveClock = 0;
+        fullmoveNumber = 1;
+        positionReplaced();
     }
 
     /**
@@ -105,6 +206,695 @@ public class ChessGame {
      * @return the chessboard
      */
     public ChessBoard getBoard() {
-        throw new RuntimeException("Not implemented");
+        return board;
+    }
+
+    /**
+     * @return The number of moves since the last capture or pawn move, for the fifty-move rule
+     */
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
+    /**
+     * @return The number of the current full move, starting at 1 and increasing after each black move
+     */
+    public int getFullmoveNumber() {
+        return fullmoveNumber;
+    }
+
+    int getCastlingRights() {
+        return castlingRights;
+    }
+
+    int getEnPassantColumn() {
+        return enPassantColumn;
+    }
+
+    /**
+     * @return The en passant column if a pawn of the side to move stands next to the pawn that just
+     * moved two squares and so could capture it, or 0 otherwise. Only then does en passant make the
+     * position different for repetition.
+     */
+    int getHashedEnPassantColumn() {
+        if (enPassantColumn == 0) {
+            return 0;
+        }
+        int rowIndex = teamTurn == TeamColor.WHITE ? 4 : 3;
+        for (int colIndex = enPassantColumn - 2; colIndex <= enPassantColumn; colIndex += 2) {
+            if (colIndex >= 0 && colIndex < 8) {
+                ChessPiece piece = board.pieceAt(rowIndex, colIndex);
+                if (piece != null && piece.getTeamColor() == teamTurn
+                        && piece.getPieceType() == ChessPiece.PieceType.PAWN) {
+                    return enPassantColumn;
+                }
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Replaces the whole position, including the state that cannot be seen on the board.
+     * Used when loading a position from a stored format.
+     */
+    void setPosition(ChessBoard board, TeamColor teamTurn, int castlingRights, int enPassantColumn,
+                     int halfmoveClock, int fullmoveNumber) {
+        this.board = board;
+        this.teamTurn = teamTurn;
+        this.castlingRights = castlingRights;
+        this.enPassantColumn = enPassantColumn;
+        this.halfmoveClock = halfmoveClock;
+        this.fullmoveNumber = fullmoveNumber;
+        positionReplaced();
+    }
+
+    /**
+     * @return The moves made since the starting position, oldest first
+     */
+    public List<ChessMove> getMoveHistory() {
+        return Collections.unmodifiableList(moveHistory);
+    }
+
+    /**
+     * @return The FEN of the position the move history starts from
+     */
+    public String getStartPosition() {
+        ensureDerivedState();
+        resolveStartPosition();
+        return startPosition != null ? startPosition : Fen.START_POSITION;
+    }
+
+    /**
+     * Takes back the last move, restoring the position exactly as it was before it, including
+     * castling rights, en passant and clocks.
+     * <p>
+     * Only moves made on this object since its position was last replaced can be taken back;
+     * a game that was deserialized has no undo records for the moves made before it was saved.
+     *
+     * @return The move that was taken back, or null if there is no move to take back
+     */
+    public ChessMove undoMove() {
+        if (undoStack == null || undoStack.isEmpty()) {
+            return null;
+        }
+        UndoRecord undo = undoStack.remove(undoStack.size() - 1);
+        ChessMove move = undo.move();
+        ChessPosition start = move.getStartPosition();
+        ChessPosition end = move.getEndPosition();
+
+        setSquare(end, null);
+        setSquare(start, undo.moved());
+        if (undo.captured() != null) {
+            setSquare(undo.capturedAt(), undo.captured());
+        }
+        if (undo.moved().getPieceType() == ChessPiece.PieceType.KING
+                && Math.abs(end.getColumn() - start.getColumn()) == 2) {
+            ChessPosition rookEnd = new ChessPosition(start.getRow(), end.getColumn() == 7 ? 6 : 4);
+            setSquare(new ChessPosition(start.getRow(), end.getColumn() == 7 ? 8 : 1), board.getPiece(rookEnd));
+            setSquare(rookEnd, null);
+        }
+
+        teamTurn = opponent(teamTurn);
+        if (teamTurn == TeamColor.BLACK) {
+            fullmoveNumber--;
+        }
+        castlingRights = undo.castlingRights();
+        enPassantColumn = undo.enPassantColumn();
+        halfmoveClock = undo.halfmoveClock();
+        historySize--;
+        positionHash = hashHistory[historySize - 1];
+        moveHistory.remove(moveHistory.size() - 1);
+        if (!trialMove) {
+            publishSnapshot();
+        }
+        return move;
+    }
+
+    /**
+     * Applies a move that is already known to be legal, such as one replayed from a stored game,
+     * without checking it again.
+     */
+    void applyTrustedMove(ChessMove move) {
+        applyMove(board.getPiece(move.getStartPosition()), move);
+    }
+
+    /**
+     * Plays a legal move, passes the game in the position after it to an action, and takes the move
+     * back. No snapshot is published for the trial position, so readers on other threads never see it.
+     */
+    void tryMove(ChessMove move, Consumer<ChessGame> action) {
+        trialMove = true;
+        try {
+            applyTrustedMove(move);
+            try {
+                action.accept(this);
+            } finally {
+                undoMove();
+            }
+        } finally {
+            trialMove = false;
+        }
+    }
+
+    /**
+     * Gets the Zobrist hash of the current position. Equal positions, including side to move,
+     * castling rights and en passant, have equal hashes.
+     * <p>
+     * The hash is updated by moves and by the setters on this class. Changes made directly to the
+     * board returned by {@link #getBoard()} are not seen until the board is set again.
+     *
+     * @return the position hash
+     */
+    public long getPositionHash() {
+        ensureDerivedState();
+        return positionHash;
+    }
+
+    /**
+     * Counts how many times the current position has occurred since the last capture or pawn move,
+     * including now. Only every second earlier position can match, and none from before the last
+     * irreversible move, so the scan is bounded by the halfmove clock rather than the game length.
+     *
+     * @return the number of times the current position has occurred
+     */
+    public int getRepetitionCount() {
+        ensureDerivedState();
+        int oldest = Math.max(0, historySize - 1 - halfmoveClock);
+        int count = 1;
+        for (int i = historySize - 3; i >= oldest; i -= 2) {
+            if (hashHistory[i] == positionHash) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Determines if fifty moves by each side have been made without a capture or pawn move,
+     * which lets either player claim a draw
+     *
+     * @return True if the fifty-move rule applies
+     */
+    public boolean isDrawByFiftyMoveRule() {
+        return halfmoveClock >= 100;
+    }
+
+    /**
+     * Determines if neither side has enough material left to checkmate: king against king, a
+     * lone minor piece against a bare king, or only bishops on squares of one color.
+     * Piece counts are kept up to date move by move, so this does not scan the board.
+     *
+     * @return True if checkmate is impossible for both sides
+     */
+    public boolean isInsufficientMaterial() {
+        ensureDerivedState();
+        if (((whiteMaterial | blackMaterial) & MATING_MATERIAL_MASK) != 0) {
+            return false;
+        }
+        int knights = materialCount(KNIGHTS);
+        int lightBishops = materialCount(LIGHT_BISHOPS);
+        int darkBishops = materialCount(DARK_BISHOPS);
+        if (knights == 0) {
+            return lightBishops == 0 || darkBishops == 0;
+        }
+        return knights == 1 && lightBishops + darkBishops == 0;
+    }
+
+    /**
+     * Determines if the current position has occurred three times, which lets either player claim a draw
+     *
+     * @return True if the position has been repeated three times
+     */
+    public boolean isThreefoldRepetition() {
+        return getRepetitionCount() >= 3;
+    }
+
+    /**
+     * Gets the snapshot published after the most recent move. This is safe to call from any thread
+     * while the game is being played on another one. A game that was just deserialized has no
+     * snapshot of its own yet; the first call builds it, so make that call on the playing thread.
+     *
+     * @return the latest published snapshot
+     */
+    public BoardSnapshot getSnapshot() {
+        ensureDerivedState();
+        return snapshot;
+    }
+
+    /**
+     * Publishes a snapshot of the current position. Moves publish automatically; call this after
+     * changing the board returned by {@link #getBoard()} directly.
+     * Like every other change to the game, this must be called from the thread that is playing it.
+     *
+     * @return the new snapshot
+     */
+    public BoardSnapshot publishSnapshot() {
+        BoardSnapshot published = board.snapshot(teamTurn);
+        snapshot = published;
+        return published;
+    }
+
+    /**
+     * Makes the current position the new start of the game, clearing the move history, then
+     * rebuilds everything derived from the position.
+     */
+    private void positionReplaced() {
+        moveHistory.clear();
+        undoStack = null;
+        positionChanged();
+        startPosition = null;
+        startPending = true;
+    }
+
+    /**
+     * Helper method to write the start position as FEN while it is still the current position,
+     * if the position was replaced since it was last written.
+     */
+    private void resolveStartPosition() {
+        if (startPending && moveHistory.isEmpty()) {
+            startPosition = Fen.toFen(this);
+        }
+        startPending = false;
+    }
+
+    /**
+     * Rehashes the position and starts a new repetition history after the position was replaced,
+     * then publishes a snapshot.
+     */
+    private void positionChanged() {
+        positionHash = Zobrist.hash(this);
+        whiteMaterial = 0;
+        blackMaterial = 0;
+        for (int row = 0; row < 8; row++) {
+            for (int col = 0; col < 8; col++) {
+                ChessPiece piece = board.pieceAt(row, col);
+                if (piece != null) {
+                    addMaterial(piece, row, col, 1);
+                }
+            }
+        }
+        if (hashHistory == null) {
+            hashHistory = new long[64];
+        }
+        hashHistory[0] = positionHash;
+        historySize = 1;
+        derivedBoard = board;
+        publishSnapshot();
+    }
+
+    /**
+     * Helper method to rebuild the hash state of a game that was created without its constructor,
+     * such as by deserialization.
+     */
+    private void ensureDerivedState() {
+        if (derivedBoard != board) {
+            // A deserialized game with no moves starts from whatever its board holds
+            startPending = startPosition == null && moveHistory.isEmpty();
+            undoStack = null;
+            positionChanged();
+        }
+    }
+
+    /**
+     * Helper method to add or remove a piece from its side's material counts.
+     *
+     * @param piece    The piece.
+     * @param rowIndex The zero-based row it stands on, used to tell light and dark bishops apart.
+     * @param colIndex The zero-based column it stands on.
+     * @param delta    1 to add the piece, -1 to remove it.
+     */
+    private void addMaterial(ChessPiece piece, int rowIndex, int colIndex, int delta) {
+        int kind = switch (piece.getPieceType()) {
+            case KING -> -1;
+            case QUEEN -> QUEENS;
+            case ROOK -> ROOKS;
+            case PAWN -> PAWNS;
+            case KNIGHT -> KNIGHTS;
+            // a1 is dark, so a square is light when its row and column indexes differ in parity
+            case BISHOP -> ((rowIndex + colIndex) & 1) != 0 ? LIGHT_BISHOPS : DARK_BISHOPS;
+        };
+        if (kind < 0) {
+            return;
+        }
+        if (piece.getTeamColor() == TeamColor.WHITE) {
+            whiteMaterial += delta << (kind * 4);
+        } else {
+            blackMaterial += delta << (kind * 4);
+        }
+    }
+
+    private int materialCount(int kind) {
+        return ((whiteMaterial >>> (kind * 4)) & 0xF) + ((blackMaterial >>> (kind * 4)) & 0xF);
+    }
+
+    /**
+     * Helper method to change a square during a move, keeping the position hash in step.
+     *
+     * @param position The square to change.
+     * @param piece    The new piece, or null to empty the square.
+     */
+    private void setSquare(ChessPosition position, ChessPiece piece) {
+        int rowIndex = position.getRow() - 1;
+        int colIndex = position.getColumn() - 1;
+        ChessPiece old = board.pieceAt(rowIndex, colIndex);
+        if (old != null) {
+            positionHash ^= Zobrist.piece(old, rowIndex, colIndex);
+            addMaterial(old, rowIndex, colIndex, -1);
+        }
+        if (piece != null) {
+            positionHash ^= Zobrist.piece(piece, rowIndex, colIndex);
+            addMaterial(piece, rowIndex, colIndex, 1);
+        }
+        board.setPieceAt(rowIndex, colIndex, piece);
+    }
+
+    /**
+     * Makes a move if it is legal for the team whose turn it is. This is the same as
+     * {@link #makeMove(ChessMove)} except that a rejected move is reported through the
+     * return value instead of an exception, which is cheaper when many moves are checked at once.
+     *
+     * @param move chess move to preform
+     * @return true if the move was made, false if it was rejected
+     */
+    boolean tryMakeMove(ChessMove move) {
+        ChessPiece piece = board.getPiece(move.getStartPosition());
+        if (piece == null || piece.getTeamColor() != teamTurn || !isLegalMove(piece, move)) {
+            return false;
+        }
+
+        applyMove(piece, move);
+        return true;
+    }
+
+    /**
+     * Checks whether a move is one of the piece's moves and does not leave its own king in check.
+     * Unlike {@link #validMoves(ChessPosition)} this does not build a collection of every legal move.
+     *
+     * @param piece The piece being moved, which must be at the move's start position.
+     * @param move  The move to check.
+     * @return true if the move is legal, false otherwise.
+     */
+    boolean isLegalMove(ChessPiece piece, ChessMove move) {
+        if (!piece.pieceMoves(board, move.getStartPosition()).contains(move)) {
+            Collection<ChessMove> specialMoves = new ArrayList<>(2);
+            addSpecialMoves(specialMoves, piece, move.getStartPosition());
+            if (!specialMoves.contains(move)) {
+                return false;
+            }
+        }
+        return !leavesKingInCheck(move, piece.getTeamColor());
+    }
+
+    /**
+     * Helper method to add the castling and en passant moves a piece can make, which depend on
+     * more than the pieces on the board. Like {@link ChessPiece#pieceMoves}, this does not check
+     * whether the move leaves the king in check, except that castling is never added out of or
+     * through check.
+     *
+     * @param moves    The collection to add to.
+     * @param piece    The piece to find moves for.
+     * @param position The piece's position.
+     */
+    private void addSpecialMoves(Collection<ChessMove> moves, ChessPiece piece, ChessPosition position) {
+        TeamColor color = piece.getTeamColor();
+        int row = position.getRow();
+        int col = position.getColumn();
+
+        if (piece.getPieceType() == ChessPiece.PieceType.KING) {
+            int homeRow = color == TeamColor.WHITE ? 1 : 8;
+            int kingside = color == TeamColor.WHITE ? WHITE_KINGSIDE : BLACK_KINGSIDE;
+            int queenside = color == TeamColor.WHITE ? WHITE_QUEENSIDE : BLACK_QUEENSIDE;
+            if (row != homeRow || col != 5 || (castlingRights & (kingside | queenside)) == 0 || isInCheck(color)) {
+                return;
+            }
+            TeamColor enemy = opponent(color);
+            if ((castlingRights & kingside) != 0 && isHome(homeRow, 8, color, ChessPiece.PieceType.ROOK)
+                    && board.pieceAt(homeRow - 1, 5) == null && board.pieceAt(homeRow - 1, 6) == null
+                    && !isAttacked(new ChessPosition(homeRow, 6), enemy)) {
+                moves.add(new ChessMove(position, new ChessPosition(homeRow, 7), null));
+            }
+            if ((castlingRights & queenside) != 0 && isHome(homeRow, 1, color, ChessPiece.PieceType.ROOK)
+                    && board.pieceAt(homeRow - 1, 1) == null && board.pieceAt(homeRow - 1, 2) == null
+                    && board.pieceAt(homeRow - 1, 3) == null
+                    && !isAttacked(new ChessPosition(homeRow, 4), enemy)) {
+                moves.add(new ChessMove(position, new ChessPosition(homeRow, 3), null));
+            }
+        } else if (piece.getPieceType() == ChessPiece.PieceType.PAWN && enPassantColumn != 0
+                && color == teamTurn && Math.abs(col - enPassantColumn) == 1) {
+            int captureRow = color == TeamColor.WHITE ? 5 : 4;
+            if (row == captureRow) {
+                int direction = color == TeamColor.WHITE ? 1 : -1;
+                moves.add(new ChessMove(position, new ChessPosition(row + direction, enPassantColumn), null));
+            }
+        }
+    }
+
+    /**
+     * Helper method to check if a square holds the given piece.
+     *
+     * @param row   The row, starting at 1.
+     * @param col   The column, starting at 1.
+     * @param color The expected team.
+     * @param type  The expected piece type.
+     * @return true if that exact piece is on the square, false otherwise.
+     */
+    private boolean isHome(int row, int col, TeamColor color, ChessPiece.PieceType type) {
+        ChessPiece piece = board.pieceAt(row - 1, col - 1);
+        return piece != null && piece.getTeamColor() == color && piece.getPieceType() == type;
+    }
+
+    /**
+     * Helper method to check if a move is a pawn capturing en passant, which is the only capture
+     * that lands on an empty square.
+     */
+    private boolean isEnPassant(ChessPiece piece, ChessMove move) {
+        return piece.getPieceType() == ChessPiece.PieceType.PAWN
+                && move.getStartPosition().getColumn() != move.getEndPosition().getColumn()
+                && board.getPiece(move.getEndPosition()) == null;
+    }
+
+    /**
+     * Helper method to try a move on the board and see if it leaves the mover's king in check.
+     * The board is restored before returning.
+     *
+     * @param move      The move to try.
+     * @param teamColor The team making the move.
+     * @return true if the move would leave the king in check, false otherwise.
+     */
+    private boolean leavesKingInCheck(ChessMove move, TeamColor teamColor) {
+        ChessPosition start = move.getStartPosition();
+        ChessPosition end = move.getEndPosition();
+        ChessPiece moving = board.getPiece(start);
+        ChessPiece captured = board.getPiece(end);
+        ChessPosition passedPawn = null;
+        if (isEnPassant(moving, move)) {
+            passedPawn = new ChessPosition(start.getRow(), end.getColumn());
+            captured = board.getPiece(passedPawn);
+            board.clearPiece(passedPawn);
+        }
+
+        board.placePiece(end, moving);
+        board.clearPiece(start);
+        boolean inCheck = isInCheck(teamColor);
+        board.placePiece(start, moving);
+        if (passedPawn != null) {
+            board.clearPiece(end);
+            board.placePiece(passedPawn, captured);
+        } else {
+            board.placePiece(end, captured);
+        }
+
+        return inCheck;
+    }
+
+    /**
+     * Moves a piece on the board and passes the turn, handling promotion, castling and en passant
+     * and updating the castling rights and move clocks. Legality is not checked.
+     *
+     * @param piece The piece being moved.
+     * @param move  The move to apply.
+     */
+    private void applyMove(ChessPiece piece, ChessMove move) {
+        ensureDerivedState();
+        ChessPosition start = move.getStartPosition();
+        ChessPosition end = move.getEndPosition();
+        ChessPiece captured = board.getPiece(end);
+        ChessPosition capturedAt = end;
+        boolean enPassant = isEnPassant(piece, move);
+        if (enPassant) {
+            capturedAt = new ChessPosition(start.getRow(), end.getColumn());
+            captured = board.getPiece(capturedAt);
+        }
+        if (undoStack == null) {
+            undoStack = new ArrayList<>();
+        }
+        resolveStartPosition();
+        undoStack.add(new UndoRecord(move, piece, captured, capturedAt, castlingRights, enPassantColumn, halfmoveClock));
+        moveHistory.add(move);
+
+        boolean capture = captured != null;
+        positionHash ^= Zobrist.state(teamTurn, castlingRights, getHashedEnPassantColumn());
+
+        if (enPassant) {
+            setSquare(capturedAt, null);
+        } else if (piece.getPieceType() == ChessPiece.PieceType.KING
+                && Math.abs(end.getColumn() - start.getColumn()) == 2) {
+            // Castling: the rook jumps to the other side of the king
+            int rookFrom = end.getColumn() == 7 ? 8 : 1;
+            int rookTo = end.getColumn() == 7 ? 6 : 4;
+            ChessPosition rookStart = new ChessPosition(start.getRow(), rookFrom);
+            setSquare(new ChessPosition(start.getRow(), rookTo), board.getPiece(rookStart));
+            setSquare(rookStart, null);
+        }
+
+        ChessPiece placed = piece;
+        if (move.getPromotionPiece() != null) {
+            placed = ChessPiece.of(piece.getTeamColor(), move.getPromotionPiece());
+        }
+        setSquare(start, null);
+        setSquare(end, placed);
+
+        if (piece.getPieceType() == ChessPiece.PieceType.KING) {
+            castlingRights &= piece.getTeamColor() == TeamColor.WHITE
+                    ? ~(WHITE_KINGSIDE | WHITE_QUEENSIDE) : ~(BLACK_KINGSIDE | BLACK_QUEENSIDE);
+        }
+        castlingRights &= ~(cornerRight(start) | cornerRight(end));
+
+        boolean pawnMove = piece.getPieceType() == ChessPiece.PieceType.PAWN;
+        enPassantColumn = pawnMove && Math.abs(end.getRow() - start.getRow()) == 2 ? start.getColumn() : 0;
+        halfmoveClock = pawnMove || capture ? 0 : halfmoveClock + 1;
+        if (teamTurn == TeamColor.BLACK) {
+            fullmoveNumber++;
+        }
+        teamTurn = opponent(teamTurn);
+        positionHash ^= Zobrist.state(teamTurn, castlingRights, getHashedEnPassantColumn());
+
+        if (historySize == hashHistory.length) {
+            hashHistory = Arrays.copyOf(hashHistory, historySize * 2);
+        }
+        hashHistory[historySize++] = positionHash;
+        if (!trialMove) {
+            publishSnapshot();
+        }
+    }
+
+    /**
+     * Helper method to get the castling right tied to a rook's starting corner.
+     *
+     * @param position A square a piece moved from or to.
+     * @return The castling right lost when that square changes, or 0 if it is not a corner.
+     */
+    private static int cornerRight(ChessPosition position) {
+        int row = position.getRow();
+        int col = position.getColumn();
+        if (row == 1 && col == 8) return WHITE_KINGSIDE;
+        if (row == 1 && col == 1) return WHITE_QUEENSIDE;
+        if (row == 8 && col == 8) return BLACK_KINGSIDE;
+        if (row == 8 && col == 1) return BLACK_QUEENSIDE;
+        return 0;
+    }
+
+    /**
+     * Helper method to check if any of a team's pieces has at least one valid move.
+     *
+     * @param teamColor The team to check.
+     * @return true if the team can move, false otherwise.
+     */
+    private boolean hasAnyValidMove(TeamColor teamColor) {
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                ChessPosition position = new ChessPosition(row, col);
+                ChessPiece piece = board.getPiece(position);
+                if (piece != null && piece.getTeamColor() == teamColor) {
+                    Collection<ChessMove> candidates = piece.pieceMoves(board, position);
+                    addSpecialMoves(candidates, piece, position);
+                    for (ChessMove move : candidates) {
+                        if (!leavesKingInCheck(move, teamColor)) {
+                            return true;
+                        }
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Helper method to check if a square can be captured by any piece of the attacking team.
+     *
+     * @param target    The square to check.
+     * @param attackers The team that would be capturing.
+     * @return true if the square is attacked, false otherwise.
+     */
+    private boolean isAttacked(ChessPosition target, TeamColor attackers) {
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                ChessPosition position = new ChessPosition(row, col);
+                ChessPiece piece = board.getPiece(position);
+                if (piece != null && piece.getTeamColor() == attackers) {
+                    // Pawn moves only include a diagonal when something is there to capture, and their
+                    // forward moves attack nothing, so pawns are checked by their capture squares instead
+                    if (piece.getPieceType() == ChessPiece.PieceType.PAWN) {
+                        int direction = attackers == TeamColor.WHITE ? 1 : -1;
+                        if (target.getRow() == row + direction && Math.abs(target.getColumn() - col) == 1) {
+                            return true;
+                        }
+                        continue;
+                    }
+                    for (ChessMove move : piece.pieceMoves(board, position)) {
+                        if (move.getEndPosition().equals(target)) {
+                            return true;
+                        }
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Helper method to find the king of the given team.
+     *
+     * @param teamColor The team whose king to find.
+     * @return The king's position, or null if that team has no king on the board.
+     */
+    private ChessPosition findKing(TeamColor teamColor) {
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                ChessPosition position = new ChessPosition(row, col);
+                ChessPiece piece = board.getPiece(position);
+                if (piece != null && piece.getTeamColor() == teamColor
+                        && piece.getPieceType() == ChessPiece.PieceType.KING) {
+                    return position;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Everything needed to take back a move that cannot be worked out from the position after it.
+     */
+    private record UndoRecord(ChessMove move, ChessPiece moved, ChessPiece captured, ChessPosition capturedAt,
+                              int castlingRights, int enPassantColumn, int halfmoveClock) {
+    }
+
+    static TeamColor opponent(TeamColor teamColor) {
+        return teamColor == TeamColor.WHITE ? TeamColor.BLACK : TeamColor.WHITE;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ChessGame chessGame = (ChessGame) o;
+        return castlingRights == chessGame.castlingRights && enPassantColumn == chessGame.enPassantColumn &&
+                halfmoveClock == chessGame.halfmoveClock && fullmoveNumber == chessGame.fullmoveNumber &&
+                Objects.equals(board, chessGame.board) && teamTurn == chessGame.teamTurn;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(board, teamTurn, castlingRights, enPassantColumn, halfmoveClock, fullmoveNumber);
     }
 }
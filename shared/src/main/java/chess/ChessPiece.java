@@ -19,6 +19,27 @@ public class ChessPiece {
         this.type = type;
     }
 
+    // One shared instance per color and type, indexed by [color ordinal][type ordinal]
+    private static final ChessPiece[][] SHARED = new ChessPiece[2][PieceType.values().length];
+
+    static {
+        for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+            for (PieceType pieceType : PieceType.values()) {
+                SHARED[color.ordinal()][pieceType.ordinal()] = new ChessPiece(color, pieceType);
+            }
+        }
+    }
+
+    /**
+     * Gets a shared piece of the given color and type. Pieces cannot be changed, so code that
+     * creates many of them, such as board parsers, can use this instead of allocating new ones.
+     *
+     * @return The shared piece.
+     */
+    public static ChessPiece of(ChessGame.TeamColor pieceColor, PieceType type) {
+        return SHARED[pieceColor.ordinal()][type.ordinal()];
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
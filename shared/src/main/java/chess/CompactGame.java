@@ -0,0 +1,151 @@
+package chess;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * A game held in as little memory as possible, for keeping many idle games resident.
+ * <p>
+ * The current position is kept as its 32-byte {@link PositionCodec} encoding and the moves as
+ * 2-byte {@link MoveCodec} codes, instead of a board of piece references, move objects and the
+ * hash and undo history a {@link ChessGame} carries. Whose turn it is and what is on a square can be
+ * read straight from the bytes. Making a move decodes the position after the last capture or pawn move,
+ * which is kept packed as well, replays only the moves since then, plays the move and packs the result
+ * again. No earlier position can repeat, so that is all repetition needs, and the cost of a move does
+ * not grow with the length of the game.
+ * <p>
+ * A compact game is not thread-safe.
+ */
+public final class CompactGame {
+    // Cached because PieceType.values() copies the array on every call
+    private static final ChessPiece.PieceType[] PIECE_TYPES = ChessPiece.PieceType.values();
+
+    // Null for the standard starting position, which most games use
+    private final String startPosition;
+    private byte[] position;
+    // Position after the last capture or pawn move, and its ply; null while that is the start position
+    private byte[] base;
+    private int basePly;
+    // Grown by doubling; only the first moveCount codes are moves
+    private short[] moves;
+    private int moveCount;
+
+    private CompactGame(String startPosition, byte[] position, byte[] base, int basePly, short[] moves) {
+        this.startPosition = startPosition;
+        this.position = position;
+        this.base = base;
+        this.basePly = basePly;
+        this.moves = moves;
+        this.moveCount = moves.length;
+    }
+
+    /**
+     * Packs a game.
+     *
+     * @param game The game to pack. It is not changed.
+     * @return The compact form of the game.
+     * @throws IllegalArgumentException if the board has more than 32 pieces
+     */
+    public static CompactGame of(ChessGame game) {
+        String start = game.getStartPosition();
+        short[] codes = new short[game.getMoveHistory().size()];
+        int i = 0;
+        for (ChessMove move : game.getMoveHistory()) {
+            codes[i++] = (short) MoveCodec.encode(move);
+        }
+        byte[] position = PositionCodec.encode(game);
+        int basePly = Math.max(0, codes.length - game.getHalfmoveClock());
+        byte[] base = null;
+        if (basePly == codes.length) {
+            base = position;
+        } else if (basePly > 0) {
+            ChessGame replay = Fen.parse(start);
+            for (int ply = 0; ply < basePly; ply++) {
+                replay.applyTrustedMove(MoveCodec.decode(codes[ply]));
+            }
+            base = PositionCodec.encode(replay);
+        }
+        return new CompactGame(start.equals(Fen.START_POSITION) ? null : start, position, base, basePly, codes);
+    }
+
+    /**
+     * Builds the full game, with its move history, by replaying the moves from the start position.
+     *
+     * @return A new game. Changing it does not change this compact game.
+     */
+    public ChessGame toGame() {
+        ChessGame game = Fen.parse(getStartPosition());
+        for (int ply = 0; ply < moveCount; ply++) {
+            // Every stored move was validated when it was made
+            game.applyTrustedMove(MoveCodec.decode(moves[ply]));
+        }
+        return game;
+    }
+
+    /**
+     * Makes a move, materializing a game from the last capture or pawn move only while the move is
+     * checked and played.
+     *
+     * @param move The move to make.
+     * @throws InvalidMoveException if the move is not legal
+     */
+    public void makeMove(ChessMove move) throws InvalidMoveException {
+        ChessGame game = base != null ? PositionCodec.decode(base) : Fen.parse(getStartPosition());
+        for (int ply = basePly; ply < moveCount; ply++) {
+            game.applyTrustedMove(MoveCodec.decode(moves[ply]));
+        }
+        game.makeMove(move);
+
+        position = PositionCodec.encode(game);
+        if (moveCount == moves.length) {
+            moves = Arrays.copyOf(moves, Math.max(8, moveCount * 2));
+        }
+        moves[moveCount++] = (short) MoveCodec.encode(move);
+        if (game.getHalfmoveClock() == 0) {
+            base = position;
+            basePly = moveCount;
+        }
+    }
+
+    /**
+     * @return The team whose turn it is
+     */
+    public ChessGame.TeamColor getTeamTurn() {
+        return (position[24] & 1) != 0 ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+    }
+
+    /**
+     * Reads the piece on a square from the packed position.
+     *
+     * @param square The square to look at.
+     * @return The piece there, or null if the square is empty.
+     */
+    public ChessPiece getPiece(ChessPosition square) {
+        ByteBuffer bytes = ByteBuffer.wrap(position);
+        int index = (square.getRow() - 1) * 8 + square.getColumn() - 1;
+        long occupancy = bytes.getLong(0);
+        if ((occupancy & (1L << index)) == 0) {
+            return null;
+        }
+        // The codes are in square order, so the piece's code comes after one per lower occupied square
+        int nth = Long.bitCount(occupancy & ((1L << index) - 1));
+        long codes = bytes.getLong(nth < 16 ? 8 : 16);
+        int code = (int) (codes >>> (60 - 4 * (nth & 15))) & 0xF;
+        ChessGame.TeamColor color = (code & 8) != 0 ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        return ChessPiece.of(color, PIECE_TYPES[code & 7]);
+    }
+
+    /**
+     * @return The number of moves made since the start position
+     */
+    public int getPlyCount() {
+        return moveCount;
+    }
+
+    /**
+     * @return The starting position as FEN
+     */
+    public String getStartPosition() {
+        return startPosition != null ? startPosition : Fen.START_POSITION;
+    }
+}
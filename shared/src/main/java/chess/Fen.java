@@ -0,0 +1,290 @@
+package chess;
+
+import java.nio.CharBuffer;
+
+/**
+ * Reads and writes positions in Forsyth-Edwards Notation (FEN), for example
+ * {@code rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1}.
+ * <p>
+ * Parsing works directly on the characters of the input and writing appends straight to the
+ * caller's buffer, so neither creates intermediate strings. Pieces come from {@link ChessPiece#of}.
+ */
+public final class Fen {
+    public static final String START_POSITION = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    // Longest possible FEN record is under 100 characters, so one small builder per thread is enough
+    private static final ThreadLocal<StringBuilder> SCRATCH = ThreadLocal.withInitial(() -> new StringBuilder(100));
+
+    private Fen() {
+    }
+
+    /**
+     * Creates a game from a FEN record.
+     *
+     * @param fen The FEN record.
+     * @return A new game in that position.
+     * @throws IllegalArgumentException if the record is not valid FEN
+     */
+    public static ChessGame parse(CharSequence fen) {
+        ChessGame game = new ChessGame();
+        parse(fen, game);
+        return game;
+    }
+
+    /**
+     * Loads a FEN record into an existing game, reusing its board. The whole record is checked
+     * before the board is touched, so an invalid record leaves the game as it was.
+     *
+     * @param fen  The FEN record.
+     * @param game The game to load into.
+     * @throws IllegalArgumentException if the record is not valid FEN
+     */
+    public static void parse(CharSequence fen, ChessGame game) {
+        int i = parsePlacement(fen, 0, null);
+
+        i = expectSpace(fen, i);
+        ChessGame.TeamColor turn = switch (charAt(fen, i++)) {
+            case 'w' -> ChessGame.TeamColor.WHITE;
+            case 'b' -> ChessGame.TeamColor.BLACK;
+            default -> throw error(fen, "side to move must be 'w' or 'b'");
+        };
+
+        i = expectSpace(fen, i);
+        int castling = 0;
+        if (charAt(fen, i) == '-') {
+            i++;
+        } else {
+            while (i < fen.length() && fen.charAt(i) != ' ') {
+                castling |= switch (fen.charAt(i++)) {
+                    case 'K' -> ChessGame.WHITE_KINGSIDE;
+                    case 'Q' -> ChessGame.WHITE_QUEENSIDE;
+                    case 'k' -> ChessGame.BLACK_KINGSIDE;
+                    case 'q' -> ChessGame.BLACK_QUEENSIDE;
+                    default -> throw error(fen, "bad castling field");
+                };
+            }
+        }
+
+        i = expectSpace(fen, i);
+        int enPassantColumn = 0;
+        char file = charAt(fen, i++);
+        if (file != '-') {
+            char rank = charAt(fen, i++);
+            if (file < 'a' || file > 'h' || rank != (turn == ChessGame.TeamColor.WHITE ? '6' : '3')) {
+                throw error(fen, "bad en passant square");
+            }
+            enPassantColumn = file - 'a' + 1;
+        }
+
+        // The clocks are optional, as many tools leave them off
+        int halfmove = 0;
+        int fullmove = 1;
+        if (i < fen.length()) {
+            i = expectSpace(fen, i);
+            int end = skipDigits(fen, i);
+            halfmove = parseNumber(fen, i, end);
+            i = expectSpace(fen, end);
+            end = skipDigits(fen, i);
+            fullmove = parseNumber(fen, i, end);
+            i = end;
+        }
+        if (i != fen.length()) {
+            throw error(fen, "unexpected text after the move number");
+        }
+
+        ChessBoard board = game.getBoard();
+        parsePlacement(fen, 0, board);
+        game.setPosition(board, turn, castling, enPassantColumn, halfmove, fullmove);
+    }
+
+    /**
+     * Loads just the piece placement field of a FEN record into a board.
+     *
+     * @param placement The placement field, or a whole FEN record.
+     * @param board     The board to fill. Every square is overwritten.
+     * @throws IllegalArgumentException if the placement is not valid FEN
+     */
+    public static void parseBoard(CharSequence placement, ChessBoard board) {
+        parsePlacement(placement, 0, null);
+        parsePlacement(placement, 0, board);
+    }
+
+    /**
+     * Appends a game's position as a FEN record.
+     *
+     * @param game The game to write.
+     * @param out  The builder to append to.
+     * @return The same builder.
+     */
+    public static StringBuilder write(ChessGame game, StringBuilder out) {
+        ChessBoard board = game.getBoard();
+        for (int row = 7; row >= 0; row--) {
+            int empty = 0;
+            for (int col = 0; col < 8; col++) {
+                ChessPiece piece = board.pieceAt(row, col);
+                if (piece == null) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    out.append((char) ('0' + empty));
+                    empty = 0;
+                }
+                out.append(toChar(piece));
+            }
+            if (empty > 0) {
+                out.append((char) ('0' + empty));
+            }
+            if (row > 0) {
+                out.append('/');
+            }
+        }
+
+        out.append(' ').append(game.getTeamTurn() == ChessGame.TeamColor.WHITE ? 'w' : 'b').append(' ');
+
+        int castling = game.getCastlingRights();
+        if (castling == 0) {
+            out.append('-');
+        } else {
+            if ((castling & ChessGame.WHITE_KINGSIDE) != 0) out.append('K');
+            if ((castling & ChessGame.WHITE_QUEENSIDE) != 0) out.append('Q');
+            if ((castling & ChessGame.BLACK_KINGSIDE) != 0) out.append('k');
+            if ((castling & ChessGame.BLACK_QUEENSIDE) != 0) out.append('q');
+        }
+
+        out.append(' ');
+        int enPassantColumn = game.getEnPassantColumn();
+        if (enPassantColumn == 0) {
+            out.append('-');
+        } else {
+            out.append((char) ('a' + enPassantColumn - 1))
+                    .append(game.getTeamTurn() == ChessGame.TeamColor.WHITE ? '6' : '3');
+        }
+
+        return out.append(' ').append(game.getHalfmoveClock()).append(' ').append(game.getFullmoveNumber());
+    }
+
+    /**
+     * Writes a game's position as a FEN record into a character buffer at its current position.
+     *
+     * @param game The game to write.
+     * @param out  The buffer to write to.
+     * @throws java.nio.BufferOverflowException if the buffer does not have room for the record
+     */
+    public static void write(ChessGame game, CharBuffer out) {
+        StringBuilder scratch = SCRATCH.get();
+        scratch.setLength(0);
+        write(game, scratch);
+        // CharBuffer.append would turn the builder into a String first
+        for (int i = 0; i < scratch.length(); i++) {
+            out.put(scratch.charAt(i));
+        }
+    }
+
+    /**
+     * Formats a game's position as a FEN record.
+     *
+     * @param game The game to write.
+     * @return The FEN record.
+     */
+    public static String toFen(ChessGame game) {
+        return write(game, new StringBuilder(90)).toString();
+    }
+
+    /**
+     * Helper method to read the piece placement field starting at index i, filling the board if
+     * one is given or only checking the field if it is null.
+     *
+     * @return The index just past the field.
+     */
+    private static int parsePlacement(CharSequence fen, int i, ChessBoard board) {
+        for (int row = 7; row >= 0; row--) {
+            int col = 0;
+            while (col < 8) {
+                char c = charAt(fen, i++);
+                if (c >= '1' && c <= '8') {
+                    int empty = c - '0';
+                    if (col + empty > 8) {
+                        throw error(fen, "rank " + (row + 1) + " has more than 8 squares");
+                    }
+                    for (int k = 0; k < empty && board != null; k++) {
+                        board.setPieceAt(row, col + k, null);
+                    }
+                    col += empty;
+                } else {
+                    ChessPiece piece = fromChar(fen, c);
+                    if (board != null) {
+                        board.setPieceAt(row, col, piece);
+                    }
+                    col++;
+                }
+            }
+            if (row > 0 && charAt(fen, i++) != '/') {
+                throw error(fen, "rank " + (row + 1) + " does not have 8 squares");
+            }
+        }
+        return i;
+    }
+
+    private static ChessPiece fromChar(CharSequence fen, char c) {
+        ChessGame.TeamColor color = Character.isUpperCase(c) ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+        ChessPiece.PieceType type = switch (Character.toLowerCase(c)) {
+            case 'p' -> ChessPiece.PieceType.PAWN;
+            case 'n' -> ChessPiece.PieceType.KNIGHT;
+            case 'b' -> ChessPiece.PieceType.BISHOP;
+            case 'r' -> ChessPiece.PieceType.ROOK;
+            case 'q' -> ChessPiece.PieceType.QUEEN;
+            case 'k' -> ChessPiece.PieceType.KING;
+            default -> throw error(fen, "invalid piece code '" + c + "'");
+        };
+        return ChessPiece.of(color, type);
+    }
+
+    static char toChar(ChessPiece piece) {
+        char c = switch (piece.getPieceType()) {
+            case PAWN -> 'p';
+            case KNIGHT -> 'n';
+            case BISHOP -> 'b';
+            case ROOK -> 'r';
+            case QUEEN -> 'q';
+            case KING -> 'k';
+        };
+        return piece.getTeamColor() == ChessGame.TeamColor.WHITE ? Character.toUpperCase(c) : c;
+    }
+
+    private static char charAt(CharSequence fen, int i) {
+        if (i >= fen.length()) {
+            throw error(fen, "record ends too early");
+        }
+        return fen.charAt(i);
+    }
+
+    private static int expectSpace(CharSequence fen, int i) {
+        if (charAt(fen, i) != ' ') {
+            throw error(fen, "expected a space at index " + i);
+        }
+        return i + 1;
+    }
+
+    private static int skipDigits(CharSequence fen, int i) {
+        while (i < fen.length() && fen.charAt(i) >= '0' && fen.charAt(i) <= '9') {
+            i++;
+        }
+        return i;
+    }
+
+    private static int parseNumber(CharSequence fen, int from, int to) {
+        if (from == to || to - from > 6) {
+            throw error(fen, "bad move clock");
+        }
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            value = value * 10 + (fen.charAt(i) - '0');
+        }
+        return value;
+    }
+
+    private static IllegalArgumentException error(CharSequence fen, String problem) {
+        return new IllegalArgumentException("Invalid FEN (" + problem + "): " + fen);
+    }
+}
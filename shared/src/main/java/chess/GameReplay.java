@@ -0,0 +1,154 @@
+package chess;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Steps and seeks through a recorded game.
+ * <p>
+ * Every {@code interval} plies the position is stored as a {@link PositionCodec} checkpoint, so
+ * seeking to any ply decodes the nearest earlier checkpoint and replays at most {@code interval - 1}
+ * moves. Stepping forward applies one move and stepping back uses the game's undo records, falling
+ * back to a seek when the position was just loaded from a checkpoint and has none.
+ */
+public class GameReplay {
+    private final List<ChessMove> moves;
+    private final int interval;
+    // Checkpoint k, for ply k * interval, is stored at byte k * PositionCodec.ENCODED_SIZE
+    private final ByteBuffer checkpoints;
+    private final ChessGame game = new ChessGame();
+    private int ply;
+
+    /**
+     * Builds a replay of a game's whole move history, starting at ply 0.
+     *
+     * @param recorded The game to replay. It is not changed.
+     * @param interval The number of plies between checkpoints.
+     * @throws InvalidMoveException if the recorded history contains an illegal move
+     */
+    public GameReplay(ChessGame recorded, int interval) throws InvalidMoveException {
+        this(recorded.getStartPosition(), recorded.getMoveHistory(), interval);
+    }
+
+    /**
+     * Builds a replay of a list of moves from a starting position, starting at ply 0.
+     *
+     * @param startFen The starting position as FEN.
+     * @param moves    The moves, oldest first.
+     * @param interval The number of plies between checkpoints.
+     * @throws InvalidMoveException if one of the moves is illegal
+     */
+    public GameReplay(String startFen, List<ChessMove> moves, int interval) throws InvalidMoveException {
+        if (interval < 1) {
+            throw new IllegalArgumentException("interval must be at least 1");
+        }
+        this.moves = List.copyOf(moves);
+        this.interval = interval;
+        this.checkpoints = ByteBuffer.allocate((this.moves.size() / interval + 1) * PositionCodec.ENCODED_SIZE);
+
+        // Validate every move once while recording checkpoints; seeking can then skip validation
+        Fen.parse(startFen, game);
+        for (int i = 0; i < this.moves.size(); i++) {
+            if (i % interval == 0) {
+                PositionCodec.encode(game, checkpoints);
+            }
+            game.makeMove(this.moves.get(i));
+        }
+        if (this.moves.size() % interval == 0) {
+            PositionCodec.encode(game, checkpoints);
+        }
+        ply = this.moves.size();
+        seek(0);
+    }
+
+    /**
+     * Moves to the position after the given number of plies.
+     *
+     * @param target The ply to show, from 0 (the starting position) to {@link #size()}.
+     */
+    public void seek(int target) {
+        if (target < 0 || target > moves.size()) {
+            throw new IndexOutOfBoundsException("ply " + target + " is outside 0.." + moves.size());
+        }
+        if (target == ply) {
+            return;
+        }
+        // Stepping is cheaper than decoding when the target is ahead within the same checkpoint span
+        if (target < ply || target / interval != ply / interval) {
+            int checkpoint = target / interval;
+            PositionCodec.decode(checkpoints.duplicate().position(checkpoint * PositionCodec.ENCODED_SIZE), game);
+            ply = checkpoint * interval;
+        }
+        while (ply < target) {
+            game.applyTrustedMove(moves.get(ply++));
+        }
+    }
+
+    /**
+     * Moves one ply forward.
+     *
+     * @return false if already at the end of the game
+     */
+    public boolean stepForward() {
+        if (ply == moves.size()) {
+            return false;
+        }
+        game.applyTrustedMove(moves.get(ply++));
+        return true;
+    }
+
+    /**
+     * Moves one ply back.
+     *
+     * @return false if already at the starting position
+     */
+    public boolean stepBack() {
+        if (ply == 0) {
+            return false;
+        }
+        if (game.undoMove() != null) {
+            ply--;
+        } else {
+            seek(ply - 1);
+        }
+        return true;
+    }
+
+    /**
+     * @return The number of plies from the start to the current position
+     */
+    public int getPly() {
+        return ply;
+    }
+
+    /**
+     * @return The number of plies in the whole game
+     */
+    public int size() {
+        return moves.size();
+    }
+
+    /**
+     * @return The move that led to the current position, or null at the starting position
+     */
+    public ChessMove getLastMove() {
+        return ply == 0 ? null : moves.get(ply - 1);
+    }
+
+    /**
+     * @return An immutable snapshot of the current position
+     */
+    public BoardSnapshot getSnapshot() {
+        return game.getSnapshot();
+    }
+
+    /**
+     * Gets the game being stepped through. It must not be changed, or the replay will no longer
+     * match its moves.
+     *
+     * @return the game in the current position
+     */
+    public ChessGame getGame() {
+        return game;
+    }
+}
@@ -0,0 +1,136 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Validates and applies many moves across many games in one pass.
+ * <p>
+ * Pairs are split into lanes by game, so every move for the same game is applied on one
+ * thread in the order it appears in the batch, while different games are worked on in parallel.
+ * The lane bookkeeping is built for each batch, so a batch run from inside another batch's lane,
+ * as a ForkJoinPool worker may do while it waits in {@code join()}, has nothing to overwrite.
+ * <p>
+ * A game must not be changed by anything else while a batch that contains it is running.
+ */
+public class MoveBatch {
+    /**
+     * Batches smaller than this per lane are not worth handing to another thread.
+     */
+    private static final int MIN_PAIRS_PER_LANE = 64;
+
+    private final Executor executor;
+    private final int parallelism;
+
+    public MoveBatch() {
+        this(ForkJoinPool.commonPool(), ForkJoinPool.getCommonPoolParallelism());
+    }
+
+    /**
+     * @param executor    The executor lanes are run on.
+     * @param parallelism The most lanes a single batch is split into.
+     */
+    public MoveBatch(Executor executor, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1");
+        }
+        this.executor = executor;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Validates and applies each (games[i], moves[i]) pair. A pair whose move is not legal for
+     * the game at that point is skipped and leaves the game unchanged.
+     *
+     * @param games   The game for each pair. The same game may appear more than once.
+     * @param moves   The move for each pair.
+     * @param applied Filled in with whether each pair's move was made.
+     * @return The number of moves that were made.
+     */
+    public int apply(ChessGame[] games, ChessMove[] moves, boolean[] applied) {
+        int count = games.length;
+        if (moves.length != count || applied.length < count) {
+            throw new IllegalArgumentException("games, moves and applied must be the same length");
+        }
+
+        int lanes = Math.min(parallelism, (count + MIN_PAIRS_PER_LANE - 1) / MIN_PAIRS_PER_LANE);
+        if (lanes <= 1) {
+            int made = 0;
+            for (int i = 0; i < count; i++) {
+                if (applyPair(games[i], moves[i], applied, i)) {
+                    made++;
+                }
+            }
+            return made;
+        }
+
+        Lanes sorted = new Lanes(games, count, lanes);
+        int[] order = sorted.order;
+        int[] laneStart = sorted.laneStart;
+
+        List<CompletableFuture<Integer>> futures = new ArrayList<>(lanes);
+        for (int lane = 0; lane < lanes; lane++) {
+            int from = laneStart[lane];
+            int to = laneStart[lane + 1];
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                int made = 0;
+                for (int k = from; k < to; k++) {
+                    int i = order[k];
+                    if (applyPair(games[i], moves[i], applied, i)) {
+                        made++;
+                    }
+                }
+                return made;
+            }, executor));
+        }
+
+        int made = 0;
+        for (CompletableFuture<Integer> future : futures) {
+            made += future.join();
+        }
+        return made;
+    }
+
+    private static boolean applyPair(ChessGame game, ChessMove move, boolean[] applied, int index) {
+        boolean made = game != null && move != null && game.tryMakeMove(move);
+        applied[index] = made;
+        return made;
+    }
+
+    /**
+     * The pair indexes of one batch grouped by lane.
+     */
+    private static final class Lanes {
+        // Entries from laneStart[l] to laneStart[l + 1] are the indexes in lane l
+        private final int[] order;
+        private final int[] laneStart;
+
+        /**
+         * Counting-sorts the pair indexes by lane. Indexes keep their original order within a lane,
+         * so moves for one game stay in batch order.
+         */
+        Lanes(ChessGame[] games, int count, int lanes) {
+            int[] laneOf = new int[count];
+            order = new int[count];
+            laneStart = new int[lanes + 1];
+            int[] next = new int[lanes];
+
+            for (int i = 0; i < count; i++) {
+                int lane = (System.identityHashCode(games[i]) & 0x7fffffff) % lanes;
+                laneOf[i] = lane;
+                laneStart[lane + 1]++;
+            }
+            for (int lane = 0; lane < lanes; lane++) {
+                laneStart[lane + 1] += laneStart[lane];
+            }
+
+            System.arraycopy(laneStart, 0, next, 0, lanes);
+            for (int i = 0; i < count; i++) {
+                order[next[laneOf[i]]++] = i;
+            }
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package chess;
+
+/**
+ * Packs a move into 15 bits: the start square in bits 0-5, the end square in bits 6-11 and the
+ * promotion piece's {@link ChessPiece.PieceType} ordinal plus one in bits 12-14. Squares are numbered
+ * {@code (row - 1) * 8 + (column - 1)}. No move goes from a square to itself, so 0 is never a valid code.
+ */
+public final class MoveCodec {
+    // Cached because PieceType.values() copies the array on every call
+    private static final ChessPiece.PieceType[] PIECE_TYPES = ChessPiece.PieceType.values();
+
+    private MoveCodec() {
+    }
+
+    /**
+     * @param move The move to pack.
+     * @return The move's code.
+     */
+    public static int encode(ChessMove move) {
+        ChessPosition start = move.getStartPosition();
+        ChessPosition end = move.getEndPosition();
+        int code = (start.getRow() - 1) * 8 + start.getColumn() - 1;
+        code |= ((end.getRow() - 1) * 8 + end.getColumn() - 1) << 6;
+        if (move.getPromotionPiece() != null) {
+            code |= (move.getPromotionPiece().ordinal() + 1) << 12;
+        }
+        return code;
+    }
+
+    /**
+     * @param code A code from {@link #encode(ChessMove)}.
+     * @return The move.
+     * @throws IllegalArgumentException if the code is not a valid move code
+     */
+    public static ChessMove decode(int code) {
+        int start = code & 63;
+        int end = (code >>> 6) & 63;
+        int promotion = code >>> 12;
+        if (start == end || promotion > PIECE_TYPES.length) {
+            throw new IllegalArgumentException("Not a valid move code: " + code);
+        }
+        return new ChessMove(new ChessPosition(start / 8 + 1, start % 8 + 1), new ChessPosition(end / 8 + 1, end % 8 + 1),
+                promotion == 0 ? null : PIECE_TYPES[promotion - 1]);
+    }
+}
@@ -0,0 +1,350 @@
+package chess;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Imports games from PGN files of any size.
+ * <p>
+ * The input is read through a channel in fixed-size chunks. Each chunk is cut at the last game
+ * boundary in it (a tag line that follows a blank line), the complete games before the cut are
+ * parsed and validated on a {@link ForkJoinPool}, and the rest is carried into the next chunk.
+ * Only a bounded number of chunks are in flight at once, so memory use does not grow with the file.
+ */
+public class PgnImporter {
+    public static final int DEFAULT_CHUNK_SIZE = 4 << 20;
+
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+
+    /**
+     * A game read from PGN, with its tag pairs and the game after playing every move.
+     * The moves are available from {@link ChessGame#getMoveHistory()}.
+     */
+    public record ImportedGame(Map<String, String> tags, ChessGame game) {
+    }
+
+    /**
+     * Counts for one import.
+     */
+    public record Stats(long games, long malformed, long bytes, long elapsedNanos) {
+        public double gamesPerSecond() {
+            return elapsedNanos == 0 ? 0 : games * 1_000_000_000.0 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d games (%d malformed) from %d bytes in %.2fs, %.0f games/s",
+                    games, malformed, bytes, elapsedNanos / 1e9, gamesPerSecond());
+        }
+    }
+
+    public PgnImporter() {
+        this(ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * @param pool      The pool games are parsed on.
+     * @param chunkSize The number of bytes read from the input at a time.
+     */
+    public PgnImporter(ForkJoinPool pool, int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize must be positive");
+        }
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Imports every game in a PGN file.
+     *
+     * @param file The file to read.
+     * @param sink Receives each valid game. It is called from pool threads, possibly at the same time.
+     * @return Counts for the import.
+     */
+    public Stats importFile(Path file, Consumer<ImportedGame> sink) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return importFrom(channel, sink);
+        }
+    }
+
+    /**
+     * Imports every game read from a channel. The channel is not closed.
+     *
+     * @param channel The channel to read PGN text from.
+     * @param sink    Receives each valid game. It is called from pool threads, possibly at the same time.
+     * @return Counts for the import.
+     */
+    public Stats importFrom(ReadableByteChannel channel, Consumer<ImportedGame> sink) throws IOException {
+        long startNanos = System.nanoTime();
+        LongAdder games = new LongAdder();
+        LongAdder malformed = new LongAdder();
+        Deque<Future<?>> inFlight = new ArrayDeque<>();
+        int maxInFlight = pool.getParallelism() * 2;
+
+        byte[] window = new byte[chunkSize * 2];
+        int filled = 0;
+        long bytes = 0;
+        boolean eof = false;
+        while (!eof) {
+            if (window.length - filled < chunkSize) {
+                // A single game is bigger than the window; make room for it
+                byte[] bigger = new byte[window.length * 2];
+                System.arraycopy(window, 0, bigger, 0, filled);
+                window = bigger;
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(window, filled, chunkSize);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    eof = true;
+                    break;
+                }
+            }
+            bytes += buffer.position() - filled;
+            filled = buffer.position();
+
+            int cut = eof ? filled : lastGameStart(window, filled);
+            if (cut > 0) {
+                String text = new String(window, 0, cut, StandardCharsets.UTF_8);
+                inFlight.add(pool.submit(() -> parseGames(text, sink, games, malformed)));
+                System.arraycopy(window, cut, window, 0, filled - cut);
+                filled -= cut;
+            }
+            while (inFlight.size() > maxInFlight || (eof && !inFlight.isEmpty())) {
+                await(inFlight.poll());
+            }
+        }
+
+        return new Stats(games.sum(), malformed.sum(), bytes, System.nanoTime() - startNanos);
+    }
+
+    private static void await(Future<?> future) throws IOException {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while importing", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to import games", e.getCause());
+        }
+    }
+
+    /**
+     * Finds the start of the last game that begins in the buffer: a '[' at the start of a line,
+     * directly after a blank line.
+     *
+     * @return The index of that '[', or 0 if there is none after the start of the buffer.
+     */
+    static int lastGameStart(byte[] buffer, int length) {
+        for (int i = length - 1; i > 0; i--) {
+            if (buffer[i] == '[' && isAfterBlankLine(buffer, i)) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    private static boolean isAfterBlankLine(byte[] buffer, int i) {
+        int newlines = 0;
+        for (int j = i - 1; j >= 0; j--) {
+            byte b = buffer[j];
+            if (b == '\n') {
+                if (++newlines == 2) {
+                    return true;
+                }
+            } else if (b != '\r' && b != ' ' && b != '\t') {
+                return false;
+            }
+        }
+        return newlines > 0;
+    }
+
+    private static void parseGames(String text, Consumer<ImportedGame> sink, LongAdder games, LongAdder malformed) {
+        int start = 0;
+        while (start < text.length()) {
+            int next = nextGameStart(text, start);
+            ImportedGame game = parseGame(text, start, next);
+            if (game != null) {
+                sink.accept(game);
+                games.increment();
+            } else if (!text.substring(start, next).isBlank()) {
+                malformed.increment();
+            }
+            start = next;
+        }
+    }
+
+    private static int nextGameStart(String text, int from) {
+        // Skip this game's own tag section first
+        int i = from;
+        while (i < text.length() && (text.charAt(i) == '[' || Character.isWhitespace(text.charAt(i)))) {
+            if (text.charAt(i) == '[') {
+                int lineEnd = text.indexOf('\n', i);
+                i = lineEnd < 0 ? text.length() : lineEnd + 1;
+            } else {
+                i++;
+            }
+        }
+        int blank = i;
+        while ((blank = text.indexOf('\n', blank)) >= 0) {
+            int j = blank + 1;
+            while (j < text.length() && (text.charAt(j) == '\r' || text.charAt(j) == ' ' || text.charAt(j) == '\t')) {
+                j++;
+            }
+            if (j < text.length() && text.charAt(j) == '\n') {
+                int k = j + 1;
+                while (k < text.length() && Character.isWhitespace(text.charAt(k))) {
+                    k++;
+                }
+                if (k < text.length() && text.charAt(k) == '[') {
+                    return k;
+                }
+            }
+            blank = j;
+        }
+        return text.length();
+    }
+
+    /**
+     * Parses one game's tags and movetext and plays the moves.
+     *
+     * @return The game, or null if it is malformed or contains an illegal move.
+     */
+    static ImportedGame parseGame(String text, int from, int to) {
+        Map<String, String> tags = new HashMap<>();
+        int i = from;
+        while (i < to) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '[') {
+                int close = text.indexOf(']', i);
+                if (close < 0 || close >= to || !parseTag(text, i + 1, close, tags)) {
+                    return null;
+                }
+                i = close + 1;
+            } else {
+                break;
+            }
+        }
+
+        ChessGame game = new ChessGame();
+        try {
+            String fen = tags.get("FEN");
+            if (fen != null) {
+                Fen.parse(fen, game);
+            }
+            boolean result = false;
+            int variationDepth = 0;
+            while (i < to && !result) {
+                char c = text.charAt(i);
+                if (Character.isWhitespace(c)) {
+                    i++;
+                } else if (c == '{') {
+                    int close = text.indexOf('}', i);
+                    if (close < 0 || close >= to) {
+                        return null;
+                    }
+                    i = close + 1;
+                } else if (c == ';') {
+                    int lineEnd = text.indexOf('\n', i);
+                    i = lineEnd < 0 || lineEnd >= to ? to : lineEnd + 1;
+                } else if (c == '(') {
+                    variationDepth++;
+                    i++;
+                } else if (c == ')') {
+                    if (--variationDepth < 0) {
+                        return null;
+                    }
+                    i++;
+                } else {
+                    int tokenEnd = i;
+                    while (tokenEnd < to && !isTokenEnd(text.charAt(tokenEnd))) {
+                        tokenEnd++;
+                    }
+                    String token = text.substring(i, tokenEnd);
+                    i = tokenEnd;
+                    if (variationDepth > 0 || token.startsWith("$") || isMoveNumber(token)) {
+                        continue;
+                    }
+                    if (token.equals("1-0") || token.equals("0-1") || token.equals("1/2-1/2") || token.equals("*")) {
+                        result = true;
+                    } else {
+                        game.makeMove(San.parse(game, stripMoveNumber(token)));
+                    }
+                }
+            }
+            if (!result || variationDepth != 0) {
+                return null;
+            }
+        } catch (InvalidMoveException | IllegalArgumentException e) {
+            return null;
+        }
+        return new ImportedGame(tags, game);
+    }
+
+    private static boolean parseTag(String text, int from, int to, Map<String, String> tags) {
+        int space = text.indexOf(' ', from);
+        if (space < 0 || space >= to) {
+            return false;
+        }
+        int open = text.indexOf('"', space);
+        int close = text.lastIndexOf('"', to);
+        if (open < 0 || close <= open) {
+            return false;
+        }
+        tags.put(text.substring(from, space), text.substring(open + 1, close));
+        return true;
+    }
+
+    private static boolean isTokenEnd(char c) {
+        return Character.isWhitespace(c) || c == '{' || c == '(' || c == ')' || c == ';';
+    }
+
+    private static boolean isMoveNumber(String token) {
+        int i = 0;
+        while (i < token.length() && Character.isDigit(token.charAt(i))) {
+            i++;
+        }
+        if (i == 0) {
+            return false;
+        }
+        for (; i < token.length(); i++) {
+            if (token.charAt(i) != '.') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Removes a move number written without a space before the move, as in {@code 1.e4} or {@code 12...Nf6}.
+     */
+    private static String stripMoveNumber(String token) {
+        int i = 0;
+        while (i < token.length() && Character.isDigit(token.charAt(i))) {
+            i++;
+        }
+        if (i == 0 || i == token.length() || token.charAt(i) != '.') {
+            return token;
+        }
+        while (i < token.length() && token.charAt(i) == '.') {
+            i++;
+        }
+        return token.substring(i);
+    }
+}
@@ -0,0 +1,181 @@
+package chess;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes games as PGN to a channel.
+ * <p>
+ * Text goes straight into one reusable byte buffer that is drained to the channel whenever it fills,
+ * so exporting any number of games never builds a string for a whole game. Each game's moves are
+ * replayed on a scratch game owned by the writer, and SAN is formatted from the position before and
+ * after each move without any undo. A writer is not thread-safe.
+ */
+public class PgnWriter implements Closeable, Flushable {
+    public static final int DEFAULT_BUFFER_SIZE = 64 << 10;
+
+    // Export format recommends lines of at most 80 characters
+    private static final int LINE_LENGTH = 79;
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer;
+    private final ChessGame scratch = new ChessGame();
+    private final StringBuilder token = new StringBuilder(16);
+    private int column;
+
+    public PgnWriter(WritableByteChannel channel) {
+        this(channel, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * @param channel    The channel to write to. It is closed by {@link #close()}.
+     * @param bufferSize The number of bytes buffered before writing to the channel.
+     */
+    public PgnWriter(WritableByteChannel channel, int bufferSize) {
+        if (bufferSize < 256) {
+            throw new IllegalArgumentException("bufferSize must be at least 256");
+        }
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    /**
+     * Writes one game: its tag pairs, its moves from {@link ChessGame#getStartPosition()} and
+     * {@link ChessGame#getMoveHistory()}, and the result.
+     * <p>
+     * Tags are written in the map's iteration order. {@code SetUp} and {@code FEN} tags are added for
+     * games that did not start from the standard position, unless the map already has them.
+     *
+     * @param tags The tag pairs, such as {@code Event} and {@code White}. The {@code Result} tag, if
+     *             present, is also written after the moves; otherwise {@code *} is.
+     * @param game The game to write. It is not changed.
+     * @throws IllegalArgumentException if the recorded moves are not legal from the start position
+     */
+    public void write(Map<String, String> tags, ChessGame game) throws IOException {
+        String startFen = game.getStartPosition();
+        for (Map.Entry<String, String> tag : tags.entrySet()) {
+            writeTag(tag.getKey(), tag.getValue());
+        }
+        if (!startFen.equals(Fen.START_POSITION) && !tags.containsKey("FEN")) {
+            writeTag("SetUp", "1");
+            writeTag("FEN", startFen);
+        }
+        writeByte('\n');
+
+        Fen.parse(startFen, scratch);
+        column = 0;
+        List<ChessMove> moves = game.getMoveHistory();
+        for (int i = 0; i < moves.size(); i++) {
+            ChessMove move = moves.get(i);
+            if (!isLegal(move)) {
+                throw new IllegalArgumentException("Recorded move " + (i + 1) + " is illegal");
+            }
+            token.setLength(0);
+            if (scratch.getTeamTurn() == ChessGame.TeamColor.WHITE) {
+                token.append(scratch.getFullmoveNumber()).append(". ");
+            } else if (i == 0) {
+                token.append(scratch.getFullmoveNumber()).append("... ");
+            }
+            San.appendMove(scratch, move, token);
+            scratch.applyTrustedMove(move);
+            San.appendSuffix(scratch, token);
+            writeToken();
+        }
+        token.setLength(0);
+        token.append(tags.getOrDefault("Result", "*"));
+        writeToken();
+        writeByte('\n');
+        writeByte('\n');
+    }
+
+    /**
+     * Writes any buffered text to the channel.
+     */
+    @Override
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Flushes and closes the channel.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private boolean isLegal(ChessMove move) {
+        ChessPiece piece = scratch.getBoard().getPiece(move.getStartPosition());
+        return piece != null && piece.getTeamColor() == scratch.getTeamTurn() && scratch.isLegalMove(piece, move);
+    }
+
+    private void writeTag(String name, String value) throws IOException {
+        writeByte('[');
+        writeText(name);
+        writeByte(' ');
+        writeByte('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                writeByte('\\');
+            }
+            if (c < 0x80) {
+                writeByte(c);
+            } else {
+                // Rare in practice, so the non-ASCII remainder is encoded the simple way
+                writeText(value.substring(i).replace("\\", "\\\\").replace("\"", "\\\""));
+                break;
+            }
+        }
+        writeByte('"');
+        writeByte(']');
+        writeByte('\n');
+    }
+
+    /**
+     * Helper method to write the token in {@link #token}, wrapping the line first if it would get too long.
+     */
+    private void writeToken() throws IOException {
+        if (column > 0) {
+            if (column + 1 + token.length() > LINE_LENGTH) {
+                writeByte('\n');
+                column = 0;
+            } else {
+                writeByte(' ');
+                column++;
+            }
+        }
+        for (int i = 0; i < token.length(); i++) {
+            writeByte(token.charAt(i));
+        }
+        column += token.length();
+    }
+
+    private void writeText(String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        for (byte b : bytes) {
+            writeByte(b);
+        }
+    }
+
+    private void writeByte(int b) throws IOException {
+        if (!buffer.hasRemaining()) {
+            flush();
+        }
+        buffer.put((byte) b);
+    }
+}
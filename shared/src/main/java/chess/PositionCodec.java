@@ -0,0 +1,169 @@
+package chess;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Encodes a game's position into a fixed 32-byte binary form for storage and the wire, as a compact
+ * alternative to serializing the whole piece array as JSON.
+ * <p>
+ * Layout, with multi-byte values in the buffer's byte order:
+ * <ul>
+ *     <li>bytes 0-7: occupancy bitmask, where bit {@code row * 8 + col} (zero-based) is set for each occupied square</li>
+ *     <li>bytes 8-23: a 4-bit code for each occupied square in bit order, first code in the high bits.
+ *     The low 3 bits are the {@link ChessPiece.PieceType} ordinal and the high bit is set for black</li>
+ *     <li>byte 24: bit 0 is set when black is to move, bits 1-4 are the castling rights</li>
+ *     <li>byte 25: column of the pawn that can be captured en passant, or 0</li>
+ *     <li>bytes 26-27: halfmove clock</li>
+ *     <li>bytes 28-29: fullmove number</li>
+ *     <li>bytes 30-31: reserved, always 0</li>
+ * </ul>
+ * Encoding and decoding read and write the buffer directly and create no intermediate objects.
+ */
+public final class PositionCodec {
+    public static final int ENCODED_SIZE = 32;
+
+    private static final int MAX_PIECES = 32;
+    // Cached because PieceType.values() copies the array on every call
+    private static final ChessPiece.PieceType[] PIECE_TYPES = ChessPiece.PieceType.values();
+
+    private PositionCodec() {
+    }
+
+    /**
+     * Writes a game's position at the buffer's current position and advances it by {@link #ENCODED_SIZE}.
+     *
+     * @param game The game to encode.
+     * @param out  The buffer to write to.
+     * @throws IllegalArgumentException if the board has more than 32 pieces or a clock does not fit in 16 bits
+     */
+    public static void encode(ChessGame game, ByteBuffer out) {
+        ChessBoard board = game.getBoard();
+        long occupancy = 0;
+        // 32 nibbles split across two longs, filled from the high end
+        long highCodes = 0;
+        long lowCodes = 0;
+        int pieces = 0;
+
+        for (int square = 0; square < 64; square++) {
+            ChessPiece piece = board.pieceAt(square >>> 3, square & 7);
+            if (piece == null) {
+                continue;
+            }
+            if (pieces == MAX_PIECES) {
+                throw new IllegalArgumentException("Cannot encode a board with more than " + MAX_PIECES + " pieces");
+            }
+            occupancy |= 1L << square;
+            long code = pieceCode(piece);
+            if (pieces < 16) {
+                highCodes |= code << (60 - 4 * pieces);
+            } else {
+                lowCodes |= code << (60 - 4 * (pieces - 16));
+            }
+            pieces++;
+        }
+
+        int halfmove = game.getHalfmoveClock();
+        int fullmove = game.getFullmoveNumber();
+        if (halfmove > 0xFFFF || fullmove > 0xFFFF) {
+            throw new IllegalArgumentException("Move clocks do not fit in 16 bits");
+        }
+
+        int flags = (game.getTeamTurn() == ChessGame.TeamColor.BLACK ? 1 : 0) | (game.getCastlingRights() << 1);
+        out.putLong(occupancy)
+                .putLong(highCodes)
+                .putLong(lowCodes)
+                .put((byte) flags)
+                .put((byte) game.getEnPassantColumn())
+                .putShort((short) halfmove)
+                .putShort((short) fullmove)
+                .putShort((short) 0);
+    }
+
+    /**
+     * Reads a position written by {@link #encode(ChessGame, ByteBuffer)} into an existing game, reusing its board.
+     * The buffer's position is advanced by {@link #ENCODED_SIZE}. An invalid encoding leaves the game as it was.
+     *
+     * @param in   The buffer to read from.
+     * @param game The game to load into.
+     * @throws IllegalArgumentException if the bytes are not a valid encoding
+     */
+    public static void decode(ByteBuffer in, ChessGame game) {
+        long occupancy = in.getLong();
+        long highCodes = in.getLong();
+        long lowCodes = in.getLong();
+        int flags = in.get() & 0xFF;
+        int enPassantColumn = in.get() & 0xFF;
+        int halfmove = in.getShort() & 0xFFFF;
+        int fullmove = in.getShort() & 0xFFFF;
+        in.getShort();
+
+        if (Long.bitCount(occupancy) > MAX_PIECES || enPassantColumn > 8 || (flags >>> 5) != 0) {
+            throw new IllegalArgumentException("Not a valid encoded position");
+        }
+
+        // Check every piece code before the board is touched, so a bad encoding leaves the game as it was
+        int count = Long.bitCount(occupancy);
+        for (int k = 0; k < count; k++) {
+            pieceFromCode(codeAt(highCodes, lowCodes, k));
+        }
+
+        ChessBoard board = game.getBoard();
+        int pieces = 0;
+        for (int square = 0; square < 64; square++) {
+            ChessPiece piece = null;
+            if ((occupancy & (1L << square)) != 0) {
+                piece = pieceFromCode(codeAt(highCodes, lowCodes, pieces++));
+            }
+            board.setPieceAt(square >>> 3, square & 7, piece);
+        }
+
+        ChessGame.TeamColor turn = (flags & 1) != 0 ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        game.setPosition(board, turn, flags >>> 1, enPassantColumn, halfmove, fullmove);
+    }
+
+    /**
+     * Encodes a game's position into a new array.
+     *
+     * @param game The game to encode.
+     * @return The {@link #ENCODED_SIZE}-byte encoding.
+     */
+    public static byte[] encode(ChessGame game) {
+        byte[] bytes = new byte[ENCODED_SIZE];
+        encode(game, ByteBuffer.wrap(bytes));
+        return bytes;
+    }
+
+    /**
+     * Creates a game from an encoded position.
+     *
+     * @param bytes The encoding, starting at index 0.
+     * @return A new game in that position.
+     */
+    public static ChessGame decode(byte[] bytes) {
+        ChessGame game = new ChessGame();
+        decode(ByteBuffer.wrap(bytes), game);
+        return game;
+    }
+
+    private static int pieceCode(ChessPiece piece) {
+        int color = piece.getTeamColor() == ChessGame.TeamColor.BLACK ? 8 : 0;
+        return color | piece.getPieceType().ordinal();
+    }
+
+    /**
+     * Helper method to get the 4-bit code of the piece at an index in square order, packed 16 to a long.
+     */
+    private static int codeAt(long highCodes, long lowCodes, int index) {
+        long codes = index < 16 ? highCodes : lowCodes;
+        return (int) (codes >>> (60 - 4 * (index & 15))) & 0xF;
+    }
+
+    private static ChessPiece pieceFromCode(int code) {
+        int type = code & 7;
+        if (type >= PIECE_TYPES.length) {
+            throw new IllegalArgumentException("Not a valid piece code: " + code);
+        }
+        ChessGame.TeamColor color = (code & 8) != 0 ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        return ChessPiece.of(color, PIECE_TYPES[type]);
+    }
+}
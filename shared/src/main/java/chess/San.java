@@ -0,0 +1,270 @@
+package chess;
+
+/**
+ * Reads and writes moves in Standard Algebraic Notation (SAN), such as {@code e4}, {@code Nbd7},
+ * {@code exd6}, {@code e8=Q+} or {@code O-O-O}.
+ */
+public final class San {
+    private San() {
+    }
+
+    /**
+     * Finds the legal move a SAN token describes for the side to move.
+     * Check, mate and annotation suffixes such as {@code +}, {@code #}, {@code !} and {@code ?} are ignored.
+     *
+     * @param game The game the move is played in.
+     * @param san  The SAN token.
+     * @return The matching move.
+     * @throws InvalidMoveException if the token is malformed, or matches no legal move or more than one
+     */
+    public static ChessMove parse(ChessGame game, CharSequence san) throws InvalidMoveException {
+        int end = san.length();
+        while (end > 0 && isSuffix(san.charAt(end - 1))) {
+            end--;
+        }
+        if (end < 2) {
+            throw new InvalidMoveException("Not a SAN move: " + san);
+        }
+
+        ChessGame.TeamColor color = game.getTeamTurn();
+        int homeRow = color == ChessGame.TeamColor.WHITE ? 1 : 8;
+        if (isCastle(san, end, 3)) {
+            return requireLegal(game, new ChessMove(new ChessPosition(homeRow, 5), new ChessPosition(homeRow, 7), null), san);
+        }
+        if (isCastle(san, end, 5)) {
+            return requireLegal(game, new ChessMove(new ChessPosition(homeRow, 5), new ChessPosition(homeRow, 3), null), san);
+        }
+
+        ChessPiece.PieceType promotion = null;
+        char last = san.charAt(end - 1);
+        if (last == 'Q' || last == 'R' || last == 'B' || last == 'N') {
+            promotion = pieceType(last);
+            end--;
+            if (end > 0 && san.charAt(end - 1) == '=') {
+                end--;
+            }
+        }
+        if (end < 2) {
+            throw new InvalidMoveException("Not a SAN move: " + san);
+        }
+
+        int toCol = san.charAt(end - 2) - 'a' + 1;
+        int toRow = san.charAt(end - 1) - '0';
+        if (toCol < 1 || toCol > 8 || toRow < 1 || toRow > 8) {
+            throw new InvalidMoveException("Not a SAN move: " + san);
+        }
+
+        int i = 0;
+        ChessPiece.PieceType type = ChessPiece.PieceType.PAWN;
+        if (Character.isUpperCase(san.charAt(0))) {
+            type = pieceType(san.charAt(0));
+            if (type == null) {
+                throw new InvalidMoveException("Not a SAN move: " + san);
+            }
+            i = 1;
+        }
+
+        // Whatever is left between the piece and the destination is disambiguation and the capture mark
+        int fromCol = 0;
+        int fromRow = 0;
+        for (; i < end - 2; i++) {
+            char c = san.charAt(i);
+            if (c >= 'a' && c <= 'h') {
+                fromCol = c - 'a' + 1;
+            } else if (c >= '1' && c <= '8') {
+                fromRow = c - '0';
+            } else if (c != 'x' && c != ':' && c != '-') {
+                throw new InvalidMoveException("Not a SAN move: " + san);
+            }
+        }
+
+        ChessBoard board = game.getBoard();
+        ChessPosition destination = new ChessPosition(toRow, toCol);
+        ChessMove found = null;
+        for (int row = 1; row <= 8; row++) {
+            if (fromRow != 0 && row != fromRow) {
+                continue;
+            }
+            for (int col = 1; col <= 8; col++) {
+                if (fromCol != 0 && col != fromCol) {
+                    continue;
+                }
+                ChessPiece piece = board.pieceAt(row - 1, col - 1);
+                if (piece == null || piece.getTeamColor() != color || piece.getPieceType() != type) {
+                    continue;
+                }
+                ChessMove candidate = new ChessMove(new ChessPosition(row, col), destination, promotion);
+                if (game.isLegalMove(piece, candidate)) {
+                    if (found != null) {
+                        throw new InvalidMoveException("Ambiguous SAN move: " + san);
+                    }
+                    found = candidate;
+                }
+            }
+        }
+        if (found == null) {
+            throw new InvalidMoveException("No legal move matches " + san);
+        }
+        return found;
+    }
+
+    /**
+     * Formats a legal move in the game's current position as SAN, including disambiguation and
+     * the check or mate suffix. The game is left as it was, and readers of its snapshot never see
+     * the move being tried.
+     *
+     * @param game The game the move is about to be played in.
+     * @param move The move, which must be legal.
+     * @return The SAN text.
+     */
+    public static String format(ChessGame game, ChessMove move) {
+        StringBuilder out = new StringBuilder(8);
+        appendMove(game, move, out);
+        game.tryMove(move, after -> appendSuffix(after, out));
+        return out.toString();
+    }
+
+    /**
+     * Appends a move's SAN text without the check or mate suffix. Call before the move is played;
+     * after playing it, {@link #appendSuffix} adds the suffix. Formatting a whole game this way
+     * needs no undo.
+     *
+     * @param game The game the move is about to be played in.
+     * @param move The move, which must be legal.
+     * @param out  The builder to append to.
+     */
+    static void appendMove(ChessGame game, ChessMove move, StringBuilder out) {
+        ChessBoard board = game.getBoard();
+        ChessPosition start = move.getStartPosition();
+        ChessPosition end = move.getEndPosition();
+        ChessPiece piece = board.getPiece(start);
+        ChessPiece.PieceType type = piece.getPieceType();
+
+        if (type == ChessPiece.PieceType.KING && Math.abs(end.getColumn() - start.getColumn()) == 2) {
+            out.append(end.getColumn() == 7 ? "O-O" : "O-O-O");
+            return;
+        }
+
+        if (type == ChessPiece.PieceType.PAWN) {
+            if (start.getColumn() != end.getColumn()) {
+                out.append(file(start.getColumn())).append('x');
+            }
+        } else {
+            out.append(letter(type));
+            appendDisambiguation(game, piece, move, out);
+            if (board.getPiece(end) != null) {
+                out.append('x');
+            }
+        }
+        out.append(file(end.getColumn())).append((char) ('0' + end.getRow()));
+        if (move.getPromotionPiece() != null) {
+            out.append('=').append(letter(move.getPromotionPiece()));
+        }
+    }
+
+    /**
+     * Appends {@code #} if the side to move is checkmated or {@code +} if it is in check.
+     * Call right after the move was played.
+     *
+     * @param game The game the move was just played in.
+     * @param out  The builder to append to.
+     */
+    static void appendSuffix(ChessGame game, StringBuilder out) {
+        ChessGame.TeamColor toMove = game.getTeamTurn();
+        if (game.isInCheck(toMove)) {
+            out.append(game.isInCheckmate(toMove) ? '#' : '+');
+        }
+    }
+
+    /**
+     * Helper method to add the file, rank or both of the moving piece when another piece of the
+     * same type could also legally move to the same square.
+     */
+    private static void appendDisambiguation(ChessGame game, ChessPiece piece, ChessMove move, StringBuilder out) {
+        ChessBoard board = game.getBoard();
+        ChessPosition start = move.getStartPosition();
+        ChessPosition end = move.getEndPosition();
+        boolean ambiguous = false;
+        boolean sameFile = false;
+        boolean sameRank = false;
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                if ((row == start.getRow() && col == start.getColumn()) || !piece.equals(board.pieceAt(row - 1, col - 1))) {
+                    continue;
+                }
+                ChessMove rival = new ChessMove(new ChessPosition(row, col), end, null);
+                if (game.isLegalMove(piece, rival)) {
+                    ambiguous = true;
+                    sameFile |= col == start.getColumn();
+                    sameRank |= row == start.getRow();
+                }
+            }
+        }
+        if (!ambiguous) {
+            return;
+        }
+        if (!sameFile) {
+            out.append(file(start.getColumn()));
+        } else if (!sameRank) {
+            out.append((char) ('0' + start.getRow()));
+        } else {
+            out.append(file(start.getColumn())).append((char) ('0' + start.getRow()));
+        }
+    }
+
+    private static char file(int column) {
+        return (char) ('a' + column - 1);
+    }
+
+    private static char letter(ChessPiece.PieceType type) {
+        return switch (type) {
+            case KING -> 'K';
+            case QUEEN -> 'Q';
+            case ROOK -> 'R';
+            case BISHOP -> 'B';
+            case KNIGHT -> 'N';
+            case PAWN -> 'P';
+        };
+    }
+
+    private static ChessMove requireLegal(ChessGame game, ChessMove move, CharSequence san) throws InvalidMoveException {
+        ChessPiece king = game.getBoard().getPiece(move.getStartPosition());
+        if (king == null || king.getPieceType() != ChessPiece.PieceType.KING
+                || king.getTeamColor() != game.getTeamTurn() || !game.isLegalMove(king, move)) {
+            throw new InvalidMoveException("No legal move matches " + san);
+        }
+        return move;
+    }
+
+    /**
+     * Checks for O-O (length 3) or O-O-O (length 5), also accepting zeros for the letter O.
+     */
+    private static boolean isCastle(CharSequence san, int end, int length) {
+        if (end != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            char c = san.charAt(i);
+            boolean ok = i % 2 == 0 ? c == 'O' || c == '0' : c == '-';
+            if (!ok) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isSuffix(char c) {
+        return c == '+' || c == '#' || c == '!' || c == '?';
+    }
+
+    private static ChessPiece.PieceType pieceType(char c) {
+        return switch (c) {
+            case 'K' -> ChessPiece.PieceType.KING;
+            case 'Q' -> ChessPiece.PieceType.QUEEN;
+            case 'R' -> ChessPiece.PieceType.ROOK;
+            case 'B' -> ChessPiece.PieceType.BISHOP;
+            case 'N' -> ChessPiece.PieceType.KNIGHT;
+            default -> null;
+        };
+    }
+}
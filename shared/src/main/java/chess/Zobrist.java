@@ -0,0 +1,80 @@
+package chess;
+
+import java.util.SplittableRandom;
+
+/**
+ * Zobrist hashing of chess positions. Each (piece, square) pair, the side to move, each set of
+ * castling rights and each en passant column has a random 64-bit key, and a position's hash is the
+ * XOR of the keys that apply to it. That lets {@link ChessGame} update the hash in a few XORs per
+ * move instead of rehashing the board.
+ * <p>
+ * The en passant key is used only when a pawn could actually make the capture, so a double pawn push
+ * that no pawn can answer does not keep the position from repeating.
+ * <p>
+ * The keys come from a fixed seed, so hashes are stable across runs and can be stored.
+ */
+public final class Zobrist {
+    private static final long SEED = 0x2405_1977_C5A0_0001L;
+
+    // Indexed by [color * 6 + type ordinal][row index * 8 + column index]
+    private static final long[][] PIECE_SQUARE = new long[12][64];
+    private static final long[] CASTLING = new long[16];
+    // Index 0 is "no en passant" and stays 0
+    private static final long[] EN_PASSANT = new long[9];
+    private static final long BLACK_TO_MOVE;
+
+    static {
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (long[] squares : PIECE_SQUARE) {
+            for (int square = 0; square < 64; square++) {
+                squares[square] = random.nextLong();
+            }
+        }
+        for (int rights = 0; rights < CASTLING.length; rights++) {
+            CASTLING[rights] = random.nextLong();
+        }
+        for (int col = 1; col < EN_PASSANT.length; col++) {
+            EN_PASSANT[col] = random.nextLong();
+        }
+        BLACK_TO_MOVE = random.nextLong();
+    }
+
+    private Zobrist() {
+    }
+
+    /**
+     * Hashes a game's position from scratch.
+     *
+     * @param game The game to hash.
+     * @return The position's hash.
+     */
+    public static long hash(ChessGame game) {
+        ChessBoard board = game.getBoard();
+        long hash = 0;
+        for (int row = 0; row < 8; row++) {
+            for (int col = 0; col < 8; col++) {
+                ChessPiece piece = board.pieceAt(row, col);
+                if (piece != null) {
+                    hash ^= piece(piece, row, col);
+                }
+            }
+        }
+        return hash ^ state(game.getTeamTurn(), game.getCastlingRights(), game.getHashedEnPassantColumn());
+    }
+
+    /**
+     * @return The key for a piece on a square, by zero-based row and column index
+     */
+    static long piece(ChessPiece piece, int rowIndex, int colIndex) {
+        int index = piece.getTeamColor().ordinal() * 6 + piece.getPieceType().ordinal();
+        return PIECE_SQUARE[index][rowIndex * 8 + colIndex];
+    }
+
+    /**
+     * @return The combined key for everything about a position that is not on the board
+     */
+    static long state(ChessGame.TeamColor teamTurn, int castlingRights, int enPassantColumn) {
+        long hash = CASTLING[castlingRights] ^ EN_PASSANT[enPassantColumn];
+        return teamTurn == ChessGame.TeamColor.BLACK ? hash ^ BLACK_TO_MOVE : hash;
+    }
+}
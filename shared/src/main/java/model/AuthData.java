@@ -0,0 +1,10 @@
+package model;
+
+/**
+ * A login session.
+ *
+ * @param authToken The token the client sends with each request.
+ * @param username  The user who logged in.
+ */
+public record AuthData(String authToken, String username) {
+}
@@ -0,0 +1,15 @@
+package model;
+
+import chess.ChessGame;
+
+/**
+ * A stored game and the players in it.
+ *
+ * @param gameID        The game's unique ID.
+ * @param whiteUsername The white player's username, or null while the seat is open.
+ * @param blackUsername The black player's username, or null while the seat is open.
+ * @param gameName      The name the game was created with.
+ * @param game          The game itself.
+ */
+public record GameData(int gameID, String whiteUsername, String blackUsername, String gameName, ChessGame game) {
+}
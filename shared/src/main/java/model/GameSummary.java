@@ -0,0 +1,44 @@
+package model;
+
+import chess.ChessGame;
+
+/**
+ * A game's listing in the lobby: who is playing and whether it is over, without the board.
+ *
+ * @param gameID        The game's unique ID.
+ * @param whiteUsername The white player's username, or null while the seat is open.
+ * @param blackUsername The black player's username, or null while the seat is open.
+ * @param gameName      The name the game was created with.
+ * @param finished      Whether the game has ended by checkmate, stalemate or insufficient material.
+ */
+public record GameSummary(int gameID, String whiteUsername, String blackUsername, String gameName,
+                          boolean finished) {
+
+    public static GameSummary of(GameData game) {
+        return new GameSummary(game.gameID(), game.whiteUsername(), game.blackUsername(), game.gameName(),
+                isFinished(game.game()));
+    }
+
+    /**
+     * Determines if a game has ended on its own. Draws by repetition or the fifty-move rule only
+     * allow a claim, so they do not count.
+     */
+    public static boolean isFinished(ChessGame game) {
+        ChessGame.TeamColor toMove = game.getTeamTurn();
+        return game.isInCheckmate(toMove) || game.isInStalemate(toMove) || game.isInsufficientMaterial();
+    }
+
+    /**
+     * @return True if the white or black seat is open
+     */
+    public boolean hasOpenSeat() {
+        return whiteUsername == null || blackUsername == null;
+    }
+
+    /**
+     * @return True if the user plays either side
+     */
+    public boolean hasPlayer(String username) {
+        return username.equals(whiteUsername) || username.equals(blackUsername);
+    }
+}
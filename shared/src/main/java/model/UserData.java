@@ -0,0 +1,11 @@
+package model;
+
+/**
+ * A registered user.
+ *
+ * @param username The user's unique name.
+ * @param password The user's password, hashed before it is stored.
+ * @param email    The user's email address.
+ */
+public record UserData(String username, String password, String email) {
+}
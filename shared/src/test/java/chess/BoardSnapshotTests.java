@@ -0,0 +1,55 @@
+package chess;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class BoardSnapshotTests {
+
+    @Test
+    @DisplayName("Snapshot Does Not Change After Later Moves")
+    public void snapshotIsStable() throws InvalidMoveException {
+        var game = new ChessGame();
+        BoardSnapshot before = game.getSnapshot();
+        var start = new ChessBoard();
+        start.resetBoard();
+
+        game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        BoardSnapshot after = game.getSnapshot();
+        game.makeMove(new ChessMove(new ChessPosition(7, 5), new ChessPosition(5, 5), null));
+
+        Assertions.assertEquals(start, before.toBoard(), "Earlier snapshot changed");
+        Assertions.assertEquals(ChessGame.TeamColor.WHITE, before.getTeamTurn());
+        Assertions.assertNull(after.getPiece(new ChessPosition(2, 5)));
+        Assertions.assertNotNull(after.getPiece(new ChessPosition(4, 5)));
+        Assertions.assertNotNull(after.getPiece(new ChessPosition(7, 5)), "Snapshot saw a later move");
+        Assertions.assertEquals(ChessGame.TeamColor.BLACK, after.getTeamTurn());
+        Assertions.assertEquals(game.getBoard(), game.getSnapshot().toBoard());
+    }
+
+    @Test
+    @DisplayName("Board Writes Do Not Leak Into Snapshot")
+    public void boardWritesCopyRows() {
+        var game = new ChessGame();
+        BoardSnapshot snapshot = game.getSnapshot();
+
+        game.getBoard().clearPiece(new ChessPosition(1, 1));
+
+        Assertions.assertNotNull(snapshot.getPiece(new ChessPosition(1, 1)));
+        Assertions.assertNull(game.publishSnapshot().getPiece(new ChessPosition(1, 1)));
+    }
+
+    @Test
+    @DisplayName("Deserialized Game Snapshots Its Own Board")
+    public void snapshotAfterRoundTrip() throws InvalidMoveException {
+        var game = new ChessGame();
+        game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+
+        var gson = new Gson();
+        ChessGame copy = gson.fromJson(gson.toJson(game), ChessGame.class);
+
+        Assertions.assertEquals(game.getBoard(), copy.getSnapshot().toBoard());
+        Assertions.assertEquals(ChessGame.TeamColor.BLACK, copy.getSnapshot().getTeamTurn());
+    }
+}
@@ -0,0 +1,74 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class CompactGameTests {
+
+    @Test
+    @DisplayName("Round Trip Keeps Position And History")
+    public void roundTrip() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        for (String san : new String[]{"e4", "d5", "exd5", "c5", "dxc6", "Nf6", "cxb7", "e6", "bxa8=N"}) {
+            game.makeMove(San.parse(game, san));
+        }
+        CompactGame compact = CompactGame.of(game);
+        ChessGame restored = compact.toGame();
+
+        Assertions.assertEquals(game, restored);
+        Assertions.assertEquals(game.getMoveHistory(), restored.getMoveHistory());
+        Assertions.assertEquals(game.getPositionHash(), restored.getPositionHash());
+        Assertions.assertEquals(9, compact.getPlyCount());
+        Assertions.assertEquals(ChessGame.TeamColor.BLACK, compact.getTeamTurn());
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                ChessPosition square = new ChessPosition(row, col);
+                Assertions.assertEquals(game.getBoard().getPiece(square), compact.getPiece(square), square.toString());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Moves Keep Repetition History")
+    public void makeMoves() throws InvalidMoveException {
+        CompactGame compact = CompactGame.of(Fen.parse("4k3/8/8/8/8/8/8/4K2R w K - 0 1"));
+        String[] shuffle = {"Kd1", "Kd8", "Ke1", "Ke8"};
+        for (int i = 0; i < 12; i++) {
+            ChessGame view = compact.toGame();
+            compact.makeMove(San.parse(view, shuffle[i % 4]));
+        }
+        ChessGame game = compact.toGame();
+        Assertions.assertEquals("4k3/8/8/8/8/8/8/4K2R w - - 12 7", Fen.toFen(game));
+        Assertions.assertEquals(3, game.getRepetitionCount());
+
+        Assertions.assertThrows(InvalidMoveException.class, () -> compact.makeMove(
+                new ChessMove(new ChessPosition(1, 5), new ChessPosition(3, 5), null)));
+        Assertions.assertEquals(12, compact.getPlyCount());
+    }
+
+    @Test
+    @DisplayName("Moves After A Capture Count Repetition From It")
+    public void makeMovesAfterCapture() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        for (String san : new String[]{"e4", "d5", "exd5", "Qxd5", "Nc3", "Qd8"}) {
+            game.makeMove(San.parse(game, san));
+        }
+        CompactGame compact = CompactGame.of(game);
+        String[] shuffle = {"Nb1", "Nc6", "Nc3", "Nb8", "Nb1", "Nc6", "Nc3", "Nb8"};
+        for (String san : shuffle) {
+            ChessMove move = San.parse(game, san);
+            game.makeMove(move);
+            compact.makeMove(move);
+        }
+
+        ChessGame restored = compact.toGame();
+        Assertions.assertEquals(game, restored);
+        Assertions.assertEquals(game.getMoveHistory(), restored.getMoveHistory());
+        Assertions.assertEquals(14, compact.getPlyCount());
+        Assertions.assertEquals(3, restored.getRepetitionCount());
+        Assertions.assertThrows(InvalidMoveException.class, () -> compact.makeMove(
+                new ChessMove(new ChessPosition(1, 1), new ChessPosition(5, 1), null)));
+        Assertions.assertEquals(14, compact.getPlyCount());
+    }
+}
@@ -0,0 +1,59 @@
+package chess;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class DrawRuleTests {
+
+    @Test
+    @DisplayName("Fifty-Move Rule")
+    public void fiftyMoveRule() throws InvalidMoveException {
+        var game = Fen.parse("8/8/4k3/8/8/3K4/8/R7 w - - 98 80");
+        Assertions.assertFalse(game.isDrawByFiftyMoveRule());
+
+        game.makeMove(new ChessMove(new ChessPosition(1, 1), new ChessPosition(2, 1), null));
+        game.makeMove(new ChessMove(new ChessPosition(6, 5), new ChessPosition(7, 5), null));
+        Assertions.assertEquals(100, game.getHalfmoveClock());
+        Assertions.assertTrue(game.isDrawByFiftyMoveRule());
+    }
+
+    @Test
+    @DisplayName("Insufficient Material Positions")
+    public void insufficientMaterial() {
+        Assertions.assertTrue(Fen.parse("8/8/4k3/8/8/3K4/8/8 w - - 0 1").isInsufficientMaterial());
+        Assertions.assertTrue(Fen.parse("8/8/4k3/8/8/3K4/8/6N1 w - - 0 1").isInsufficientMaterial());
+        Assertions.assertTrue(Fen.parse("8/8/4k3/8/8/3K4/8/5B2 w - - 0 1").isInsufficientMaterial());
+        // Bishops on c1 and f8 are both dark-squared
+        Assertions.assertTrue(Fen.parse("5b2/8/4k3/8/8/3K4/8/2B5 w - - 0 1").isInsufficientMaterial());
+
+        Assertions.assertFalse(new ChessGame().isInsufficientMaterial());
+        Assertions.assertFalse(Fen.parse("4b3/8/4k3/8/8/3K4/8/2B5 w - - 0 1").isInsufficientMaterial());
+        Assertions.assertFalse(Fen.parse("8/8/4k3/8/8/3K4/8/1N4N1 w - - 0 1").isInsufficientMaterial());
+        Assertions.assertFalse(Fen.parse("8/8/4k3/8/8/3K4/7P/8 w - - 0 1").isInsufficientMaterial());
+    }
+
+    @Test
+    @DisplayName("Capture Leaves Insufficient Material")
+    public void captureUpdatesMaterial() throws InvalidMoveException {
+        var game = Fen.parse("8/8/4k3/8/3r4/3K4/8/5B2 w - - 7 40");
+        Assertions.assertFalse(game.isInsufficientMaterial());
+
+        game.makeMove(new ChessMove(new ChessPosition(3, 4), new ChessPosition(4, 4), null));
+        Assertions.assertTrue(game.isInsufficientMaterial());
+        Assertions.assertEquals(0, game.getHalfmoveClock());
+    }
+
+    @Test
+    @DisplayName("Insufficient Material After Gson Round Trip")
+    public void materialAfterRoundTrip() {
+        var gson = new Gson();
+        var game = Fen.parse("8/8/4k3/8/8/3K4/8/5B2 w - - 0 1");
+        ChessGame copy = gson.fromJson(gson.toJson(game), ChessGame.class);
+        Assertions.assertTrue(copy.isInsufficientMaterial());
+
+        var start = gson.fromJson(gson.toJson(new ChessGame()), ChessGame.class);
+        Assertions.assertFalse(start.isInsufficientMaterial());
+    }
+}
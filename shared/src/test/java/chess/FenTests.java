@@ -0,0 +1,82 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.CharBuffer;
+
+public class FenTests {
+
+    @Test
+    @DisplayName("Start Position Round Trip")
+    public void startPosition() {
+        Assertions.assertEquals(new ChessGame(), Fen.parse(Fen.START_POSITION));
+        Assertions.assertEquals(Fen.START_POSITION, Fen.toFen(new ChessGame()));
+    }
+
+    @Test
+    @DisplayName("Moves Update Castling, En Passant and Clocks")
+    public void movesUpdateState() throws InvalidMoveException {
+        var game = new ChessGame();
+        game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        Assertions.assertEquals("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1", Fen.toFen(game));
+
+        game.makeMove(new ChessMove(new ChessPosition(8, 7), new ChessPosition(6, 6), null));
+        game.makeMove(new ChessMove(new ChessPosition(1, 5), new ChessPosition(2, 5), null));
+        Assertions.assertEquals("rnbqkb1r/pppppppp/5n2/8/4P3/8/PPPPKPPP/RNBQ1BNR b kq - 2 2", Fen.toFen(game));
+    }
+
+    @Test
+    @DisplayName("Parse Then Write Is Identity")
+    public void roundTrip() {
+        String[] records = {
+                "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+                "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+                "rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 3",
+        };
+        for (String record : records) {
+            Assertions.assertEquals(record, Fen.toFen(Fen.parse(record)));
+
+            CharBuffer buffer = CharBuffer.allocate(100);
+            Fen.write(Fen.parse(record), buffer);
+            Assertions.assertEquals(record, buffer.flip().toString());
+        }
+    }
+
+    @Test
+    @DisplayName("En Passant From FEN")
+    public void enPassantFromFen() {
+        var game = Fen.parse("rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 3");
+        var capture = new ChessMove(new ChessPosition(5, 5), new ChessPosition(6, 6), null);
+        var notAllowed = new ChessMove(new ChessPosition(5, 5), new ChessPosition(6, 4), null);
+
+        Assertions.assertTrue(game.validMoves(new ChessPosition(5, 5)).contains(capture));
+        Assertions.assertFalse(game.validMoves(new ChessPosition(5, 5)).contains(notAllowed));
+    }
+
+    @Test
+    @DisplayName("Invalid FEN Rejected")
+    public void invalidFen() {
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> Fen.parse("rnbqkbnr/pppppppp/9/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1"));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> Fen.parse("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR x KQkq - 0 1"));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> Fen.parse("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP w KQkq - 0 1"));
+    }
+
+    @Test
+    @DisplayName("Invalid FEN Leaves Game Unchanged")
+    public void invalidFenLeavesGame() {
+        var game = Fen.parse("4k3/8/8/8/8/8/8/4K2R w K - 3 20");
+        var before = Fen.parse(Fen.toFen(game));
+
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> Fen.parse("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR x KQkq - 0 1", game));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> Fen.parse("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1 extra", game));
+        Assertions.assertEquals(before, game);
+        Assertions.assertEquals(before.getBoard(), game.getBoard());
+    }
+}
@@ -0,0 +1,96 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class GameReplayTests {
+
+    private static ChessMove move(int startRow, int startCol, int endRow, int endCol) {
+        return new ChessMove(new ChessPosition(startRow, startCol), new ChessPosition(endRow, endCol), null);
+    }
+
+    /**
+     * Plays a short game with a capture, castling and en passant, recording the FEN after each ply.
+     */
+    private static ChessGame playGame(List<String> positions) throws InvalidMoveException {
+        var game = new ChessGame();
+        positions.add(Fen.toFen(game));
+        ChessMove[] moves = {
+                move(2, 5, 4, 5), move(7, 4, 5, 4), move(4, 5, 5, 4), move(7, 5, 5, 5),
+                move(5, 4, 6, 5), move(8, 7, 6, 6), move(6, 5, 7, 6), move(8, 5, 7, 6),
+                move(1, 7, 3, 6), move(8, 6, 4, 2), move(1, 6, 2, 5), move(8, 8, 8, 5),
+                move(1, 5, 1, 7),
+        };
+        for (ChessMove m : moves) {
+            game.makeMove(m);
+            positions.add(Fen.toFen(game));
+        }
+        return game;
+    }
+
+    @Test
+    @DisplayName("Seek To Every Ply")
+    public void seekEveryPly() throws InvalidMoveException {
+        List<String> positions = new ArrayList<>();
+        ChessGame recorded = playGame(positions);
+        var replay = new GameReplay(recorded, 4);
+
+        Assertions.assertEquals(positions.size() - 1, replay.size());
+        for (int ply : new int[]{13, 0, 7, 8, 3, 12, 5, 5, 1}) {
+            replay.seek(ply);
+            Assertions.assertEquals(positions.get(ply), Fen.toFen(replay.getGame()), "Wrong position at ply " + ply);
+        }
+    }
+
+    @Test
+    @DisplayName("Step Forward And Back")
+    public void stepBothWays() throws InvalidMoveException {
+        List<String> positions = new ArrayList<>();
+        var replay = new GameReplay(playGame(positions), 3);
+
+        while (replay.stepForward()) {
+            Assertions.assertEquals(positions.get(replay.getPly()), Fen.toFen(replay.getGame()));
+        }
+        Assertions.assertEquals(replay.size(), replay.getPly());
+        while (replay.stepBack()) {
+            Assertions.assertEquals(positions.get(replay.getPly()), Fen.toFen(replay.getGame()));
+        }
+        Assertions.assertEquals(0, replay.getPly());
+    }
+
+    @Test
+    @DisplayName("Undo Restores Position And Hash")
+    public void undoRestores() throws InvalidMoveException {
+        List<String> positions = new ArrayList<>();
+        ChessGame game = playGame(positions);
+
+        for (int ply = positions.size() - 2; ply >= 0; ply--) {
+            Assertions.assertNotNull(game.undoMove());
+            Assertions.assertEquals(positions.get(ply), Fen.toFen(game));
+            Assertions.assertEquals(Zobrist.hash(game), game.getPositionHash());
+        }
+        Assertions.assertNull(game.undoMove());
+        Assertions.assertTrue(game.getMoveHistory().isEmpty());
+        Assertions.assertEquals(new ChessGame(), game);
+    }
+
+    @Test
+    @DisplayName("Remember A Replaced Start Position After Moves")
+    public void startPositionAfterMoves() throws InvalidMoveException {
+        String fen = "4k3/8/8/8/8/8/4P3/4K3 w - - 0 40";
+        ChessGame game = Fen.parse(fen);
+        game.makeMove(move(2, 5, 4, 5));
+        game.makeMove(move(8, 5, 7, 4));
+        Assertions.assertEquals(fen, game.getStartPosition());
+
+        ChessGame decoded = PositionCodec.decode(PositionCodec.encode(game));
+        Assertions.assertEquals(Fen.toFen(game), decoded.getStartPosition());
+        decoded.makeMove(move(4, 5, 5, 5));
+        Assertions.assertEquals(Fen.toFen(game), decoded.getStartPosition());
+        Assertions.assertEquals(Fen.START_POSITION, new ChessGame().getStartPosition());
+    }
+}
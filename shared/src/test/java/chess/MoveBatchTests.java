@@ -0,0 +1,68 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.Executors;
+
+public class MoveBatchTests {
+
+    @Test
+    @DisplayName("Batch Applies Moves In Order Per Game")
+    public void batchAppliesMovesInOrder() throws InvalidMoveException {
+        int gameCount = 500;
+        ChessGame[] games = new ChessGame[gameCount * 3];
+        ChessMove[] moves = new ChessMove[gameCount * 3];
+        ChessGame[] distinct = new ChessGame[gameCount];
+        for (int g = 0; g < gameCount; g++) {
+            distinct[g] = new ChessGame();
+        }
+        // Every game gets e2-e4, an illegal e4-e6, then e7-e5, interleaved across games
+        for (int g = 0; g < gameCount; g++) {
+            games[g] = distinct[g];
+            moves[g] = new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null);
+            games[gameCount + g] = distinct[g];
+            moves[gameCount + g] = new ChessMove(new ChessPosition(4, 5), new ChessPosition(6, 5), null);
+            games[2 * gameCount + g] = distinct[g];
+            moves[2 * gameCount + g] = new ChessMove(new ChessPosition(7, 5), new ChessPosition(5, 5), null);
+        }
+
+        var pool = Executors.newFixedThreadPool(4);
+        try {
+            boolean[] applied = new boolean[moves.length];
+            int made = new MoveBatch(pool, 4).apply(games, moves, applied);
+            Assertions.assertEquals(gameCount * 2, made);
+
+            ChessGame expected = new ChessGame();
+            expected.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+            expected.makeMove(new ChessMove(new ChessPosition(7, 5), new ChessPosition(5, 5), null));
+            for (int g = 0; g < gameCount; g++) {
+                Assertions.assertTrue(applied[g]);
+                Assertions.assertFalse(applied[gameCount + g]);
+                Assertions.assertTrue(applied[2 * gameCount + g]);
+                Assertions.assertEquals(expected, distinct[g]);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Small Batch Runs Inline")
+    public void smallBatchInline() {
+        ChessGame game = new ChessGame();
+        boolean[] applied = new boolean[2];
+        int made = new MoveBatch(Runnable::run, 8).apply(
+                new ChessGame[]{game, game},
+                new ChessMove[]{
+                        new ChessMove(new ChessPosition(7, 5), new ChessPosition(5, 5), null),
+                        new ChessMove(new ChessPosition(1, 7), new ChessPosition(3, 6), null)},
+                applied);
+
+        Assertions.assertEquals(1, made);
+        Assertions.assertFalse(applied[0], "Black moved first");
+        Assertions.assertTrue(applied[1]);
+        Assertions.assertEquals(ChessGame.TeamColor.BLACK, game.getTeamTurn());
+    }
+}
@@ -0,0 +1,80 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+
+public class PgnImporterTests {
+
+    private static final String PGN = """
+            [Event "Scholar's mate"]
+            [White "A"]
+            [Black "B"]
+            [Result "1-0"]
+
+            1. e4 e5 2. Bc4 Nc6 3. Qh5 Nf6?? 4. Qxf7# 1-0
+
+            [Event "Broken"]
+            [Result "*"]
+
+            1. e4 e5 2. Ke3 *
+
+            [Event "Castles and en passant"]
+            [Result "0-1"]
+
+            1.e4 d5 2. e5 {a comment} f5 3. exf6 (3. d4 Nc6) gxf6 4. Nf3 Bh6 5. Bc4 Nd7
+            6. O-O Nb6 7. d3 Nxc4 8. dxc4 Bxc1 9. Qxc1 Qd6 $1 10. Nc3 Qxh2+ 11. Nxh2 e5
+            12. Qh6 0-1
+
+            [Event "Black promotes"]
+            [SetUp "1"]
+            [FEN "8/8/8/8/8/2k5/p7/4K3 b - - 0 1"]
+            [Result "*"]
+
+            1... a1=Q+ 2. Kf2 *
+            """;
+
+    @Test
+    @DisplayName("Import Games Across Small Chunks")
+    public void importAcrossChunks() throws IOException {
+        var imported = new ConcurrentHashMap<String, ChessGame>();
+        var importer = new PgnImporter(new ForkJoinPool(3), 64);
+        var stats = importer.importFrom(
+                Channels.newChannel(new ByteArrayInputStream(PGN.getBytes(StandardCharsets.UTF_8))),
+                game -> imported.put(game.tags().get("Event"), game.game()));
+
+        Assertions.assertEquals(3, stats.games());
+        Assertions.assertEquals(1, stats.malformed());
+        Assertions.assertEquals(PGN.getBytes(StandardCharsets.UTF_8).length, stats.bytes());
+
+        ChessGame mate = imported.get("Scholar's mate");
+        Assertions.assertEquals(7, mate.getMoveHistory().size());
+        Assertions.assertTrue(mate.isInCheckmate(ChessGame.TeamColor.BLACK));
+
+        ChessGame opening = imported.get("Castles and en passant");
+        Assertions.assertEquals(23, opening.getMoveHistory().size());
+
+        ChessGame promotion = imported.get("Black promotes");
+        Assertions.assertEquals("8/8/8/8/8/2k5/5K2/q7 b - - 1 2", Fen.toFen(promotion));
+    }
+
+    @Test
+    @DisplayName("SAN Disambiguation")
+    public void sanDisambiguation() throws InvalidMoveException {
+        var game = Fen.parse("4k3/8/8/8/8/8/4K3/R6R w - - 0 1");
+        Assertions.assertEquals(new ChessMove(new ChessPosition(1, 1), new ChessPosition(1, 4), null),
+                San.parse(game, "Rad1"));
+        Assertions.assertEquals(new ChessMove(new ChessPosition(1, 8), new ChessPosition(1, 4), null),
+                San.parse(game, "Rhd1+"));
+        Assertions.assertThrows(InvalidMoveException.class, () -> San.parse(game, "Rd1"));
+        Assertions.assertThrows(InvalidMoveException.class, () -> San.parse(game, "O-O"));
+        Assertions.assertThrows(InvalidMoveException.class, () -> San.parse(game, "Qd1"));
+    }
+}
@@ -0,0 +1,100 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+public class PgnWriterTests {
+
+    @Test
+    @DisplayName("Format Disambiguation And Suffixes")
+    public void formatSan() throws InvalidMoveException {
+        ChessGame game = Fen.parse("4k3/8/8/8/8/8/4K3/R6R w - - 0 1");
+        BoardSnapshot published = game.getSnapshot();
+        Assertions.assertEquals("Rad1", San.format(game, San.parse(game, "Rad1")));
+        Assertions.assertEquals("Rh8+", San.format(game, San.parse(game, "Rh8")));
+        Assertions.assertEquals("4k3/8/8/8/8/8/4K3/R6R w - - 0 1", Fen.toFen(game));
+        // The moves tried for their suffixes are never published
+        Assertions.assertSame(published, game.getSnapshot());
+
+        ChessGame files = Fen.parse("4k3/8/8/N7/8/N7/8/4K3 w - - 0 1");
+        Assertions.assertEquals("N5c4", San.format(files, San.parse(files, "N5c4")));
+
+        ChessGame mate = Fen.parse("6k1/5ppp/8/8/8/8/8/R3K3 w Q - 0 1");
+        Assertions.assertEquals("Ra8#", San.format(mate, San.parse(mate, "Ra8")));
+        Assertions.assertEquals("O-O-O", San.format(mate, San.parse(mate, "O-O-O")));
+
+        ChessGame promote = Fen.parse("8/1P2k3/8/8/8/8/8/4K3 w - - 0 1");
+        ChessMove push = new ChessMove(new ChessPosition(7, 2), new ChessPosition(8, 2), ChessPiece.PieceType.QUEEN);
+        Assertions.assertEquals("b8=Q", San.format(promote, push));
+    }
+
+    @Test
+    @DisplayName("Write Games That Import Back")
+    public void roundTrip() throws IOException {
+        String pgn = """
+                [Event "First"]
+                [Result "1-0"]
+
+                1. e4 e5 2. Bc4 Nc6 3. Qh5 Nf6 4. Qxf7# 1-0
+
+                [Event "Second"]
+                [SetUp "1"]
+                [FEN "8/8/8/8/8/2k5/p7/4K3 b - - 0 1"]
+                [Result "*"]
+
+                1... a1=Q+ 2. Kf2 *
+                """;
+        List<PgnImporter.ImportedGame> games = new ArrayList<>();
+        new PgnImporter(ForkJoinPool.commonPool(), 1 << 16).importFrom(
+                Channels.newChannel(new ByteArrayInputStream(pgn.getBytes(StandardCharsets.UTF_8))), games::add);
+        games.sort((a, b) -> a.tags().get("Event").compareTo(b.tags().get("Event")));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (PgnWriter writer = new PgnWriter(Channels.newChannel(out), 256)) {
+            for (PgnImporter.ImportedGame game : games) {
+                Map<String, String> tags = new LinkedHashMap<>();
+                tags.put("Event", game.tags().get("Event"));
+                tags.put("Result", game.tags().get("Result"));
+                writer.write(tags, game.game());
+            }
+        }
+
+        Assertions.assertEquals(pgn.replace("[SetUp \"1\"]\n[FEN \"8/8/8/8/8/2k5/p7/4K3 b - - 0 1\"]\n[Result \"*\"]",
+                        "[Result \"*\"]\n[SetUp \"1\"]\n[FEN \"8/8/8/8/8/2k5/p7/4K3 b - - 0 1\"]") + "\n",
+                out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("Wrap Long Games And Escape Tags")
+    public void wrapAndEscape() throws IOException, InvalidMoveException {
+        ChessGame game = new ChessGame();
+        String[] shuffle = {"Nf3", "Nf6", "Ng1", "Ng8"};
+        for (int i = 0; i < 40; i++) {
+            game.makeMove(San.parse(game, shuffle[i % 4]));
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (PgnWriter writer = new PgnWriter(Channels.newChannel(out), 256)) {
+            writer.write(Map.of("Event", "The \"Big\" One"), game);
+        }
+        String text = out.toString(StandardCharsets.UTF_8);
+
+        Assertions.assertTrue(text.startsWith("[Event \"The \\\"Big\\\" One\"]\n\n1. Nf3 Nf6 2. Ng1 Ng8"));
+        for (String line : text.split("\n")) {
+            Assertions.assertTrue(line.length() <= 80, line);
+        }
+        Assertions.assertTrue(text.endsWith("20. Ng1 Ng8 *\n\n"));
+    }
+}
@@ -0,0 +1,68 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+public class PositionCodecTests {
+
+    @Test
+    @DisplayName("Round Trip Keeps Whole Position")
+    public void roundTrip() {
+        String[] records = {
+                Fen.START_POSITION,
+                "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R b Kq - 17 42",
+                "rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 3",
+                "8/8/8/8/8/8/8/K6k w - - 0 1",
+        };
+        ByteBuffer buffer = ByteBuffer.allocate(PositionCodec.ENCODED_SIZE * records.length);
+        for (String record : records) {
+            PositionCodec.encode(Fen.parse(record), buffer);
+        }
+        Assertions.assertEquals(PositionCodec.ENCODED_SIZE * records.length, buffer.position());
+
+        buffer.flip();
+        ChessGame game = new ChessGame();
+        for (String record : records) {
+            PositionCodec.decode(buffer, game);
+            Assertions.assertEquals(record, Fen.toFen(game));
+        }
+    }
+
+    @Test
+    @DisplayName("Decoded Game Can Keep Playing")
+    public void decodedGamePlays() throws InvalidMoveException {
+        var game = new ChessGame();
+        game.makeMove(new ChessMove(new ChessPosition(2, 4), new ChessPosition(4, 4), null));
+
+        ChessGame decoded = PositionCodec.decode(PositionCodec.encode(game));
+        Assertions.assertEquals(game, decoded);
+        decoded.makeMove(new ChessMove(new ChessPosition(7, 4), new ChessPosition(5, 4), null));
+    }
+
+    @Test
+    @DisplayName("Too Many Pieces Rejected")
+    public void tooManyPieces() {
+        var board = new ChessBoard();
+        Fen.parseBoard("pppppppp/pppppppp/pppppppp/pppppppp/P7/8/8/8", board);
+        var game = new ChessGame();
+        game.setBoard(board);
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> PositionCodec.encode(game));
+    }
+
+    @Test
+    @DisplayName("Bad Piece Code Leaves Game Unchanged")
+    public void badPieceCode() {
+        byte[] bytes = PositionCodec.encode(new ChessGame());
+        // The last of the 32 piece codes is the low nibble of the last byte of the second code word
+        bytes[23] = (byte) (bytes[23] | 0x7);
+        var game = Fen.parse("4k3/8/8/8/8/8/8/4K2R w K - 3 20");
+        var before = Fen.parse(Fen.toFen(game));
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> PositionCodec.decode(ByteBuffer.wrap(bytes), game));
+        Assertions.assertEquals(before, game);
+    }
+}
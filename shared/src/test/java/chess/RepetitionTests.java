@@ -0,0 +1,104 @@
+package chess;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class RepetitionTests {
+
+    private static void knightDance(ChessGame game) throws InvalidMoveException {
+        game.makeMove(new ChessMove(new ChessPosition(1, 7), new ChessPosition(3, 6), null));
+        game.makeMove(new ChessMove(new ChessPosition(8, 7), new ChessPosition(6, 6), null));
+        game.makeMove(new ChessMove(new ChessPosition(3, 6), new ChessPosition(1, 7), null));
+        game.makeMove(new ChessMove(new ChessPosition(6, 6), new ChessPosition(8, 7), null));
+    }
+
+    @Test
+    @DisplayName("Incremental Hash Matches Full Hash")
+    public void incrementalHash() throws InvalidMoveException {
+        var game = Fen.parse("r3k2r/pppq1ppp/8/3pP3/8/8/PPPQ1PPP/R3K2R w KQkq d6 0 10");
+        // En passant, then castling on both sides
+        game.makeMove(new ChessMove(new ChessPosition(5, 5), new ChessPosition(6, 4), null));
+        long afterCapture = game.getPositionHash();
+        game.makeMove(new ChessMove(new ChessPosition(8, 5), new ChessPosition(8, 3), null));
+        game.makeMove(new ChessMove(new ChessPosition(1, 5), new ChessPosition(1, 7), null));
+
+        Assertions.assertNotEquals(afterCapture, game.getPositionHash());
+        Assertions.assertEquals(Zobrist.hash(game), game.getPositionHash());
+        Assertions.assertEquals(Fen.parse(Fen.toFen(game)).getPositionHash(), game.getPositionHash());
+    }
+
+    @Test
+    @DisplayName("Threefold Repetition Detected")
+    public void threefold() throws InvalidMoveException {
+        var game = new ChessGame();
+        Assertions.assertEquals(1, game.getRepetitionCount());
+
+        knightDance(game);
+        Assertions.assertEquals(2, game.getRepetitionCount());
+        Assertions.assertFalse(game.isThreefoldRepetition());
+
+        knightDance(game);
+        Assertions.assertTrue(game.isThreefoldRepetition());
+    }
+
+    @Test
+    @DisplayName("Uncapturable Double Push Still Repeats")
+    public void enPassantOnlyWhenCapturable() throws InvalidMoveException {
+        var game = new ChessGame();
+        game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        for (int cycle = 0; cycle < 2; cycle++) {
+            game.makeMove(new ChessMove(new ChessPosition(8, 7), new ChessPosition(6, 6), null));
+            game.makeMove(new ChessMove(new ChessPosition(1, 7), new ChessPosition(3, 6), null));
+            game.makeMove(new ChessMove(new ChessPosition(6, 6), new ChessPosition(8, 7), null));
+            game.makeMove(new ChessMove(new ChessPosition(3, 6), new ChessPosition(1, 7), null));
+        }
+
+        Assertions.assertTrue(game.isThreefoldRepetition());
+        Assertions.assertEquals(Zobrist.hash(game), game.getPositionHash());
+    }
+
+    @Test
+    @DisplayName("Capturable Double Push Is A Different Position")
+    public void enPassantWhenCapturable() throws InvalidMoveException {
+        var game = Fen.parse("rnbqkbnr/ppp1pppp/8/8/3p4/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1");
+        game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        long afterPush = game.getPositionHash();
+        // Same pieces and side to move afterwards, but the d4 pawn can no longer take en passant
+        game.makeMove(new ChessMove(new ChessPosition(8, 7), new ChessPosition(6, 6), null));
+        game.makeMove(new ChessMove(new ChessPosition(1, 7), new ChessPosition(3, 6), null));
+        game.makeMove(new ChessMove(new ChessPosition(6, 6), new ChessPosition(8, 7), null));
+        game.makeMove(new ChessMove(new ChessPosition(3, 6), new ChessPosition(1, 7), null));
+
+        Assertions.assertNotEquals(afterPush, game.getPositionHash());
+        Assertions.assertEquals(1, game.getRepetitionCount());
+        Assertions.assertEquals(Zobrist.hash(game), game.getPositionHash());
+    }
+
+    @Test
+    @DisplayName("Pawn Move Breaks Repetition")
+    public void irreversibleMoveResets() throws InvalidMoveException {
+        var game = new ChessGame();
+        knightDance(game);
+        game.makeMove(new ChessMove(new ChessPosition(2, 1), new ChessPosition(3, 1), null));
+        game.makeMove(new ChessMove(new ChessPosition(7, 1), new ChessPosition(6, 1), null));
+        knightDance(game);
+
+        Assertions.assertEquals(2, game.getRepetitionCount());
+    }
+
+    @Test
+    @DisplayName("Hash Rebuilt After Gson Round Trip")
+    public void hashAfterRoundTrip() throws InvalidMoveException {
+        var game = new ChessGame();
+        game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        game.makeMove(new ChessMove(new ChessPosition(7, 5), new ChessPosition(5, 5), null));
+
+        var gson = new Gson();
+        ChessGame copy = gson.fromJson(gson.toJson(game), ChessGame.class);
+
+        Assertions.assertEquals(game.getPositionHash(), copy.getPositionHash());
+        Assertions.assertEquals(Zobrist.hash(copy), copy.getPositionHash());
+    }
+}